@@ -0,0 +1,95 @@
+package pl.przemekzagorski.training.sql;
+
+import java.nio.file.Path;
+
+/**
+ * Jak uruchomić bazę piratów: w pamięci (domyślnie) albo w pliku, z opcjami MVStore.
+ *
+ * Argumenty H2ConsoleStarter:
+ *   --file[=ścieżka]   baza w pliku (domyślnie target/pirates-db/pirates) - tworzona raz, potem tylko otwierana
+ *   --pirates=N        wygeneruj N piratów (oraz proporcjonalnie statki, wyspy, skarby) - tylko przy tworzeniu
+ *   --cache-mb=N       cache stron MVStore (CACHE_SIZE), domyślnie 64 MB
+ *   --page-size=N      próg podziału strony MVStore w bajtach (PAGE_SIZE), domyślnie wartość H2
+ *   --compress         kompresja stron (COMPRESS=TRUE) - mniejszy plik, więcej CPU
+ *   --recreate         usuń istniejący plik i zbuduj bazę od nowa
+ *
+ * @param file      ścieżka bazy bez rozszerzenia .mv.db albo null dla bazy w pamięci
+ * @param pirates   ilu piratów wygenerować ponad data.sql (0 = tylko data.sql)
+ */
+public record DatabaseOptions(Path file, long pirates, int cacheMb, int pageSize, boolean compress, boolean recreate) {
+
+    static final Path DEFAULT_FILE = Path.of("target", "pirates-db", "pirates");
+
+    static final String USAGE = """
+            Użycie: H2ConsoleStarter [--file[=ścieżka]] [--pirates=N] [--cache-mb=N] [--page-size=N] [--compress] [--recreate]""";
+
+    public static DatabaseOptions parse(String[] args) {
+        Path file = null;
+        long pirates = 0;
+        int cacheMb = 64;
+        int pageSize = 0;
+        boolean compress = false;
+        boolean recreate = false;
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : null;
+            switch (arg.contains("=") ? arg.substring(0, arg.indexOf('=')) : arg) {
+                case "--file" -> file = value == null ? DEFAULT_FILE : Path.of(required(arg, value));
+                case "--pirates" -> pirates = number(arg, value, Long.MAX_VALUE);
+                case "--cache-mb" -> cacheMb = (int) number(arg, value, Integer.MAX_VALUE / 1024);
+                case "--page-size" -> pageSize = (int) number(arg, value, Integer.MAX_VALUE);
+                case "--compress" -> compress = true;
+                case "--recreate" -> recreate = true;
+                default -> throw new IllegalArgumentException("Nieznany argument: " + arg + "\n" + USAGE);
+            }
+        }
+        return new DatabaseOptions(file, pirates, cacheMb, pageSize, compress, recreate);
+    }
+
+    /**
+     * Wartość opcji liczbowej, np. --pirates=5_000_000 (podkreślenia dozwolone jak w Javie).
+     */
+    private static long number(String arg, String value, long max) {
+        try {
+            long number = Long.parseLong(required(arg, value).replace("_", ""));
+            if (number >= 0 && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Niepoprawna liczba: " + arg + "\n" + USAGE, e);
+        }
+        throw new IllegalArgumentException("Wartość poza zakresem 0.." + max + ": " + arg + "\n" + USAGE);
+    }
+
+    private static String required(String arg, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Brak wartości: " + arg + " (oczekiwano " + arg.replace("=", "") + "=...)\n" + USAGE);
+        }
+        return value;
+    }
+
+    public boolean persistent() {
+        return file != null;
+    }
+
+    public String jdbcUrl() {
+        if (!persistent()) {
+            return "jdbc:h2:mem:pirates;DB_CLOSE_DELAY=-1";
+        }
+        // CACHE_SIZE w KB; opcje MVStore działają tylko dla bazy plikowej
+        return "jdbc:h2:file:" + file.toAbsolutePath()
+                + ";CACHE_SIZE=" + cacheMb * 1024
+                + (pageSize > 0 ? ";PAGE_SIZE=" + pageSize : "")
+                + (compress ? ";COMPRESS=TRUE" : "");
+    }
+
+    /**
+     * URL, który wkleja się do konsoli H2 - bez opcji strojenia, które obowiązują przy otwarciu.
+     */
+    public String consoleUrl() {
+        return persistent() ? "jdbc:h2:file:" + file.toAbsolutePath() : "jdbc:h2:mem:pirates";
+    }
+
+    public Path dataFile() {
+        return file.resolveSibling(file.getFileName() + ".mv.db");
+    }
+}
@@ -1,61 +1,145 @@
 package pl.przemekzagorski.training.sql;
 
 import org.h2.tools.Server;
+import java.nio.file.Files;
 import java.sql.*;
 
 /**
  * Uruchamia konsolę H2 do ćwiczeń SQL.
  * Po uruchomieniu otwórz przeglądarkę: http://localhost:8082
+ *
+ * Bez argumentów - baza w pamięci, schema.sql + data.sql ładowane przy każdym starcie.
+ * Z --file - baza w pliku: tworzona raz (opcjonalnie z --pirates=N wygenerowanych piratów),
+ * przy kolejnych startach tylko otwierana. Ostatni krok budowy to tabela-znacznik database_ready -
+ * plik bez niej (start przerwany w trakcie skryptów albo generowania) jest budowany od nowa.
+ * Pełna lista opcji: DatabaseOptions.
+ *
+ * Przykład: mvn exec:java -Dexec.mainClass=...H2ConsoleStarter -Dexec.args="--file --pirates=5000000"
  */
 public class H2ConsoleStarter {
 
-    private static final String JDBC_URL = "jdbc:h2:mem:pirates;DB_CLOSE_DELAY=-1";
     private static final String USER = "sa";
     private static final String PASSWORD = "";
+    private static final String READY_MARKER = "DATABASE_READY";
 
     public static void main(String[] args) throws Exception {
+        DatabaseOptions options;
+        try {
+            options = DatabaseOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("❌ " + e.getMessage());
+            System.exit(1);
+            return;
+        }
         System.out.println("🏴‍☠️ Uruchamianie bazy danych piratów...");
 
-        initializeDatabase();
+        if (options.recreate() && options.persistent()) {
+            Files.deleteIfExists(options.dataFile());
+        }
+
+        long start = System.nanoTime();
+        // połączenie otwarte przez całą sesję - baza plikowa zostaje otwarta z ciepłym cache
+        try (Connection conn = DriverManager.getConnection(options.jdbcUrl(), USER, PASSWORD)) {
+            prepareDatabase(conn, options, start);
+            printCounts(conn);
 
-        Server webServer = Server.createWebServer("-web", "-webAllowOthers", "-webPort", "8082");
-        webServer.start();
+            Server webServer = Server.createWebServer("-web", "-webAllowOthers", "-webPort", "8082");
+            webServer.start();
 
-        System.out.println();
-        System.out.println("╔════════════════════════════════════════════════════════════╗");
-        System.out.println("║  🌐 Konsola H2 uruchomiona!                                ║");
-        System.out.println("║  Otwórz przeglądarkę: http://localhost:8082                ║");
-        System.out.println("║  JDBC URL: jdbc:h2:mem:pirates                             ║");
-        System.out.println("║  User: sa  |  Password: (puste)                            ║");
-        System.out.println("║  Naciśnij ENTER aby zatrzymać...                           ║");
-        System.out.println("╚════════════════════════════════════════════════════════════╝");
+            System.out.println();
+            System.out.println("╔════════════════════════════════════════════════════════════╗");
+            System.out.println("║  🌐 Konsola H2 uruchomiona!                                ║");
+            System.out.println("║  Otwórz przeglądarkę: http://localhost:8082                ║");
+            System.out.println("║  User: sa  |  Password: (puste)                            ║");
+            System.out.println("║  Naciśnij ENTER aby zatrzymać...                           ║");
+            System.out.println("╚════════════════════════════════════════════════════════════╝");
+            System.out.println("  JDBC URL: " + options.consoleUrl());
 
-        System.in.read();
-        webServer.stop();
+            System.in.read();
+            webServer.stop();
+        }
         System.out.println("👋 Serwer zatrzymany.");
     }
 
-    private static void initializeDatabase() throws Exception {
-        try (Connection conn = DriverManager.getConnection(JDBC_URL, USER, PASSWORD)) {
-            String schema = new String(H2ConsoleStarter.class.getResourceAsStream("/schema.sql").readAllBytes());
-            String data = new String(H2ConsoleStarter.class.getResourceAsStream("/data.sql").readAllBytes());
-
-            try (Statement stmt = conn.createStatement()) {
-                for (String command : schema.split(";")) {
-                    String trimmed = command.replaceAll("--.*", "").trim();
-                    if (!trimmed.isEmpty()) {
-                        stmt.execute(trimmed);
-                    }
+    /**
+     * Otwiera gotową bazę albo buduje ją od zera. Bez znacznika każda pozostałość przerwanej budowy
+     * (np. same islands i ships - schema.sql tworzy je przed pirates) jest usuwana przed skryptami.
+     */
+    static void prepareDatabase(Connection conn, DatabaseOptions options, long start) throws Exception {
+        if (tableExists(conn, READY_MARKER)) {
+            System.out.printf("✅ Otwarto istniejącą bazę %s w %d ms (bez ładowania skryptów)%n",
+                    options.dataFile(), (System.nanoTime() - start) / 1_000_000);
+            if (options.pirates() > 0) {
+                System.out.println("   ℹ️ --pirates działa tylko przy tworzeniu bazy - dodaj --recreate");
+            }
+            return;
+        }
+        if (hasAnyTable(conn)) {
+            System.out.println("⚠️ Baza niedokończona (brak znacznika " + READY_MARKER + ") - budowanie od nowa");
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        initializeDatabase(conn);
+        if (options.pirates() > 0) {
+            System.out.printf("⚙️ Generowanie %,d piratów...%n", options.pirates());
+            new PirateDataGenerator(conn).generate(options.pirates());
+        }
+        markReady(conn);
+        System.out.printf("✅ Baza gotowa w %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    private static boolean hasAnyTable(Connection conn) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, "PUBLIC", null, new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, "PUBLIC", table, new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Znacznik powstaje jako ostatni - jego brak przy starcie oznacza przerwaną budowę.
+     */
+    private static void markReady(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE " + READY_MARKER + " (completed_at TIMESTAMP NOT NULL)");
+            stmt.execute("INSERT INTO " + READY_MARKER + " VALUES (CURRENT_TIMESTAMP)");
+        }
+    }
+
+    private static void initializeDatabase(Connection conn) throws Exception {
+        String schema = new String(H2ConsoleStarter.class.getResourceAsStream("/schema.sql").readAllBytes());
+        String data = new String(H2ConsoleStarter.class.getResourceAsStream("/data.sql").readAllBytes());
+
+        try (Statement stmt = conn.createStatement()) {
+            for (String command : schema.split(";")) {
+                String trimmed = command.replaceAll("--.*", "").trim();
+                if (!trimmed.isEmpty()) {
+                    stmt.execute(trimmed);
                 }
-                for (String command : data.split(";")) {
-                    String trimmed = command.replaceAll("--.*", "").trim();
-                    if (!trimmed.isEmpty()) {
-                        stmt.execute(trimmed);
-                    }
+            }
+            for (String command : data.split(";")) {
+                String trimmed = command.replaceAll("--.*", "").trim();
+                if (!trimmed.isEmpty()) {
+                    stmt.execute(trimmed);
                 }
             }
-            System.out.println("✅ Baza danych zainicjalizowana");
         }
+        System.out.println("✅ Baza danych zainicjalizowana");
     }
-}
 
+    private static void printCounts(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : new String[]{"pirates", "ships", "islands", "treasures", "ship_island_visits"}) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                    rs.next();
+                    System.out.printf("   📊 %-20s %,d%n", table, rs.getLong(1));
+                }
+            }
+        }
+    }
+}
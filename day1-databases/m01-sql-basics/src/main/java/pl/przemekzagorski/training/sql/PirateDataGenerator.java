@@ -0,0 +1,151 @@
+package pl.przemekzagorski.training.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Skaluje data.sql do milionów wierszy - do oglądania planów zapytań i czasu startu na realnych wolumenach.
+ *
+ * Wiersze powstają po stronie bazy (INSERT ... SELECT FROM SYSTEM_RANGE), bez pętli w Javie
+ * i bez przesyłania danych przez JDBC. Wartości są deterministyczne (MOD z liczb pierwszych) -
+ * ten sam argument daje zawsze tę samą bazę, więc plany i czasy da się porównywać.
+ *
+ * Proporcje na N piratów: N/25 statków, N/500 wysp, N/10 skarbów, 3 wizyty na statek.
+ * Wygenerowane wiersze dochodzą do tych z data.sql (id zaczynają się za ostatnim istniejącym).
+ */
+public class PirateDataGenerator {
+
+    /** Ile wierszy w jednym INSERT ... SELECT (i jednym commicie) - ogranicza pamięć transakcji. */
+    private static final int CHUNK = 100_000;
+
+    private final Connection connection;
+
+    public PirateDataGenerator(Connection connection) {
+        this.connection = connection;
+    }
+
+    public void generate(long pirates) throws SQLException {
+        long ships = Math.max(1, pirates / 25);
+        long islands = Math.max(1, pirates / 500);
+        long treasures = pirates / 10;
+
+        // klucze obce z generatora są poprawne z konstrukcji - sprawdzanie każdego wiersza to czysty koszt
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        }
+        try {
+            generateRows(pirates, ships, islands, treasures);
+        } finally {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            }
+        }
+
+        // statystyki selektywności dla optymalizatora - bez tego plany na dużej tabeli są zgadywane
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+    }
+
+    private void generateRows(long pirates, long ships, long islands, long treasures) throws SQLException {
+        long islandBase = maxId("islands");
+        long shipBase = maxId("ships");
+        long pirateBase = maxId("pirates");
+        long treasureBase = maxId("treasures");
+
+        insert("islands", islands, 1, """
+                INSERT INTO islands (id, name, location, has_treasure, treasure_value)
+                SELECT %1$d + X, 'Island ' || X,
+                       CASEWHEN(MOD(X, 3) = 0, 'Caribbean Sea', CASEWHEN(MOD(X, 3) = 1, 'Bahamas', 'Unknown')),
+                       MOD(X, 4) = 0, CASEWHEN(MOD(X, 4) = 0, MOD(X * 7919, 1000000), 0)
+                FROM SYSTEM_RANGE(?, ?)
+                """.formatted(islandBase));
+
+        insert("ships", ships, 1, """
+                INSERT INTO ships (id, name, ship_type, cannons, crew_capacity, home_island_id)
+                SELECT %1$d + X, 'Ship ' || X,
+                       CASE MOD(X, 4) WHEN 0 THEN 'Galleon' WHEN 1 THEN 'Frigate' WHEN 2 THEN 'Sloop' ELSE 'Brig' END,
+                       8 + MOD(X * 31, 50), 20 + MOD(X * 17, 130), %2$d + 1 + MOD(X * 13, %3$d)
+                FROM SYSTEM_RANGE(?, ?)
+                """.formatted(shipBase, islandBase, islands));
+
+        insert("pirates", pirates, 1, """
+                INSERT INTO pirates (id, name, nickname, rank, bounty, ship_id, joined_at)
+                SELECT %1$d + X, 'Pirate ' || X,
+                       CASEWHEN(MOD(X, 10) < 3, 'The ' || MOD(X * 7, 1000), NULL),
+                       CASE WHEN MOD(X, 25) = 0 THEN 'Captain'
+                            WHEN MOD(X, 25) < 3 THEN 'First Mate'
+                            WHEN MOD(X, 25) < 5 THEN 'Quartermaster'
+                            WHEN MOD(X, 25) < 10 THEN 'Gunner'
+                            ELSE 'Sailor' END,
+                       MOD(X * 7919, 100000) + MOD(X, 100) / 100.0,
+                       CASEWHEN(MOD(X, 50) = 0, NULL, %2$d + 1 + MOD(X * 31, %3$d)),
+                       DATEADD(DAY, MOD(X * 13, 36500), DATE '1650-01-01')
+                FROM SYSTEM_RANGE(?, ?)
+                """.formatted(pirateBase, shipBase, ships));
+
+        insert("treasures", treasures, 1, """
+                INSERT INTO treasures (id, name, treasure_type, "value", island_id, found_by_ship_id)
+                SELECT %1$d + X, 'Treasure ' || X,
+                       CASE MOD(X, 3) WHEN 0 THEN 'Gold' WHEN 1 THEN 'Jewels' ELSE 'Artifacts' END,
+                       100 + MOD(X * 104729, 500000),
+                       CASEWHEN(MOD(X, 10) = 0, NULL, %2$d + 1 + MOD(X * 7, %3$d)),
+                       %4$d + 1 + MOD(X * 11, %5$d)
+                FROM SYSTEM_RANGE(?, ?)
+                """.formatted(treasureBase, islandBase, islands, shipBase, ships));
+
+        // (ship_id, island_id) to klucz główny - różne wyspy dla jednego statku tylko gdy jest ich co najmniej 3
+        long visitsPerShip = Math.min(3, islands);
+        insert("ship_island_visits", ships, visitsPerShip, """
+                INSERT INTO ship_island_visits (ship_id, island_id, visit_date)
+                SELECT %1$d + S.X, %2$d + 1 + MOD(S.X * 7 + V.X, %3$d),
+                       DATEADD(DAY, MOD(S.X * 29 + V.X * 400, 36500), DATE '1650-01-01')
+                FROM SYSTEM_RANGE(?, ?) S, SYSTEM_RANGE(0, %4$d) V
+                """.formatted(shipBase, islandBase, islands, visitsPerShip - 1));
+
+        for (String table : new String[]{"islands", "ships", "pirates", "treasures"}) {
+            restartIdentity(table);
+        }
+    }
+
+    /**
+     * @param rows        zakres X w SYSTEM_RANGE
+     * @param rowsPerX    ile wierszy daje jedno X (wizyty: kilka na statek)
+     */
+    private void insert(String table, long rows, long rowsPerX, String sql) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (long from = 1; from <= rows; from += CHUNK) {
+                stmt.setLong(1, from);
+                stmt.setLong(2, Math.min(rows, from + CHUNK - 1));
+                stmt.executeUpdate();
+                if (rows > CHUNK) {
+                    System.out.printf("\r   ⏳ %-18s %,12d / %,d", table, Math.min(rows, from + CHUNK - 1) * rowsPerX, rows * rowsPerX);
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("\r   ✔️ %-18s %,12d wierszy w %5.1f s%n", table, rows * rowsPerX, seconds);
+    }
+
+    /**
+     * Wiersze wstawione z jawnym id nie przesuwają sekwencji AUTO_INCREMENT - kolejny INSERT bez id
+     * dostałby zajęty klucz.
+     */
+    private void restartIdentity(String table) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId(table) + 1));
+        }
+    }
+
+    private long maxId(String table) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -33,6 +33,10 @@ CREATE TABLE pirates (
 
 ALTER TABLE ships ADD FOREIGN KEY (home_island_id) REFERENCES islands(id);
 
+-- Indeks pod paginację keyset (JdbcPirateDao.findByRankPage):
+-- WHERE rank = ? AND name >= ? AND (name > ? OR id > ?) ORDER BY name, id
+CREATE INDEX idx_pirates_rank_name_id ON pirates(rank, name, id);
+
 CREATE TABLE treasures (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
     name VARCHAR(100) NOT NULL,
@@ -0,0 +1,48 @@
+package pl.przemekzagorski.training.sql;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy parsowania argumentów H2ConsoleStarter.
+ */
+@DisplayName("DatabaseOptions")
+class DatabaseOptionsTest {
+
+    @Test
+    @DisplayName("powinien odczytać opcje z wartościami i flagi")
+    void shouldParseOptions() {
+        DatabaseOptions options = DatabaseOptions.parse(new String[]{
+                "--file=target/db", "--pirates=5_000_000", "--cache-mb=128", "--compress"});
+
+        assertThat(options.file()).isEqualTo(Path.of("target/db"));
+        assertThat(options.pirates()).isEqualTo(5_000_000);
+        assertThat(options.cacheMb()).isEqualTo(128);
+        assertThat(options.compress()).isTrue();
+        assertThat(options.recreate()).isFalse();
+    }
+
+    @Test
+    @DisplayName("powinien odrzucić opcję bez wartości komunikatem z instrukcją użycia")
+    void shouldRejectMissingValue() {
+        for (String arg : new String[]{"--pirates", "--pirates=", "--cache-mb", "--page-size", "--file="}) {
+            assertThatThrownBy(() -> DatabaseOptions.parse(new String[]{"--file", arg}))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Brak wartości: " + arg)
+                    .hasMessageContaining(DatabaseOptions.USAGE);
+        }
+    }
+
+    @Test
+    @DisplayName("powinien odrzucić wartość, która nie jest poprawną liczbą")
+    void shouldRejectInvalidNumber() {
+        assertThatThrownBy(() -> DatabaseOptions.parse(new String[]{"--pirates=dużo"}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Niepoprawna liczba: --pirates=dużo");
+        assertThatThrownBy(() -> DatabaseOptions.parse(new String[]{"--cache-mb=-1"}))
+                .hasMessageContaining("poza zakresem");
+    }
+}
@@ -0,0 +1,68 @@
+package pl.przemekzagorski.training.sql;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy budowy bazy plikowej - w tym dokończenie startu przerwanego w połowie schema.sql.
+ */
+@DisplayName("H2ConsoleStarter")
+class H2ConsoleStarterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("powinien zbudować bazę od nowa, gdy przerwany start zostawił tylko islands i ships")
+    void shouldRebuildWhenOnlyFirstTablesExist() throws Exception {
+        // Given - schema.sql przerwany przed CREATE TABLE pirates
+        DatabaseOptions options = DatabaseOptions.parse(new String[]{"--file=" + dir.resolve("pirates")});
+        try (Connection conn = DriverManager.getConnection(options.jdbcUrl(), "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE islands (id BIGINT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(100) NOT NULL)");
+            stmt.execute("CREATE TABLE ships (id BIGINT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(100) NOT NULL)");
+        }
+
+        // When
+        try (Connection conn = DriverManager.getConnection(options.jdbcUrl(), "sa", "")) {
+            H2ConsoleStarter.prepareDatabase(conn, options, System.nanoTime());
+
+            // Then
+            assertThat(count(conn, "pirates")).isPositive();
+            assertThat(count(conn, "DATABASE_READY")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("powinien otworzyć gotową bazę bez ponownego ładowania skryptów")
+    void shouldOpenReadyDatabase() throws Exception {
+        // Given
+        DatabaseOptions options = DatabaseOptions.parse(new String[]{"--file=" + dir.resolve("pirates")});
+        long pirates;
+        try (Connection conn = DriverManager.getConnection(options.jdbcUrl(), "sa", "")) {
+            H2ConsoleStarter.prepareDatabase(conn, options, System.nanoTime());
+            pirates = count(conn, "pirates");
+        }
+
+        // When
+        try (Connection conn = DriverManager.getConnection(options.jdbcUrl(), "sa", "")) {
+            H2ConsoleStarter.prepareDatabase(conn, options, System.nanoTime());
+
+            // Then - data.sql nie został załadowany drugi raz
+            assertThat(count(conn, "pirates")).isEqualTo(pirates);
+        }
+    }
+
+    private static long count(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
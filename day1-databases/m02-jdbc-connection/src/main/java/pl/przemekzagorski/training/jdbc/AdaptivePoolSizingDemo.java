@@ -0,0 +1,103 @@
+package pl.przemekzagorski.training.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import pl.przemekzagorski.training.jdbc.pool.AdaptivePoolSizer;
+import pl.przemekzagorski.training.jdbc.pool.InstrumentedDataSource;
+import pl.przemekzagorski.training.jdbc.pool.PoolSizingPolicy;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 🏴‍☠️ Adaptive Pool Sizing Demo - pula dobiera rozmiar sama
+ *
+ * Syntetyczna baza: funkcja WORK(ms) w H2 zajmuje jeden z 4 "rdzeni" (Semaphore) i śpi.
+ * Powyżej 4 równoległych zapytań baza nie jest szybsza - tylko rośnie kolejka po jej stronie.
+ *
+ * 32 wątki aplikacji, pula startuje od 2. Regulator powinien dojść w okolice 4-6 połączeń:
+ * mniej = kolejka w puli, więcej = brak zysku przepustowości (i cofnięcie kroku).
+ */
+public class AdaptivePoolSizingDemo {
+
+    private static final int DATABASE_CORES = 4;
+    private static final Semaphore CORES = new Semaphore(DATABASE_CORES, true);
+    private static final int APP_THREADS = 32;
+    private static final int DURATION_SECONDS = 20;
+
+    /**
+     * Wywoływana przez H2 (CREATE ALIAS) - symuluje zapytanie zajmujące rdzeń bazy.
+     */
+    public static int work(int millis) throws InterruptedException {
+        CORES.acquire();
+        try {
+            Thread.sleep(millis);
+            return millis;
+        } finally {
+            CORES.release();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("🏴‍☠️ Adaptive Pool Sizing Demo");
+        System.out.println("════════════════════════════════════════\n");
+        System.out.printf("Baza: %d rdzenie, aplikacja: %d wątków, start: pula 2 (zakres 2..%d)%n%n",
+                DATABASE_CORES, APP_THREADS, APP_THREADS);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:adaptive_pool;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(2);
+        config.setMinimumIdle(2);
+        config.setConnectionTimeout(30_000);
+        config.setPoolName("AdaptivePool");
+
+        try (InstrumentedDataSource dataSource =
+                     new InstrumentedDataSource(new HikariDataSource(config), Duration.ofSeconds(1))) {
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE ALIAS WORK FOR \"" + AdaptivePoolSizingDemo.class.getName() + ".work\"");
+            }
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            ExecutorService app = Executors.newFixedThreadPool(APP_THREADS);
+            for (int i = 0; i < APP_THREADS; i++) {
+                app.submit(() -> {
+                    while (running.get()) {
+                        query(dataSource);
+                    }
+                });
+            }
+
+            PoolSizingPolicy policy = new PoolSizingPolicy(2, APP_THREADS);
+            try (AdaptivePoolSizer sizer = new AdaptivePoolSizer(dataSource, policy, Duration.ofSeconds(1),
+                    size -> System.out.println("   📏 pula = " + size + " " + "█".repeat(size)))) {
+                Thread.sleep(DURATION_SECONDS * 1_000L);
+                System.out.println("\n✅ Rozmiar końcowy: " + sizer.currentSize());
+            }
+
+            running.set(false);
+            app.shutdown();
+            app.awaitTermination(10, TimeUnit.SECONDS);
+            System.out.println("\n📊 " + dataSource.report());
+        }
+
+        System.out.println("💡 Większa pula niż 'rdzenie' bazy nie daje przepustowości - tylko dłuższe czekanie w bazie.");
+        System.out.println("   Regulator sprawdza to pomiarem zamiast zgadywać setMaximumPoolSize(10).");
+    }
+
+    private static void query(InstrumentedDataSource dataSource) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT WORK(5)");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+        } catch (SQLException e) {
+            System.out.println("   ❌ " + e.getMessage());
+        }
+    }
+}
@@ -2,8 +2,10 @@ package pl.przemekzagorski.training.jdbc;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import pl.przemekzagorski.training.jdbc.pool.InstrumentedDataSource;
 
 import java.sql.*;
+import java.time.Duration;
 
 /**
  * 🏴‍☠️ Connection Pool Demo - HikariCP
@@ -110,7 +112,9 @@ public class ConnectionPoolDemo {
         System.out.println("      - Pool name: " + config.getPoolName());
 
         // Tworzymy pulę (zazwyczaj raz w aplikacji!)
-        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+        // InstrumentedDataSource = pomiary: czas oczekiwania, kto i jak długo trzyma połączenia
+        try (InstrumentedDataSource dataSource =
+                     new InstrumentedDataSource(new HikariDataSource(config), Duration.ofMillis(200))) {
 
             System.out.println("\n   Tworzenie 10 połączeń przez HikariCP...");
             long start = System.currentTimeMillis();
@@ -129,6 +133,8 @@ public class ConnectionPoolDemo {
             System.out.println("   ⏱️ Czas: " + duration + "ms");
             System.out.println("   ✅ Połączenia pobierane z puli - błyskawicznie!");
             System.out.println("   ✅ close() zwraca do puli, nie zamyka połączenia!");
+            System.out.println("\n   📊 Pomiary puli:");
+            dataSource.report().lines().forEach(line -> System.out.println("      " + line));
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -137,6 +143,9 @@ public class ConnectionPoolDemo {
 
     /**
      * Porównanie wydajności: DriverManager vs HikariCP
+     *
+     * Szybki pokaz na jednym wątku. Rzetelny pomiar (rozgrzewka, wiele wątków, percentyle):
+     * moduł m03-jdbc-benchmarks (JMH).
      */
     private static void comparePerformance() {
         int iterations = 100;
@@ -0,0 +1,97 @@
+package pl.przemekzagorski.training.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import pl.przemekzagorski.training.jdbc.pool.InstrumentedDataSource;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🏴‍☠️ Pool Monitoring Demo - kto trzyma połączenia?
+ *
+ * Mała pula (4 połączenia, connectionTimeout 500 ms) i trzy rodzaje kodu:
+ * - szybkie odczyty (findCaptain)
+ * - raport trzymający połączenie podczas "liczenia" poza bazą (generateReport)
+ * - zapomniane połączenie, oddane dopiero po 2 s (leakyImport)
+ *
+ * Raport pokaże czasy trzymania per metoda, a log - ostrzeżenia i listę "trzymaczy" przy timeoucie.
+ */
+public class PoolMonitoringDemo {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("🏴‍☠️ Pool Monitoring Demo");
+        System.out.println("════════════════════════════════════════\n");
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:pool_monitoring;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(4);
+        config.setConnectionTimeout(500);
+        config.setPoolName("MonitoredPool");
+
+        try (InstrumentedDataSource dataSource =
+                     new InstrumentedDataSource(new HikariDataSource(config), Duration.ofMillis(100))) {
+            ExecutorService workers = Executors.newFixedThreadPool(12);
+            workers.submit(() -> leakyImport(dataSource));
+            for (int i = 0; i < 3; i++) {
+                workers.submit(() -> generateReport(dataSource));
+            }
+            for (int i = 0; i < 8; i++) {
+                workers.submit(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        findCaptain(dataSource);
+                    }
+                });
+            }
+
+            Thread.sleep(300);
+            System.out.println("📸 W trakcie: " + dataSource.snapshot());
+            dataSource.currentHolders().forEach(holder -> System.out.println("   trzyma: " + holder));
+
+            workers.shutdown();
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+
+            System.out.println("\n📊 Raport:");
+            System.out.println(dataSource.report());
+        }
+
+        System.out.println("💡 Długie trzymanie połączenia (praca poza bazą w środku try) blokuje pulę dla wszystkich.");
+        System.out.println("   Pobieraj połączenie jak najpóźniej i oddawaj jak najwcześniej.");
+    }
+
+    private static void findCaptain(InstrumentedDataSource dataSource) {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 'Jack Sparrow'")) {
+            rs.next();
+        } catch (SQLException e) {
+            System.out.println("   ❌ findCaptain: " + e.getMessage());
+        }
+    }
+
+    private static void generateReport(InstrumentedDataSource dataSource) {
+        try (Connection conn = dataSource.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SELECT 1");
+            }
+            Thread.sleep(400); // "obliczenia" z otwartym połączeniem
+        } catch (SQLException | InterruptedException e) {
+            System.out.println("   ❌ generateReport: " + e.getMessage());
+        }
+    }
+
+    private static void leakyImport(InstrumentedDataSource dataSource) {
+        try {
+            Connection conn = dataSource.getConnection();
+            Thread.sleep(2_000); // połączenie "zapomniane" na 2 sekundy
+            conn.close();
+        } catch (SQLException | InterruptedException e) {
+            System.out.println("   ❌ leakyImport: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package pl.przemekzagorski.training.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import pl.przemekzagorski.training.jdbc.routing.ReplicaHealthCheck;
+import pl.przemekzagorski.training.jdbc.routing.RoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 🏴‍☠️ Read/Write Split Demo - odczyty na replikę, zapisy na primary
+ *
+ * Dwie bazy H2 w pamięci udają primary i replikę. Tabela replication_status na replice
+ * udaje opóźnienie replikacji - gdy przekroczy 1 s, odczyty wracają na primary.
+ */
+public class ReadWriteSplitDemo {
+
+    public static void main(String[] args) throws SQLException {
+        System.out.println("🏴‍☠️ Read/Write Split Demo");
+        System.out.println("════════════════════════════════════════\n");
+
+        try (HikariDataSource primary = pool("primary");
+             HikariDataSource replica = pool("replica")) {
+            setupNode(primary, "primary");
+            setupNode(replica, "replica");
+
+            ReplicaHealthCheck lagCheck = ReplicaHealthCheck.maxLag(Duration.ofSeconds(1),
+                    "SELECT lag_ms FROM replication_status");
+            RoutingDataSource routing = new RoutingDataSource(primary, Map.of("replica", replica),
+                    lagCheck, Duration.ZERO); // ZERO = sprawdzaj za każdym razem (tylko w demo!)
+
+            System.out.println("1️⃣ Zapis (zwykłe połączenie):");
+            try (Connection conn = routing.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("INSERT INTO pirates (name) VALUES (?)")) {
+                stmt.setString(1, "Jack Sparrow");
+                stmt.executeUpdate();
+                System.out.println("   ✍️ INSERT na: " + whoAmI(conn));
+            }
+
+            System.out.println("\n2️⃣ Odczyt - setReadOnly(true) przed pierwszym zapytaniem:");
+            try (Connection conn = routing.getConnection()) {
+                conn.setReadOnly(true);
+                System.out.println("   📖 SELECT na: " + whoAmI(conn));
+            }
+
+            System.out.println("\n3️⃣ Odczyt - blok routing.readOnly(...):");
+            String node = routing.readOnly(() -> {
+                try (Connection conn = routing.getConnection()) {
+                    return whoAmI(conn);
+                }
+            });
+            System.out.println("   📖 SELECT na: " + node);
+
+            System.out.println("\n4️⃣ Replika opóźniona o 5 s:");
+            try (Connection conn = replica.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("UPDATE replication_status SET lag_ms = 5000");
+            }
+            try (Connection conn = routing.getConnection()) {
+                conn.setReadOnly(true);
+                System.out.println("   📖 SELECT na: " + whoAmI(conn) + " (fallback)");
+            }
+
+            System.out.printf("%n📊 primary: %d, replika: %d, fallback: %d%n",
+                    routing.getPrimaryRoutes(), routing.getReplicaRoutes(), routing.getFallbacks());
+        }
+
+        System.out.println("\n💡 Po zapisie użytkownik może nie zobaczyć swoich danych na replice (lag)!");
+        System.out.println("   Odczyty 'zaraz po zapisie' kieruj na primary.");
+    }
+
+    private static HikariDataSource pool(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:rw_" + name + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(4);
+        config.setPoolName(name);
+        return new HikariDataSource(config);
+    }
+
+    private static void setupNode(DataSource dataSource, String name) throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE pirates (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100))");
+            stmt.execute("CREATE TABLE node (name VARCHAR(20))");
+            stmt.execute("INSERT INTO node VALUES ('" + name + "')");
+            stmt.execute("CREATE TABLE replication_status (lag_ms BIGINT)");
+            stmt.execute("INSERT INTO replication_status VALUES (0)");
+        }
+    }
+
+    private static String whoAmI(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT name FROM node")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
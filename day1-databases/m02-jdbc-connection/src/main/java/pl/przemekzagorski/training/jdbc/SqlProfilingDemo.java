@@ -0,0 +1,87 @@
+package pl.przemekzagorski.training.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import pl.przemekzagorski.training.jdbc.profiling.ProfilingDataSource;
+
+import java.sql.*;
+import java.time.Duration;
+
+/**
+ * 🏴‍☠️ SQL Profiling Demo - które zapytania zjadają czas bazy?
+ *
+ * ProfilingDataSource nad HikariCP grupuje zapytania po kształcie (literały → ?):
+ * - SQL sklejany z wartościami (jak w SqlInjectionDemo) i PreparedStatement lądują w tej samej tabeli
+ * - wolne zapytanie (> 50 ms) od razu w logu
+ * - raport top N co sekundę (startReporting) i na koniec
+ */
+public class SqlProfilingDemo {
+
+    public static void main(String[] args) throws SQLException, InterruptedException {
+        System.out.println("🏴‍☠️ SQL Profiling Demo");
+        System.out.println("════════════════════════════════════════\n");
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:sql_profiling;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setPoolName("ProfiledPool");
+
+        try (HikariDataSource pool = new HikariDataSource(config);
+             ProfilingDataSource dataSource = new ProfilingDataSource(pool, Duration.ofMillis(50))) {
+            dataSource.startReporting(Duration.ofSeconds(1), 3);
+
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE pirates (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100), rank VARCHAR(50))");
+            }
+
+            System.out.println("1️⃣ Zapis wsadowy 10 000 piratów (PreparedStatement + addBatch)");
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("INSERT INTO pirates (name, rank) VALUES (?, ?)")) {
+                for (int i = 0; i < 10_000; i++) {
+                    stmt.setString(1, "Pirate #" + i);
+                    stmt.setString(2, i % 10 == 0 ? "Captain" : "Sailor");
+                    stmt.addBatch();
+                    if (i % 500 == 499) {
+                        stmt.executeBatch();
+                    }
+                }
+            }
+
+            System.out.println("2️⃣ 2 000 odczytów z wartościami wklejonymi w SQL (każdy SQL inny!)");
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                for (int i = 1; i <= 2_000; i++) {
+                    try (ResultSet rs = stmt.executeQuery("SELECT name FROM pirates WHERE id = " + i)) {
+                        rs.next();
+                    }
+                }
+            }
+
+            System.out.println("3️⃣ Raport bez indeksu na rank - pełny skan tabeli, 200 razy");
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("SELECT * FROM pirates WHERE rank = ? ORDER BY name")) {
+                for (int i = 0; i < 200; i++) {
+                    stmt.setString(1, "Captain");
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            rs.getString("name");
+                        }
+                    }
+                }
+            }
+
+            System.out.println("4️⃣ Jedno naprawdę wolne zapytanie\n");
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM SYSTEM_RANGE(1, 5000000) WHERE MOD(X, 7) = 3")) {
+                rs.next();
+            }
+
+            Thread.sleep(1_100); // jeden raport okresowy w logu
+            System.out.println("\n📊 Raport końcowy:");
+            System.out.println(dataSource.report(5));
+        }
+
+        System.out.println("💡 2 000 różnych SQL-i z kroku 2 to jeden wiersz raportu - normalizacja literałów.");
+        System.out.println("   Sortowanie po łącznym czasie pokazuje, co optymalizować najpierw.");
+    }
+}
@@ -0,0 +1,161 @@
+package pl.przemekzagorski.training.jdbc.pool;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Zmienia maximumPoolSize działającej puli HikariCP na podstawie pomiarów (PoolSizingPolicy).
+ *
+ * - co window/10 próbka active/pending z HikariPoolMXBean
+ * - co window decyzja: przepustowość i średnie oczekiwanie z InstrumentedDataSource
+ * - zmiana przez HikariConfigMXBean.setMaximumPoolSize (HikariCP pozwala na to w locie)
+ *
+ * Zmniejszenie puli = softEvictConnections(): połączenia są wymieniane (zajęte - po oddaniu),
+ * więc na prawdziwej bazie to koszt nowych połączeń. Dlatego zmiana o max. jeden krok na okno.
+ *
+ * minimumIdle nie może przekraczać maximumPoolSize - przy zmniejszaniu jest obniżane razem z nim,
+ * przy powiększaniu wraca w stronę wartości z konfiguracji, a close() przywraca ją w całości.
+ */
+public class AdaptivePoolSizer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+    private static final int SAMPLES_PER_WINDOW = 10;
+
+    private final InstrumentedDataSource dataSource;
+    private final HikariPoolMXBean pool;
+    private final HikariConfigMXBean config;
+    private final PoolSizingPolicy policy;
+    private final long windowNanos;
+    private final IntConsumer onResize;
+    private final ScheduledExecutorService scheduler;
+    private final int originalMinimumIdle;
+
+    private double activeSum;
+    private double pendingSum;
+    private int samples;
+    private long lastAcquisitions;
+    private double lastTotalWaitMillis;
+    private long lastDecisionAt;
+
+    public AdaptivePoolSizer(InstrumentedDataSource dataSource, PoolSizingPolicy policy, Duration window) {
+        this(dataSource, policy, window, size -> { });
+    }
+
+    /**
+     * @param onResize wywoływany po każdej decyzji z nowym rozmiarem (np. do wykresu w demo)
+     */
+    public AdaptivePoolSizer(InstrumentedDataSource dataSource, PoolSizingPolicy policy, Duration window,
+                             IntConsumer onResize) {
+        HikariDataSource hikari;
+        try {
+            hikari = dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalArgumentException("AdaptivePoolSizer wymaga puli HikariCP", e);
+        }
+        this.dataSource = dataSource;
+        this.pool = hikari.getHikariPoolMXBean();
+        this.config = hikari.getHikariConfigMXBean();
+        this.policy = policy;
+        this.windowNanos = window.toNanos();
+        this.onResize = onResize;
+        this.originalMinimumIdle = config.getMinimumIdle();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adaptive-pool-sizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lastAcquisitions = dataSource.getAcquireTimes().count();
+        this.lastTotalWaitMillis = totalWaitMillis();
+        this.lastDecisionAt = System.nanoTime();
+        long period = windowNanos / SAMPLES_PER_WINDOW;
+        scheduler.scheduleAtFixedRate(this::tick, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    private void tick() {
+        try {
+            activeSum += pool.getActiveConnections();
+            pendingSum += pool.getThreadsAwaitingConnection();
+            if (++samples == SAMPLES_PER_WINDOW) {
+                decide();
+            }
+        } catch (RuntimeException e) {
+            // wyjątek w zadaniu okresowym zatrzymałby harmonogram - logujemy i próbujemy dalej
+            log.warn("Błąd przy próbkowaniu puli", e);
+        }
+    }
+
+    private void decide() {
+        long now = System.nanoTime();
+        long acquisitions = dataSource.getAcquireTimes().count();
+        double totalWait = totalWaitMillis();
+        long completed = acquisitions - lastAcquisitions;
+        PoolSizingPolicy.Sample sample = new PoolSizingPolicy.Sample(
+                activeSum / samples,
+                pendingSum / samples,
+                completed * 1e9 / (now - lastDecisionAt),
+                completed == 0 ? 0 : (totalWait - lastTotalWaitMillis) / completed);
+
+        int current = config.getMaximumPoolSize();
+        int next = policy.nextSize(current, sample);
+        if (next != current) {
+            int minimumIdle = Math.min(originalMinimumIdle, next);
+            if (next > current) {
+                config.setMaximumPoolSize(next);
+                config.setMinimumIdle(minimumIdle);
+            } else {
+                config.setMinimumIdle(minimumIdle);
+                config.setMaximumPoolSize(next);
+            }
+            if (next < current) {
+                // HikariCP sam nie zamyka nadmiarowych połączeń, dopóki są w użyciu - wymuszamy
+                // wymianę: wolne zamykane od razu, zajęte po oddaniu, pula dopełnia się do nowego limitu
+                pool.softEvictConnections();
+            }
+        }
+        log.info("Pula {} → {} (active={}, pending={}, {}/s, oczekiwanie {} ms)",
+                current, next, String.format("%.1f", sample.meanActive()), String.format("%.1f", sample.meanPending()),
+                String.format("%.0f", sample.throughput()), String.format("%.2f", sample.meanWaitMillis()));
+        onResize.accept(next);
+
+        activeSum = 0;
+        pendingSum = 0;
+        samples = 0;
+        lastAcquisitions = acquisitions;
+        lastTotalWaitMillis = totalWait;
+        lastDecisionAt = now;
+    }
+
+    private double totalWaitMillis() {
+        return dataSource.getAcquireTimes().totalMillis();
+    }
+
+    public int currentSize() {
+        return config.getMaximumPoolSize();
+    }
+
+    /**
+     * Zatrzymuje regulator. Pula zostaje przy ostatnim rozmiarze, minimumIdle wraca do wartości z konfiguracji.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            // decide() mogłoby jeszcze nadpisać minimumIdle - czekamy na koniec bieżącego ticku
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Regulator puli nie zatrzymał się w ciągu 5 s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        config.setMinimumIdle(originalMinimumIdle);
+    }
+}
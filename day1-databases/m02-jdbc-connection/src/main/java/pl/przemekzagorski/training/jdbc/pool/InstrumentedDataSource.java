@@ -0,0 +1,278 @@
+package pl.przemekzagorski.training.jdbc.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataSource z pomiarami nad pulą HikariCP - odpowiedź na pytanie "kto trzyma połączenia?".
+ *
+ * - histogram czasu oczekiwania na połączenie z puli (getConnection)
+ * - czas trzymania połączenia (od getConnection do close) osobno dla każdego miejsca w kodzie
+ * - ostrzeżenie w logu, gdy połączenie było trzymane dłużej niż próg
+ * - przy connectionTimeout w logu lista aktualnych "trzymaczy" i stan puli (active/idle/pending)
+ *
+ * Miejsce w kodzie = pierwsza ramka stosu spoza puli i JDK (StackWalker przy każdym getConnection,
+ * rząd kilku mikrosekund - dużo mniej niż jedno zapytanie do bazy).
+ */
+public class InstrumentedDataSource implements DataSource, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(InstrumentedDataSource.class);
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    /**
+     * Stan puli z HikariPoolMXBean. pending = wątki czekające na połączenie.
+     */
+    public record PoolSnapshot(int active, int idle, int pending, int total) {
+
+        @Override
+        public String toString() {
+            return String.format("active=%d, idle=%d, pending=%d, total=%d", active, idle, pending, total);
+        }
+    }
+
+    /**
+     * Jedno wypożyczone połączenie. Klasa (nie record) - porównanie po tożsamości.
+     */
+    private static final class Lease {
+        final String callSite;
+        final String thread;
+        final long acquiredAt;
+
+        Lease(String callSite, String thread, long acquiredAt) {
+            this.callSite = callSite;
+            this.thread = thread;
+            this.acquiredAt = acquiredAt;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    private final HikariDataSource delegate;
+    private final long holdWarnNanos;
+    private final LatencyHistogram acquireTimes = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> holdTimes = new ConcurrentHashMap<>();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final LongAdder timeouts = new LongAdder();
+
+    public InstrumentedDataSource(HikariDataSource delegate, Duration holdWarnThreshold) {
+        this.delegate = delegate;
+        this.holdWarnNanos = holdWarnThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(delegate::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(() -> delegate.getConnection(username, password));
+    }
+
+    private Connection instrument(ConnectionSupplier supplier) throws SQLException {
+        String callSite = callSite();
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLTransientConnectionException e) {
+            timeouts.increment();
+            log.warn("Brak wolnego połączenia dla {} po {} ms [{}]; trzymają: {}",
+                    callSite, (System.nanoTime() - start) / 1_000_000, snapshot(), currentHolders());
+            throw e;
+        }
+        long acquiredAt = System.nanoTime();
+        acquireTimes.record(acquiredAt - start);
+        Lease lease = new Lease(callSite, Thread.currentThread().getName(), acquiredAt);
+        leases.add(lease);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new LeaseHandler(connection, lease));
+    }
+
+    private void release(Lease lease) {
+        if (!leases.remove(lease)) {
+            return; // drugie close() na tym samym połączeniu
+        }
+        long held = System.nanoTime() - lease.acquiredAt;
+        holdTimes.computeIfAbsent(lease.callSite, site -> new LatencyHistogram()).record(held);
+        if (held > holdWarnNanos) {
+            log.warn("Połączenie trzymane {} ms przez {} [{}] (próg {} ms)",
+                    held / 1_000_000, lease.callSite, lease.thread, holdWarnNanos / 1_000_000);
+        }
+    }
+
+    private static String callSite() {
+        return WALKER.walk(frames -> frames
+                .dropWhile(frame -> isInfrastructure(frame.getClassName()))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getClassName();
+                    return className.substring(className.lastIndexOf('.') + 1)
+                            + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+                })
+                .orElse("?"));
+    }
+
+    private static boolean isInfrastructure(String className) {
+        return className.equals(InstrumentedDataSource.class.getName())
+                || className.startsWith(InstrumentedDataSource.class.getName() + "$")
+                || className.startsWith("com.zaxxer.")
+                || className.startsWith("java.")
+                || className.startsWith("jdk.")
+                || className.startsWith("sun.");
+    }
+
+    public PoolSnapshot snapshot() {
+        HikariPoolMXBean pool = delegate.getHikariPoolMXBean();
+        if (pool == null) {
+            return new PoolSnapshot(0, 0, 0, 0);
+        }
+        return new PoolSnapshot(pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getThreadsAwaitingConnection(), pool.getTotalConnections());
+    }
+
+    public LatencyHistogram getAcquireTimes() {
+        return acquireTimes;
+    }
+
+    /**
+     * Czasy trzymania połączeń per miejsce w kodzie (tylko oddane połączenia).
+     */
+    public Map<String, LatencyHistogram> getHoldTimes() {
+        return Map.copyOf(holdTimes);
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Kto trzyma połączenia w tej chwili - od najdłużej trzymanego.
+     */
+    public List<String> currentHolders() {
+        long now = System.nanoTime();
+        return leases.stream()
+                .sorted(Comparator.comparingLong(lease -> lease.acquiredAt))
+                .map(lease -> String.format("%s [%s] %d ms",
+                        lease.callSite, lease.thread, (now - lease.acquiredAt) / 1_000_000))
+                .toList();
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder()
+                .append("Pula: ").append(snapshot()).append('\n')
+                .append("Oczekiwanie na połączenie: ").append(acquireTimes).append('\n')
+                .append("Timeouty: ").append(getTimeouts()).append('\n')
+                .append("Czas trzymania per miejsce w kodzie:\n");
+        holdTimes.entrySet().stream()
+                .sorted(Comparator.comparingDouble(
+                        (Map.Entry<String, LatencyHistogram> e) -> e.getValue().meanMillis() * e.getValue().count())
+                        .reversed())
+                .forEach(e -> report.append("  ").append(e.getKey()).append(": ").append(e.getValue()).append('\n'));
+        return report.toString();
+    }
+
+    /**
+     * Przekazuje wszystko do prawdziwego połączenia, ale close() kończy pomiar trzymania.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final Lease lease;
+
+        LeaseHandler(Connection target, Lease lease) {
+            this.target = target;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "Instrumented[" + lease.callSite + "] " + target;
+                case "close" -> {
+                    try {
+                        yield invokeTarget(method, args);
+                    } finally {
+                        release(lease);
+                    }
+                }
+                default -> invokeTarget(method, args);
+            };
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+
+    /**
+     * Zamyka pulę.
+     */
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,80 @@
+package pl.przemekzagorski.training.jdbc.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram czasów z kubełkami o szerokości potęgi dwójki (w mikrosekundach).
+ *
+ * - zapis bez blokad (AtomicLongArray / LongAdder) - można wołać z wielu wątków naraz
+ * - stała pamięć niezależnie od liczby pomiarów
+ * - percentyl = górna granica kubełka, czyli oszacowanie "z zapasem" (max. 2x za dużo)
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(nanos, 0) / 1_000;
+        // kubełek i obejmuje [2^(i-1), 2^i) µs, kubełek 0 - poniżej 1 µs
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double totalMillis() {
+        return totalNanos.sum() / 1_000_000.0;
+    }
+
+    public double meanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / n;
+    }
+
+    public double maxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * @param percentile np. 50, 99, 99.9
+     */
+    public double percentileMillis(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                // nie podajemy więcej niż faktyczne maksimum
+                return Math.min((1L << i) / 1_000.0, maxMillis());
+            }
+        }
+        return maxMillis();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d, mean=%.2f ms, p50≤%.2f ms, p99≤%.2f ms, max=%.2f ms",
+                count(), meanMillis(), percentileMillis(50), percentileMillis(99), maxMillis());
+    }
+}
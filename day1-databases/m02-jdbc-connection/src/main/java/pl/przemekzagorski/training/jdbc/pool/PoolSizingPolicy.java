@@ -0,0 +1,100 @@
+package pl.przemekzagorski.training.jdbc.pool;
+
+/**
+ * Algorytm doboru rozmiaru puli - czysta logika, bez wątków i bez HikariCP (łatwo testować).
+ *
+ * Prawo Little'a: L = λ · W. Średnia liczba zajętych + czekających połączeń w oknie pomiaru
+ * to faktyczne zapotrzebowanie na współbieżność. Do tego krok "gradientowy":
+ * - kolejka (pending > 0) → powiększ pulę o krok
+ * - po powiększeniu przepustowość nie wzrosła o minGain → baza jest wąskim gardłem:
+ *   wróć dokładnie do rozmiaru sprzed powiększenia i nie rośnij ponad niego przez
+ *   cooldownWindows kolejnych okien
+ * - brak kolejki → zmniejszaj w stronę ceil(średnio zajęte · headroom)
+ *
+ * Zmiana w jednym oknie to max. krok = max(1, 25% bieżącego rozmiaru).
+ */
+public class PoolSizingPolicy {
+
+    /**
+     * Pomiar z jednego okna.
+     *
+     * @param meanActive    średnio zajęte połączenia
+     * @param meanPending   średnio wątków czekających na połączenie
+     * @param throughput    pobrania połączeń na sekundę
+     * @param meanWaitMillis średni czas oczekiwania na połączenie w oknie
+     */
+    public record Sample(double meanActive, double meanPending, double throughput, double meanWaitMillis) {}
+
+    private static final double SATURATED_PENDING = 0.5;
+
+    private final int minSize;
+    private final int maxSize;
+    private final double headroom;
+    private final double minGain;
+    private final int cooldownWindows;
+
+    private double lastThroughput = -1;
+    private boolean lastWasGrowth;
+    private int sizeBeforeGrowth;
+    private int ceiling;
+    private int cooldownLeft;
+
+    public PoolSizingPolicy(int minSize, int maxSize) {
+        this(minSize, maxSize, 1.2, 0.05, 10);
+    }
+
+    public PoolSizingPolicy(int minSize, int maxSize, double headroom, double minGain, int cooldownWindows) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Wymagane: 1 <= minSize <= maxSize");
+        }
+        if (cooldownWindows < 0) {
+            throw new IllegalArgumentException("cooldownWindows nie może być ujemne: " + cooldownWindows);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.headroom = headroom;
+        this.minGain = minGain;
+        this.cooldownWindows = cooldownWindows;
+        this.ceiling = maxSize;
+    }
+
+    /**
+     * @return nowy maksymalny rozmiar puli (może być równy bieżącemu)
+     */
+    public int nextSize(int current, Sample sample) {
+        int step = Math.max(1, current / 4);
+        int next = current;
+        boolean rolledBack = false;
+
+        if (lastWasGrowth && lastThroughput > 0 && sample.throughput() < lastThroughput * (1 + minGain)) {
+            // większa pula nie dała więcej przepustowości - wracamy do rozmiaru sprzed wzrostu
+            // (krok liczony od current byłby większy niż wzrost) i zapamiętujemy go jako sufit
+            next = Math.max(minSize, sizeBeforeGrowth);
+            rolledBack = true;
+            if (cooldownWindows > 0) {
+                ceiling = next;
+                cooldownLeft = cooldownWindows;
+            }
+        } else if (sample.meanPending() >= SATURATED_PENDING) {
+            int demand = (int) Math.ceil(sample.meanActive() + sample.meanPending());
+            next = Math.min(current + step, Math.max(demand, current + 1));
+        } else {
+            int target = (int) Math.ceil(sample.meanActive() * headroom);
+            if (target < current) {
+                next = Math.max(target, current - step);
+            }
+        }
+
+        next = Math.max(minSize, Math.min(next, Math.min(ceiling, maxSize)));
+        // okno cofnięcia nie liczy się do cooldownu - sufit obowiązuje w cooldownWindows następnych oknach
+        if (!rolledBack && cooldownLeft > 0 && --cooldownLeft == 0) {
+            ceiling = maxSize; // po cooldownie znów wolno sprawdzić większą pulę
+        }
+        lastWasGrowth = next > current;
+        if (lastWasGrowth) {
+            sizeBeforeGrowth = current;
+        }
+        lastThroughput = sample.throughput();
+        return next;
+    }
+}
@@ -0,0 +1,94 @@
+package pl.przemekzagorski.training.jdbc.profiling;
+
+import pl.przemekzagorski.training.jdbc.pool.LatencyHistogram;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statystyki jednego kształtu zapytania (znormalizowanego SQL).
+ * Czas = wykonanie execute*() - dla SELECT bez pobierania wierszy z ResultSet.
+ */
+public class QueryStats {
+
+    private final String sql;
+    private final LatencyHistogram times = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedStatements = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+
+    QueryStats(String sql) {
+        this.sql = sql;
+    }
+
+    void recordExecution(long nanos) {
+        times.record(nanos);
+    }
+
+    void recordRows(long count) {
+        rows.add(count);
+    }
+
+    void recordBatch(int size) {
+        batches.increment();
+        batchedStatements.add(size);
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    void recordSlow() {
+        slow.increment();
+    }
+
+    public String sql() {
+        return sql;
+    }
+
+    public long count() {
+        return times.count();
+    }
+
+    public double totalMillis() {
+        return times.totalMillis();
+    }
+
+    public double meanMillis() {
+        return times.meanMillis();
+    }
+
+    public double p99Millis() {
+        return times.percentileMillis(99);
+    }
+
+    /**
+     * Wiersze zwrócone (SELECT) albo zmienione (INSERT/UPDATE/DELETE).
+     */
+    public long rows() {
+        return rows.sum();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    public double meanBatchSize() {
+        long n = batches.sum();
+        return n == 0 ? 0 : (double) batchedStatements.sum() / n;
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public long slowCount() {
+        return slow.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: n=%d, total=%.1f ms, mean=%.3f ms, p99≤%.3f ms, rows=%d",
+                sql, count(), totalMillis(), meanMillis(), p99Millis(), rows());
+    }
+}
@@ -0,0 +1,106 @@
+package pl.przemekzagorski.training.jdbc.profiling;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Sprowadza SQL do "kształtu" zapytania, żeby grupować statystyki:
+ * literały tekstowe i liczby → ?, białe znaki → jedna spacja, listy (?, ?, ?) → (?, ...).
+ *
+ * SELECT * FROM users WHERE name = 'admin' AND age > 18
+ *   → SELECT * FROM users WHERE name = ? AND age > ?
+ *
+ * Wyniki są cache'owane (PreparedStatement ma stały SQL), ale tylko do MAX_CACHED pozycji -
+ * SQL sklejany z wartościami (jak w SqlInjectionDemo) nie zapcha pamięci.
+ */
+public final class SqlNormalizer {
+
+    private static final int MAX_CACHED = 10_000;
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\?(?:, \\?)+\\)");
+
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlNormalizer() {
+    }
+
+    public static String normalize(String sql) {
+        String cached = CACHE.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String normalized = doNormalize(sql);
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.put(sql, normalized);
+        }
+        return normalized;
+    }
+
+    private static String doNormalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // literał tekstowy, '' = apostrof w środku
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                out.append('?');
+            } else if (Character.isDigit(c) && !endsWithIdentifier(out)) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (!out.isEmpty() && i < length) {
+                    out.append(' ');
+                }
+            } else {
+                if (c == ',' || c == ')') {
+                    trimTrailingSpace(out);
+                }
+                out.append(c);
+                if (c == ',') {
+                    out.append(' ');
+                    while (i + 1 < length && Character.isWhitespace(sql.charAt(i + 1))) {
+                        i++;
+                    }
+                } else if (c == '(') {
+                    while (i + 1 < length && Character.isWhitespace(sql.charAt(i + 1))) {
+                        i++;
+                    }
+                }
+                i++;
+            }
+        }
+        return PARAMETER_LIST.matcher(out).replaceAll("(?, ...)");
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder out) {
+        if (out.isEmpty()) {
+            return false;
+        }
+        char last = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_';
+    }
+
+    private static void trimTrailingSpace(StringBuilder out) {
+        if (!out.isEmpty() && out.charAt(out.length() - 1) == ' ') {
+            out.setLength(out.length() - 1);
+        }
+    }
+}
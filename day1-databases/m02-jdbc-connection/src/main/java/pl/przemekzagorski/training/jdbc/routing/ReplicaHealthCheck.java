@@ -0,0 +1,48 @@
+package pl.przemekzagorski.training.jdbc.routing;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Czy replikę można teraz używać do odczytów? Wynik jest cache'owany przez RoutingDataSource
+ * (sprawdzenie co healthCheckInterval, nie przy każdym getConnection).
+ */
+@FunctionalInterface
+public interface ReplicaHealthCheck {
+
+    boolean isHealthy(String replica, DataSource dataSource);
+
+    static ReplicaHealthCheck alwaysHealthy() {
+        return (replica, dataSource) -> true;
+    }
+
+    /**
+     * Replika zdrowa, gdy odpowiada i jej opóźnienie replikacji nie przekracza maxLag.
+     * Brak wiersza albo NULL (np. pg_last_xact_replay_timestamp() przed pierwszą odtworzoną
+     * transakcją) to nieznane opóźnienie - replika jest wtedy niezdrowa.
+     *
+     * @param lagMillisQuery zapytanie zwracające opóźnienie w ms, np. dla PostgreSQL:
+     *   SELECT EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000
+     */
+    static ReplicaHealthCheck maxLag(Duration maxLag, String lagMillisQuery) {
+        return (replica, dataSource) -> {
+            try (Connection conn = dataSource.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.setQueryTimeout(1);
+                try (ResultSet rs = stmt.executeQuery(lagMillisQuery)) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    long lagMillis = rs.getLong(1);
+                    return !rs.wasNull() && lagMillis <= maxLag.toMillis();
+                }
+            } catch (SQLException e) {
+                return false;
+            }
+        };
+    }
+}
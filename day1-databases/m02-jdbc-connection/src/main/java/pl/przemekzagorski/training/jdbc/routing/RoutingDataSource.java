@@ -0,0 +1,267 @@
+package pl.przemekzagorski.training.jdbc.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataSource rozdzielający odczyty i zapisy: odczyty na repliki, reszta na primary.
+ *
+ * Odczyt to:
+ * - połączenie, na którym przed pierwszym użyciem wywołano setReadOnly(true)
+ *   (getConnection() zwraca "leniwe" połączenie - fizyczne pobierane dopiero przy pierwszym zapytaniu)
+ * - cały kod w readOnly(...) - wszystkie getConnection() w tym wątku idą na replikę
+ *
+ * Repliki wybierane po kolei (round robin). Niezdrowa replika (ReplicaHealthCheck) albo błąd
+ * pobrania połączenia = następna replika, a gdy żadnej nie ma - primary (fallback).
+ */
+public class RoutingDataSource implements DataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingDataSource.class);
+    private static final Object UNHANDLED = new Object();
+
+    @FunctionalInterface
+    public interface SqlCallable<T> {
+        T call() throws SQLException;
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean healthy;
+        volatile long nextCheckAt = System.nanoTime();
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaHealthCheck healthCheck;
+    private final long checkIntervalNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ThreadLocal<Boolean> readOnlyScope = ThreadLocal.withInitial(() -> false);
+
+    private final LongAdder primaryRoutes = new LongAdder();
+    private final LongAdder replicaRoutes = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * @param replicas nazwa → DataSource (nazwy tylko do logów)
+     */
+    public RoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                             ReplicaHealthCheck healthCheck, Duration healthCheckInterval) {
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.healthCheck = healthCheck;
+        this.checkIntervalNanos = healthCheckInterval.toNanos();
+    }
+
+    /**
+     * Wszystkie getConnection() wewnątrz action (w tym wątku) idą na replikę.
+     */
+    public <T> T readOnly(SqlCallable<T> action) throws SQLException {
+        boolean outer = readOnlyScope.get();
+        readOnlyScope.set(true);
+        try {
+            return action.call();
+        } finally {
+            readOnlyScope.set(outer);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readOnlyScope.get()) {
+            Connection connection = route(true);
+            connection.setReadOnly(true);
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new LazyConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("RoutingDataSource używa danych logowania z pul docelowych");
+    }
+
+    private Connection route(boolean readOnly) throws SQLException {
+        if (readOnly && !replicas.isEmpty()) {
+            int start = nextReplica.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+                if (!isHealthy(replica)) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaRoutes.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                    log.warn("Replika {} niedostępna: {}", replica.name, e.getMessage());
+                }
+            }
+            fallbacks.increment();
+            log.warn("Brak zdrowej repliki - odczyt idzie na primary");
+        }
+        primaryRoutes.increment();
+        return primary.getConnection();
+    }
+
+    private boolean isHealthy(Replica replica) {
+        long now = System.nanoTime();
+        if (now - replica.nextCheckAt >= 0) {
+            boolean healthy = healthCheck.isHealthy(replica.name, replica.dataSource);
+            if (healthy != replica.healthy) {
+                log.info("Replika {}: {}", replica.name, healthy ? "zdrowa" : "NIEZDROWA");
+            }
+            replica.healthy = healthy;
+            replica.nextCheckAt = now + checkIntervalNanos;
+        }
+        return replica.healthy;
+    }
+
+    public long getPrimaryRoutes() {
+        return primaryRoutes.sum();
+    }
+
+    public long getReplicaRoutes() {
+        return replicaRoutes.sum();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * Połączenie pobierane dopiero przy pierwszym "prawdziwym" wywołaniu.
+     * Do tego momentu zapamiętuje readOnly, autoCommit i poziom izolacji, potem ustawia je na celu.
+     */
+    private final class LazyConnection implements InvocationHandler {
+
+        private Connection target;
+        private boolean readOnly;
+        private Boolean autoCommit;
+        private Integer isolation;
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "RoutingConnection[" + (target != null ? target : "niepobrane, readOnly=" + readOnly) + "]";
+                case "isClosed" -> target != null ? target.isClosed() : closed;
+                case "close" -> {
+                    closed = true;
+                    if (target != null) {
+                        target.close();
+                    }
+                    yield null;
+                }
+                default -> target == null ? beforeBind(method, args) : UNHANDLED;
+            };
+            if (result != UNHANDLED) {
+                return result;
+            }
+            if (target == null) {
+                bind();
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private Object beforeBind(Method method, Object[] args) throws SQLException {
+            if (closed) {
+                throw new SQLException("Połączenie jest zamknięte");
+            }
+            return switch (method.getName()) {
+                case "setReadOnly" -> {
+                    readOnly = (Boolean) args[0];
+                    yield null;
+                }
+                case "isReadOnly" -> readOnly;
+                case "setAutoCommit" -> {
+                    autoCommit = (Boolean) args[0];
+                    yield null;
+                }
+                case "getAutoCommit" -> autoCommit != null ? autoCommit : UNHANDLED;
+                case "setTransactionIsolation" -> {
+                    isolation = (Integer) args[0];
+                    yield null;
+                }
+                default -> UNHANDLED;
+            };
+        }
+
+        private void bind() throws SQLException {
+            target = route(readOnly);
+            target.setReadOnly(readOnly);
+            if (autoCommit != null) {
+                target.setAutoCommit(autoCommit);
+            }
+            if (isolation != null) {
+                target.setTransactionIsolation(isolation);
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("RoutingDataSource nie opakowuje " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
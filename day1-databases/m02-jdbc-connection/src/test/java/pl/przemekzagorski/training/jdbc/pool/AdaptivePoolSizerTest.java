@@ -0,0 +1,141 @@
+package pl.przemekzagorski.training.jdbc.pool;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy regulatora na żywej puli - "baza" z 4 rdzeniami (Semaphore) i 16 wątków aplikacji.
+ * Okno 250 ms - krótsze daje za mało zapytań na okno i szum przepustowości przesuwa pulę.
+ */
+@DisplayName("AdaptivePoolSizer")
+class AdaptivePoolSizerTest {
+
+    private static final int DATABASE_CORES = 4;
+    private static final int APP_THREADS = 16;
+    private static final Duration WINDOW = Duration.ofMillis(250);
+
+    private final Semaphore cores = new Semaphore(DATABASE_CORES, true);
+    private InstrumentedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:adaptive_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(2);
+        config.setMinimumIdle(2);
+        dataSource = new InstrumentedDataSource(new HikariDataSource(config), Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("powinien pod obciążeniem urosnąć i ustabilizować się w okolicy liczby rdzeni bazy")
+    void shouldSettleNearDatabaseCapacity() throws Exception {
+        // Given
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService app = startLoad(running);
+
+        // When
+        try (AdaptivePoolSizer sizer = new AdaptivePoolSizer(dataSource,
+                new PoolSizingPolicy(2, APP_THREADS), WINDOW, sizes::add)) {
+            Thread.sleep(8_000);
+        } finally {
+            running.set(false);
+            app.shutdown();
+            app.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        // Then - każdy rozmiar w granicach polityki, pula urosła, a ostatnie okna nie uciekają do 16
+        assertThat(sizes).hasSizeGreaterThan(20).allSatisfy(size -> assertThat(size).isBetween(2, APP_THREADS));
+        assertThat(sizes).anySatisfy(size -> assertThat(size).isGreaterThan(2));
+        assertThat(sizes.subList(sizes.size() - 10, sizes.size()))
+                .allSatisfy(size -> assertThat(size).isBetween(DATABASE_CORES - 1, 2 * DATABASE_CORES));
+    }
+
+    @Test
+    @DisplayName("powinien przywrócić minimumIdle po powiększeniu puli i po close()")
+    void shouldRestoreMinimumIdle() throws Exception {
+        // Given - bez ruchu regulator zmniejsza pulę do 1, więc minimumIdle też spada do 1
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(dataSource, new PoolSizingPolicy(1, APP_THREADS), WINDOW);
+        await(() -> sizer.currentSize() == 1, "zmniejszenie puli do 1");
+        assertThat(hikari.getHikariConfigMXBean().getMinimumIdle()).isEqualTo(1);
+
+        // When - obciążenie powiększa pulę
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService app = startLoad(running);
+        try {
+            // Then
+            await(() -> hikari.getHikariConfigMXBean().getMinimumIdle() == 2, "powrót minimumIdle do 2");
+            assertThat(sizer.currentSize()).isGreaterThanOrEqualTo(2);
+        } finally {
+            running.set(false);
+            app.shutdown();
+            app.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        // When / Then - po ustaniu ruchu pula znów maleje, ale close() oddaje wartość z konfiguracji
+        await(() -> sizer.currentSize() == 1, "ponowne zmniejszenie puli do 1");
+        sizer.close();
+        assertThat(hikari.getHikariConfigMXBean().getMinimumIdle()).isEqualTo(2);
+    }
+
+    private ExecutorService startLoad(AtomicBoolean running) {
+        ExecutorService app = Executors.newFixedThreadPool(APP_THREADS);
+        for (int i = 0; i < APP_THREADS; i++) {
+            app.submit(() -> {
+                while (running.get()) {
+                    query();
+                }
+            });
+        }
+        return app;
+    }
+
+    /**
+     * Zapytanie trzyma połączenie przez cały czas pracy "bazy" - także czekając na wolny rdzeń.
+     */
+    private void query() {
+        try (Connection conn = dataSource.getConnection()) {
+            cores.acquire();
+            try {
+                Thread.sleep(5);
+            } finally {
+                cores.release();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy zapytaniu", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("%s w ciągu 10 s", description).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package pl.przemekzagorski.training.jdbc.pool;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy pomiarów puli - pula 1 połączenia, żeby łatwo wywołać oczekiwanie i timeout.
+ */
+@DisplayName("InstrumentedDataSource")
+class InstrumentedDataSourceTest {
+
+    private InstrumentedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:instrumented_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(1);
+        config.setConnectionTimeout(250);
+        dataSource = new InstrumentedDataSource(new HikariDataSource(config), Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("powinien mierzyć czas trzymania połączenia per miejsce w kodzie")
+    void shouldRecordHoldTimePerCallSite() throws Exception {
+        // When
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = dataSource.getConnection()) {
+                conn.createStatement().execute("SELECT 1");
+            }
+        }
+
+        // Then
+        assertThat(dataSource.getHoldTimes()).hasSize(1);
+        String callSite = dataSource.getHoldTimes().keySet().iterator().next();
+        assertThat(callSite).startsWith("InstrumentedDataSourceTest.shouldRecordHoldTimePerCallSite:");
+        assertThat(dataSource.getHoldTimes().get(callSite).count()).isEqualTo(3);
+        assertThat(dataSource.getAcquireTimes().count()).isEqualTo(3);
+        assertThat(dataSource.currentHolders()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("powinien policzyć timeout i pokazać, kto trzyma połączenie")
+    void shouldReportHolderOnTimeout() throws Exception {
+        // Given
+        try (Connection held = dataSource.getConnection()) {
+            assertThat(dataSource.snapshot().active()).isEqualTo(1);
+            assertThat(dataSource.currentHolders()).singleElement().asString()
+                .contains("shouldReportHolderOnTimeout");
+
+            // When / Then
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+            assertThat(dataSource.getTimeouts()).isEqualTo(1);
+        }
+        assertThat(dataSource.snapshot().active()).isZero();
+    }
+
+    @Test
+    @DisplayName("podwójne close() nie powinno liczyć trzymania dwa razy")
+    void shouldIgnoreSecondClose() throws Exception {
+        Connection conn = dataSource.getConnection();
+        conn.close();
+        conn.close();
+
+        assertThat(dataSource.getHoldTimes().values()).singleElement()
+            .extracting(LatencyHistogram::count).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("histogram powinien szacować percentyle z góry")
+    void shouldEstimatePercentilesFromAbove() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(Duration.ofMillis(i).toNanos());
+        }
+
+        // Then - p50 = 50 ms, kubełek [32.8, 65.5) ms
+        assertThat(histogram.percentileMillis(50)).isBetween(50.0, 100.0);
+        assertThat(histogram.percentileMillis(100)).isEqualTo(100.0);
+        assertThat(histogram.meanMillis()).isCloseTo(50.5, within(0.01));
+    }
+}
@@ -0,0 +1,93 @@
+package pl.przemekzagorski.training.jdbc.pool;
+
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jdbc.pool.PoolSizingPolicy.Sample;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy algorytmu doboru rozmiaru puli na syntetycznym modelu bazy.
+ */
+@DisplayName("PoolSizingPolicy")
+class PoolSizingPolicyTest {
+
+    @Test
+    @DisplayName("powinien dojść do liczby 'rdzeni' bazy i nie rosnąć dalej")
+    void shouldConvergeToDatabaseCapacity() {
+        // Given - baza obsługuje 4 zapytania naraz po 5 ms, aplikacja ma 32 wątki
+        PoolSizingPolicy policy = new PoolSizingPolicy(2, 32, 1.2, 0.05, 10);
+        int size = 2;
+
+        // When
+        for (int window = 0; window < 30; window++) {
+            size = policy.nextSize(size, saturatedDatabase(size, 4, 32));
+        }
+
+        // Then
+        assertThat(size).isBetween(4, 5);
+    }
+
+    @Test
+    @DisplayName("powinien zmniejszać pulę, gdy połączenia stoją bezczynnie")
+    void shouldShrinkWhenIdle() {
+        PoolSizingPolicy policy = new PoolSizingPolicy(2, 32);
+        int size = 20;
+
+        for (int window = 0; window < 20; window++) {
+            size = policy.nextSize(size, new Sample(3, 0, 500, 0));
+        }
+
+        assertThat(size).isEqualTo(4); // ceil(3 · 1.2)
+    }
+
+    @Test
+    @DisplayName("powinien trzymać się granic min/max")
+    void shouldRespectBounds() {
+        PoolSizingPolicy policy = new PoolSizingPolicy(2, 8);
+
+        assertThat(policy.nextSize(8, new Sample(8, 50, 1_000, 100))).isEqualTo(8);
+        assertThat(policy.nextSize(2, new Sample(0, 0, 0, 0))).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("powinien po nieudanym wzroście wrócić dokładnie do rozmiaru sprzed niego")
+    void shouldRollBackToSizeBeforeGrowth() {
+        // Given - kolejka 1 wątku: wzrost 12 → 13 (krok od 13 to 3, więc 13 - 3 dałoby 10)
+        PoolSizingPolicy policy = new PoolSizingPolicy(2, 32, 1.2, 0.05, 10);
+        int grown = policy.nextSize(12, new Sample(12, 1, 1_000, 5));
+
+        // When - przepustowość bez zmian
+        int rolledBack = policy.nextSize(grown, new Sample(13, 1, 1_000, 5));
+
+        // Then - 12 jest też sufitem na czas cooldownu
+        assertThat(grown).isEqualTo(13);
+        assertThat(rolledBack).isEqualTo(12);
+        assertThat(policy.nextSize(12, new Sample(12, 5, 1_000, 5))).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("powinien trzymać sufit przez dokładnie cooldownWindows okien po cofnięciu")
+    void shouldHoldCeilingForCooldownWindows() {
+        for (int cooldown = 1; cooldown <= 3; cooldown++) {
+            // Given - wzrost 4 → 5 bez zysku przepustowości i cofnięcie do 4
+            PoolSizingPolicy policy = new PoolSizingPolicy(2, 32, 1.2, 0.05, cooldown);
+            Sample queued = new Sample(4, 8, 800, 10);
+            assertThat(policy.nextSize(4, queued)).isEqualTo(5);
+            assertThat(policy.nextSize(5, queued)).isEqualTo(4);
+
+            // When / Then - w oknach cooldownu kolejka nie powiększa puli, w następnym już tak
+            for (int window = 0; window < cooldown; window++) {
+                assertThat(policy.nextSize(4, queued)).as("cooldown %d, okno %d", cooldown, window).isEqualTo(4);
+            }
+            assertThat(policy.nextSize(4, queued)).as("cooldown %d po końcu", cooldown).isEqualTo(5);
+        }
+    }
+
+    /**
+     * Przepustowość rośnie liniowo do liczby rdzeni, potem stoi w miejscu.
+     */
+    private static Sample saturatedDatabase(int poolSize, int cores, int appThreads) {
+        double throughput = Math.min(poolSize, cores) * 200.0;
+        return new Sample(poolSize, appThreads - poolSize, throughput, (appThreads - poolSize) / throughput * 1000);
+    }
+}
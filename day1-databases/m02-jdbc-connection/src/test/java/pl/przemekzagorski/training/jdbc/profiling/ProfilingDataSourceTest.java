@@ -0,0 +1,124 @@
+package pl.przemekzagorski.training.jdbc.profiling;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+
+import java.sql.*;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy profilującego DataSource i normalizacji SQL.
+ */
+@DisplayName("ProfilingDataSource")
+class ProfilingDataSourceTest {
+
+    private ProfilingDataSource profiler;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:profiling_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        try (Connection conn = h2.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE pirates (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100), rank VARCHAR(50))");
+        }
+        profiler = new ProfilingDataSource(h2, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        profiler.close();
+    }
+
+    @Test
+    @DisplayName("powinien zgrupować zapytania z różnymi literałami pod jednym kształtem")
+    void shouldGroupByNormalizedSql() throws SQLException {
+        // When
+        try (Connection conn = profiler.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO pirates (name, rank) VALUES ('Jack', 'Captain')");
+            stmt.executeUpdate("INSERT INTO pirates (name, rank) VALUES ('Will',   'First Mate')");
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM pirates WHERE rank = 'Captain' OR id > 0")) {
+                while (rs.next()) {
+                    rs.getString("name");
+                }
+            }
+        }
+
+        // Then
+        assertThat(profiler.getStats()).containsOnlyKeys(
+            "INSERT INTO pirates (name, rank) VALUES (?, ...)",
+            "SELECT * FROM pirates WHERE rank = ? OR id > ?");
+        QueryStats insert = profiler.getStats().get("INSERT INTO pirates (name, rank) VALUES (?, ...)");
+        assertThat(insert.count()).isEqualTo(2);
+        assertThat(insert.rows()).isEqualTo(2);
+        assertThat(profiler.getStats().get("SELECT * FROM pirates WHERE rank = ? OR id > ?").rows()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("powinien liczyć paczki i ich rozmiar dla PreparedStatement")
+    void shouldRecordBatchSizes() throws SQLException {
+        try (Connection conn = profiler.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("INSERT INTO pirates (name) VALUES (?)")) {
+            for (int i = 0; i < 10; i++) {
+                stmt.setString(1, "Pirate " + i);
+                stmt.addBatch();
+                if (i % 5 == 4) {
+                    stmt.executeBatch();
+                }
+            }
+        }
+
+        QueryStats insert = profiler.getStats().get("INSERT INTO pirates (name) VALUES (?)");
+        assertThat(insert.batches()).isEqualTo(2);
+        assertThat(insert.meanBatchSize()).isEqualTo(5.0);
+        assertThat(insert.rows()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("powinien przypisać każdą paczkę zwykłego Statement do jej własnego SQL")
+    void shouldRecordEachPlainStatementBatchUnderItsOwnSql() throws SQLException {
+        try (Connection conn = profiler.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.addBatch("INSERT INTO pirates (name) VALUES ('Jack')");
+            stmt.addBatch("INSERT INTO pirates (name) VALUES ('Will')");
+            stmt.executeBatch();
+            stmt.addBatch("DELETE FROM pirates WHERE name = 'Jack'");
+            stmt.clearBatch();
+            stmt.addBatch("UPDATE pirates SET rank = 'Captain' WHERE name = 'Will'");
+            stmt.executeBatch();
+        }
+
+        QueryStats insert = profiler.getStats().get("INSERT INTO pirates (name) VALUES (?)");
+        QueryStats update = profiler.getStats().get("UPDATE pirates SET rank = ? WHERE name = ?");
+        assertThat(insert.batches()).isEqualTo(1);
+        assertThat(insert.rows()).isEqualTo(2);
+        assertThat(update.batches()).isEqualTo(1);
+        assertThat(update.rows()).isEqualTo(1);
+        assertThat(profiler.getStats()).doesNotContainKey("DELETE FROM pirates WHERE name = ?");
+    }
+
+    @Test
+    @DisplayName("powinien oznaczyć zapytanie powyżej progu jako wolne i policzyć błędy")
+    void shouldFlagSlowAndFailedQueries() throws SQLException {
+        ProfilingDataSource strict = new ProfilingDataSource(profiler.unwrap(JdbcDataSource.class), Duration.ZERO);
+        try (Connection conn = strict.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("SELECT COUNT(*) FROM pirates");
+            assertThatThrownBy(() -> stmt.execute("SELECT * FROM no_such_table"))
+                .isInstanceOf(SQLException.class);
+        }
+
+        assertThat(strict.getStats().get("SELECT COUNT(*) FROM pirates").slowCount()).isEqualTo(1);
+        assertThat(strict.getStats().get("SELECT * FROM no_such_table").errors()).isEqualTo(1);
+        assertThat(strict.report(5)).contains("SELECT COUNT(*) FROM pirates");
+    }
+
+    @Test
+    @DisplayName("normalizacja: liczby w identyfikatorach zostają, białe znaki i listy są scalane")
+    void shouldNormalizeSql() {
+        assertThat(SqlNormalizer.normalize("SELECT  col1 FROM t2\n WHERE x = 'O''Hara' AND y IN ( ?, ?,? )"))
+            .isEqualTo("SELECT col1 FROM t2 WHERE x = ? AND y IN (?, ...)");
+        assertThat(SqlNormalizer.normalize("UPDATE pirates SET bounty = 10.5 WHERE id = 7"))
+            .isEqualTo("UPDATE pirates SET bounty = ? WHERE id = ?");
+    }
+}
@@ -0,0 +1,160 @@
+package pl.przemekzagorski.training.jdbc.routing;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy routingu odczytów i zapisów - dwie (albo trzy) bazy H2 w pamięci udają primary i repliki.
+ * Każda baza ma tabelę node z własną nazwą, więc widać, dokąd trafiło zapytanie.
+ */
+@DisplayName("RoutingDataSource")
+class RoutingDataSourceTest {
+
+    private final String suffix = "_" + System.nanoTime();
+    private DataSource primary;
+    private DataSource replicaA;
+    private DataSource replicaB;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = node("primary");
+        replicaA = node("replica_a");
+        replicaB = node("replica_b");
+    }
+
+    @Test
+    @DisplayName("zapisy i zwykłe połączenia powinny iść na primary")
+    void shouldRouteWritesToPrimary() throws SQLException {
+        RoutingDataSource routing = routing(ReplicaHealthCheck.alwaysHealthy(), replicaA);
+
+        try (Connection conn = routing.getConnection()) {
+            assertThat(whoAmI(conn)).isEqualTo("primary");
+        }
+        assertThat(routing.getPrimaryRoutes()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("setReadOnly(true) przed pierwszym zapytaniem powinien skierować na replikę")
+    void shouldRouteReadOnlyConnectionToReplica() throws SQLException {
+        RoutingDataSource routing = routing(ReplicaHealthCheck.alwaysHealthy(), replicaA);
+
+        try (Connection conn = routing.getConnection()) {
+            conn.setReadOnly(true);
+            conn.setAutoCommit(false);
+            assertThat(whoAmI(conn)).isEqualTo("replica_a");
+            assertThat(conn.getAutoCommit()).isFalse();
+        }
+        assertThat(routing.getReplicaRoutes()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("readOnly(...) powinien kierować wszystkie połączenia w bloku na repliki po kolei")
+    void shouldRoundRobinInReadOnlyScope() throws SQLException {
+        RoutingDataSource routing = routing(ReplicaHealthCheck.alwaysHealthy(), replicaA, replicaB);
+
+        String first = routing.readOnly(() -> whoAmI(routing));
+        String second = routing.readOnly(() -> whoAmI(routing));
+
+        assertThat(first + "," + second).isIn("replica_a,replica_b", "replica_b,replica_a");
+        try (Connection conn = routing.getConnection()) {
+            assertThat(whoAmI(conn)).as("poza blokiem readOnly").isEqualTo("primary");
+        }
+    }
+
+    @Test
+    @DisplayName("replika z za dużym opóźnieniem powinna zostać pominięta")
+    void shouldSkipLaggingReplica() throws SQLException {
+        // Given - replica_a ma opóźnienie 5 s, replica_b 10 ms
+        setLag(replicaA, 5_000L);
+        setLag(replicaB, 10L);
+        ReplicaHealthCheck check = ReplicaHealthCheck.maxLag(Duration.ofSeconds(1), "SELECT lag_ms FROM node");
+        RoutingDataSource routing = routing(check, replicaA, replicaB);
+
+        // When / Then
+        for (int i = 0; i < 4; i++) {
+            assertThat(routing.readOnly(() -> whoAmI(routing))).isEqualTo("replica_b");
+        }
+    }
+
+    @Test
+    @DisplayName("replika, która nie zna swojego opóźnienia (NULL), powinna zostać pominięta")
+    void shouldSkipReplicaWithUnknownLag() throws SQLException {
+        // Given - replica_a zwraca NULL, replica_b 10 ms
+        setLag(replicaA, null);
+        setLag(replicaB, 10L);
+        ReplicaHealthCheck check = ReplicaHealthCheck.maxLag(Duration.ofSeconds(1), "SELECT lag_ms FROM node");
+        RoutingDataSource routing = routing(check, replicaA, replicaB);
+
+        // When / Then
+        for (int i = 0; i < 4; i++) {
+            assertThat(routing.readOnly(() -> whoAmI(routing))).isEqualTo("replica_b");
+        }
+    }
+
+    @Test
+    @DisplayName("bez zdrowej repliki odczyt powinien wrócić na primary")
+    void shouldFallBackToPrimary() throws SQLException {
+        RoutingDataSource routing = routing((name, ds) -> false, replicaA, replicaB);
+
+        assertThat(routing.readOnly(() -> whoAmI(routing))).isEqualTo("primary");
+        assertThat(routing.getFallbacks()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("błąd pobrania połączenia z repliki powinien przejść na kolejną")
+    void shouldSkipReplicaThatFailsToConnect() throws SQLException {
+        JdbcDataSource broken = new JdbcDataSource();
+        broken.setURL("jdbc:h2:mem:missing" + suffix + ";IFEXISTS=TRUE");
+        RoutingDataSource routing = routing(ReplicaHealthCheck.alwaysHealthy(), broken, replicaB);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(routing.readOnly(() -> whoAmI(routing))).isEqualTo("replica_b");
+        }
+    }
+
+    private RoutingDataSource routing(ReplicaHealthCheck check, DataSource... replicas) {
+        Map<String, DataSource> named = new LinkedHashMap<>();
+        for (int i = 0; i < replicas.length; i++) {
+            named.put("replica-" + i, replicas[i]);
+        }
+        return new RoutingDataSource(primary, named, check, Duration.ofMinutes(1));
+    }
+
+    private DataSource node(String name) throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + suffix + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE node (name VARCHAR(20), lag_ms BIGINT)");
+            stmt.execute("INSERT INTO node VALUES ('" + name + "', 0)");
+        }
+        return dataSource;
+    }
+
+    private static void setLag(DataSource node, Long lagMillis) throws SQLException {
+        try (Connection conn = node.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE node SET lag_ms = " + lagMillis);
+        }
+    }
+
+    private static String whoAmI(DataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return whoAmI(conn);
+        }
+    }
+
+    private static String whoAmI(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT name FROM node")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
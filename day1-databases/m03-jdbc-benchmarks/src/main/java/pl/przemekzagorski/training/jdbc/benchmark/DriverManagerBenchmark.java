@@ -0,0 +1,32 @@
+package pl.przemekzagorski.training.jdbc.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Bez puli - każde wywołanie otwiera nowe połączenie (jak demoDriverManagerProblem w m02).
+ */
+@State(Scope.Benchmark)
+public class DriverManagerBenchmark extends JdbcAccessBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:bench_driver_manager";
+
+    private Connection keepAlive;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        keepAlive = createDatabase(JDBC_URL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Override
+    protected Connection borrow() throws SQLException {
+        return DriverManager.getConnection(JDBC_URL, USER, PASSWORD);
+    }
+}
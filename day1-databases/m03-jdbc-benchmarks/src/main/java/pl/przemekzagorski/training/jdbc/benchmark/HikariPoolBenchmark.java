@@ -0,0 +1,47 @@
+package pl.przemekzagorski.training.jdbc.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * HikariCP z pulą stałego rozmiaru (minimumIdle = maximumPoolSize).
+ * Gdy wątków jest więcej niż połączeń, w p99 widać czekanie w kolejce puli.
+ */
+@State(Scope.Benchmark)
+public class HikariPoolBenchmark extends JdbcAccessBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:bench_hikari";
+
+    @Param({"4", "8", "16", "32", "64"})
+    public int poolSize;
+
+    private Connection keepAlive;
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        keepAlive = createDatabase(JDBC_URL);
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(JDBC_URL);
+        config.setUsername(USER);
+        config.setPassword(PASSWORD);
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setPoolName("bench-" + poolSize);
+        dataSource = new HikariDataSource(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+        keepAlive.close();
+    }
+
+    @Override
+    protected Connection borrow() throws SQLException {
+        return dataSource.getConnection();
+    }
+}
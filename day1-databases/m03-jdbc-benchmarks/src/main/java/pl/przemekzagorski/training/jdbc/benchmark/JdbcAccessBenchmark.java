@@ -0,0 +1,90 @@
+package pl.przemekzagorski.training.jdbc.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pl.przemekzagorski.training.jdbc.dao.JdbcPirateDao;
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wspólne pomiary dla strategii pobierania połączenia (DriverManager / HikariCP).
+ *
+ * - acquireRelease - samo pobranie i oddanie połączenia
+ * - selectOne      - najprostsze zapytanie (round trip bez pracy po stronie bazy)
+ * - findById       - realistyczne wywołanie JdbcPirateDao po losowym ID
+ *
+ * Mode.SampleTime = rozkład czasów pojedynczych wywołań (p50, p99, p99.9),
+ * a nie tylko średnia. Liczbę wątków ustawia JdbcBenchmarkRunner (albo -t w linii poleceń).
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class JdbcAccessBenchmark {
+
+    static final String USER = "sa";
+    static final String PASSWORD = "";
+    static final int PIRATES = 10_000;
+
+    protected abstract Connection borrow() throws SQLException;
+
+    @Benchmark
+    public Connection acquireRelease() throws SQLException {
+        try (Connection connection = borrow()) {
+            return connection;
+        }
+    }
+
+    @Benchmark
+    public int selectOne() throws SQLException {
+        try (Connection connection = borrow();
+             PreparedStatement stmt = connection.prepareStatement("SELECT 1");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Benchmark
+    public Pirate findById() throws SQLException {
+        long id = ThreadLocalRandom.current().nextLong(1, PIRATES + 1);
+        try (Connection connection = borrow();
+             JdbcPirateDao dao = new JdbcPirateDao(connection)) {
+            return dao.findById(id).orElseThrow();
+        }
+    }
+
+    /**
+     * Tworzy tabelę pirates z PIRATES wierszami (ID 1..PIRATES).
+     * Zwrócone połączenie trzyma bazę w pamięci przy życiu - zamknij je w @TearDown.
+     */
+    static Connection createDatabase(String url) throws SQLException {
+        Connection keepAlive = DriverManager.getConnection(url, USER, PASSWORD);
+        try (Statement stmt = keepAlive.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE pirates (
+                    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+                    name VARCHAR(100) NOT NULL,
+                    nickname VARCHAR(100),
+                    rank VARCHAR(50),
+                    bounty DECIMAL(15,2) DEFAULT 0,
+                    ship_id BIGINT,
+                    joined_at DATE
+                )
+            """);
+        }
+        List<Pirate> crew = new ArrayList<>(PIRATES);
+        for (int i = 0; i < PIRATES; i++) {
+            crew.add(new Pirate("Pirate #" + i, i % 10 == 0 ? "Captain" : "Sailor", BigDecimal.valueOf(i)));
+        }
+        try (JdbcPirateDao dao = new JdbcPirateDao(keepAlive)) {
+            dao.saveAll(crew);
+        }
+        return keepAlive;
+    }
+}
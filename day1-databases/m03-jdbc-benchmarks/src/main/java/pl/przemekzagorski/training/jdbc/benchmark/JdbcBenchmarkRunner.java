@@ -0,0 +1,66 @@
+package pl.przemekzagorski.training.jdbc.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Przegląd liczby wątków: dla każdej wartości osobne uruchomienie JMH i osobny plik JSON
+ * (target/jmh-threads-N.json), do tego tabela z percentylami na konsoli.
+ *
+ * Uruchomienie:
+ *   mvn -pl day1-databases/m03-jdbc-benchmarks -am package -DskipTests
+ *   java -jar day1-databases/m03-jdbc-benchmarks/target/benchmarks.jar [wątki, np. 1 8 64]
+ *
+ * Pojedynczy pomiar z opcjami JMH:
+ *   java -cp target/benchmarks.jar org.openjdk.jmh.Main HikariPoolBenchmark.findById -p poolSize=8 -t 16
+ */
+public class JdbcBenchmarkRunner {
+
+    private static final int[] DEFAULT_THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws RunnerException {
+        int[] threadCounts = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_THREADS;
+
+        System.out.println("🏴‍☠️ JDBC Benchmarks (JMH)");
+        System.out.println("==========================\n");
+
+        for (int threads : threadCounts) {
+            String resultFile = "target/jmh-threads-" + threads + ".json";
+            Options options = new OptionsBuilder()
+                    .include(JdbcAccessBenchmark.class.getPackageName() + ".(DriverManager|HikariPool)Benchmark")
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultFile)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            printSummary(threads, results);
+            System.out.println("   📄 " + resultFile + "\n");
+        }
+
+        System.out.println("💡 Szukaj najmniejszej puli, przy której p99 przestaje rosnąć dla Twojej liczby wątków.");
+    }
+
+    private static void printSummary(int threads, Collection<RunResult> results) {
+        System.out.printf("%n🧵 Wątki: %d%n", threads);
+        System.out.printf("   %-40s %8s %10s %10s %10s%n", "benchmark", "pula", "p50 [µs]", "p99 [µs]", "p99.9 [µs]");
+        for (RunResult result : results) {
+            String label = result.getParams().getBenchmark();
+            String benchmark = label.substring(label.lastIndexOf('.', label.lastIndexOf('.') - 1) + 1);
+            String poolSize = result.getParams().getParamsKeys().contains("poolSize")
+                    ? result.getParams().getParam("poolSize")
+                    : "-";
+            Statistics stats = result.getPrimaryResult().getStatistics();
+            System.out.printf("   %-40s %8s %10.1f %10.1f %10.1f%n", benchmark, poolSize,
+                    stats.getPercentile(50), stats.getPercentile(99), stats.getPercentile(99.9));
+        }
+    }
+}
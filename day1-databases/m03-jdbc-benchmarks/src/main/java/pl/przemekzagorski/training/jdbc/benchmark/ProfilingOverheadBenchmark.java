@@ -0,0 +1,53 @@
+package pl.przemekzagorski.training.jdbc.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import pl.przemekzagorski.training.jdbc.profiling.ProfilingDataSource;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Narzut ProfilingDataSource (m02) na tych samych pomiarach co HikariPoolBenchmark.
+ * profiled=false - sama pula, profiled=true - pula opakowana profilerem.
+ *
+ * java -cp target/benchmarks.jar org.openjdk.jmh.Main ProfilingOverheadBenchmark -t 8
+ */
+@State(Scope.Benchmark)
+public class ProfilingOverheadBenchmark extends JdbcAccessBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:bench_profiling";
+
+    @Param({"false", "true"})
+    public boolean profiled;
+
+    private Connection keepAlive;
+    private HikariDataSource pool;
+    private DataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        keepAlive = createDatabase(JDBC_URL);
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(JDBC_URL);
+        config.setUsername(USER);
+        config.setPassword(PASSWORD);
+        config.setMaximumPoolSize(16);
+        config.setMinimumIdle(16);
+        pool = new HikariDataSource(config);
+        dataSource = profiled ? new ProfilingDataSource(pool, Duration.ofSeconds(1)) : pool;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        pool.close();
+        keepAlive.close();
+    }
+
+    @Override
+    protected Connection borrow() throws SQLException {
+        return dataSource.getConnection();
+    }
+}
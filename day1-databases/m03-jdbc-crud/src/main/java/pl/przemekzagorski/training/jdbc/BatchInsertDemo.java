@@ -0,0 +1,90 @@
+package pl.przemekzagorski.training.jdbc;
+
+import pl.przemekzagorski.training.jdbc.dao.BatchReport;
+import pl.przemekzagorski.training.jdbc.dao.JdbcPirateDao;
+import pl.przemekzagorski.training.jdbc.dao.PirateDao;
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Demonstracja zapisu wsadowego (addBatch/executeBatch) i doboru rozmiaru paczki.
+ *
+ * save() w pętli = jeden round trip i jeden prepareStatement na wiersz.
+ * saveAll() = jeden PreparedStatement, wiersze wysyłane paczkami po batchSize.
+ */
+public class BatchInsertDemo {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:batch_demo";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+    private static final int ROWS = 50_000;
+
+    public static void main(String[] args) throws SQLException {
+        System.out.println("🏴‍☠️ Batch Insert Demo");
+        System.out.println("=====================\n");
+
+        try (Connection conn = DriverManager.getConnection(JDBC_URL, USER, PASSWORD)) {
+            setupDatabase(conn);
+            PirateDao pirateDao = new JdbcPirateDao(conn);
+            conn.setAutoCommit(false);
+
+            System.out.println("1️⃣ save() w pętli (" + ROWS + " wierszy):");
+            long start = System.nanoTime();
+            for (Pirate pirate : generateCrew(ROWS)) {
+                pirateDao.save(pirate);
+            }
+            conn.commit();
+            System.out.printf("   ⏱️ %.1f ms%n", (System.nanoTime() - start) / 1_000_000.0);
+
+            System.out.println("\n2️⃣ saveAll() z różnym rozmiarem paczki:");
+            for (int batchSize : new int[]{10, 100, 500, 1000, 5000}) {
+                truncate(conn);
+                List<Pirate> crew = generateCrew(ROWS);
+                BatchReport report = pirateDao.saveAll(crew.iterator(), batchSize);
+                conn.commit();
+                double slowest = report.chunks().stream()
+                        .mapToDouble(BatchReport.ChunkTiming::millis)
+                        .max().orElse(0);
+                System.out.printf("   batchSize=%-5d %s, najwolniejsza paczka: %.2f ms%n",
+                        batchSize, report, slowest);
+            }
+
+            System.out.println("\n💡 Za mała paczka = dużo round tripów, za duża = duże bufory po obu stronach.");
+            System.out.println("   Optimum zależy od bazy i sieci - sprawdź na produkcyjnym sterowniku!");
+        }
+    }
+
+    private static List<Pirate> generateCrew(int size) {
+        List<Pirate> crew = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            crew.add(new Pirate("Pirate #" + i, i % 10 == 0 ? "Captain" : "Sailor", new BigDecimal(i % 1000)));
+        }
+        return crew;
+    }
+
+    private static void truncate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("TRUNCATE TABLE pirates");
+        }
+        conn.commit();
+    }
+
+    private static void setupDatabase(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE pirates (
+                    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+                    name VARCHAR(100) NOT NULL,
+                    nickname VARCHAR(100),
+                    rank VARCHAR(50),
+                    bounty DECIMAL(15,2) DEFAULT 0,
+                    ship_id BIGINT,
+                    joined_at DATE
+                )
+            """);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Demonstracja operacji CRUD przez JDBC.
@@ -46,6 +47,12 @@ public class CrudDemo {
             pirateDao.findById(jack.getId())
                 .ifPresent(p -> System.out.println("\n   Szukanie po ID: " + p));
 
+            // Strumień trzyma otwarty kursor - zamykamy go przez try-with-resources
+            try (Stream<Pirate> captains = pirateDao.streamByRank("Captain")) {
+                System.out.println("\n   Kapitanowie (strumieniowo):");
+                captains.forEach(p -> System.out.println("   • " + p.getName()));
+            }
+
             // UPDATE
             System.out.println("\n3️⃣ UPDATE - Aktualizacja:");
             jack.setBounty(new BigDecimal("25000.00"));
@@ -0,0 +1,96 @@
+package pl.przemekzagorski.training.jdbc;
+
+import pl.przemekzagorski.training.jdbc.loader.PirateCsvLoader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+
+/**
+ * Ładowanie dużego pliku CSV do tabeli pirates przez PirateCsvLoader.
+ *
+ * Generuje plik (domyślnie 1 mln wierszy, liczba w argumencie, np. 10000000),
+ * a potem ładuje go paczkami z commitem co 100 000 wierszy i raportem postępu.
+ */
+public class CsvLoadDemo {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:csv_demo";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+    private static final String[] RANKS = {"Captain", "First Mate", "Quartermaster", "Gunner", "Sailor"};
+
+    public static void main(String[] args) throws SQLException, IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("🏴‍☠️ CSV Load Demo");
+        System.out.println("=================\n");
+
+        Path csv = Files.createTempFile("pirates", ".csv");
+        try {
+            long start = System.nanoTime();
+            generateCsv(csv, rows);
+            System.out.printf("📄 Wygenerowano %,d wierszy (%,d MB) w %.1f s%n%n",
+                    rows, Files.size(csv) / (1024 * 1024), (System.nanoTime() - start) / 1e9);
+
+            try (Connection conn = DriverManager.getConnection(JDBC_URL, USER, PASSWORD)) {
+                setupDatabase(conn);
+                PirateCsvLoader loader = new PirateCsvLoader(conn, 1_000, 100_000);
+
+                System.out.println("⏳ Ładowanie:");
+                PirateCsvLoader.LoadProgress result = loader.load(csv,
+                        progress -> System.out.println("   ✔️ commit: " + progress));
+
+                System.out.println("\n✅ " + result);
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM pirates")) {
+                    rs.next();
+                    System.out.printf("   W tabeli: %,d piratów%n", rs.getLong(1));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+
+        System.out.println("\n💡 Porównaj z BatchInsertDemo - tam każdy wiersz to obiekt Pirate i String-i z parsowania.");
+        System.out.println("   Tu bajty z pliku trafiają prosto do PreparedStatement.");
+    }
+
+    private static void generateCsv(Path csv, int rows) throws IOException {
+        LocalDate base = LocalDate.of(1700, 1, 1);
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write(PirateCsvLoader.HEADER);
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                writer.write("Pirate #" + i);
+                writer.write(i % 10 == 0 ? ",\"The \"\"Terrible\"\", of the Seas\"," : ",,");
+                writer.write(RANKS[i % RANKS.length]);
+                writer.write(',');
+                writer.write((i % 100_000) + "." + (i % 100));
+                writer.write(',');
+                writer.write(i % 3 == 0 ? "" : String.valueOf(i % 4 + 1));
+                writer.write(',');
+                writer.write(base.plusDays(i % 20_000).toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void setupDatabase(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE pirates (
+                    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+                    name VARCHAR(100) NOT NULL,
+                    nickname VARCHAR(100),
+                    rank VARCHAR(50),
+                    bounty DECIMAL(15,2) DEFAULT 0,
+                    ship_id BIGINT,
+                    joined_at DATE
+                )
+            """);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package pl.przemekzagorski.training.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import pl.przemekzagorski.training.jdbc.tx.GroupCommitCoordinator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Commit po każdym UPDATE vs group commit - na bazie plikowej H2.
+ *
+ * WRITE_DELAY=0 - H2 zapisuje plik przy każdym commicie (domyślnie odkłada zapis o 500 ms,
+ * co ukrywa koszt commitu, ale też gubi ostatnie transakcje przy awarii).
+ * Wątki robią małe UPDATE-y na różnych piratach: raz każdy z własnym commitem,
+ * raz przez GroupCommitCoordinator. Liczba wątków w argumencie (domyślnie 16).
+ */
+public class GroupCommitDemo {
+
+    private static final int PIRATES = 1_000;
+    private static final int UPDATES_PER_THREAD = 500;
+    private static final String UPDATE_SQL = "UPDATE pirates SET bounty = bounty + 1 WHERE id = ?";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+
+        System.out.println("🏴‍☠️ Group Commit Demo");
+        System.out.println("====================\n");
+
+        Path dir = Files.createTempDirectory("group_commit");
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:file:" + dir.resolve("pirates") + ";WRITE_DELAY=0");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(threads);
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            setupDatabase(dataSource);
+            System.out.printf("📁 %s, %d wątków × %d UPDATE%n%n", dir, threads, UPDATES_PER_THREAD);
+
+            double perCall = run(threads, id -> {
+                try (Connection conn = dataSource.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+                    stmt.setLong(1, id);
+                    stmt.executeUpdate();
+                }
+            });
+            System.out.printf("🐢 commit po każdym UPDATE: %,8.0f UPDATE/s%n", perCall);
+
+            try (GroupCommitCoordinator coordinator = new GroupCommitCoordinator(dataSource, Duration.ofMillis(2), 256)) {
+                double grouped = run(threads, id -> {
+                    try {
+                        coordinator.submit(conn -> {
+                            try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+                                stmt.setLong(1, id);
+                                return stmt.executeUpdate();
+                            }
+                        }).get();
+                    } catch (InterruptedException | ExecutionException e) {
+                        throw new SQLException("Błąd przy group commit", e);
+                    }
+                });
+                System.out.printf("🚀 group commit (okno 2 ms):  %,8.0f UPDATE/s (%.1fx)%n", grouped, grouped / perCall);
+                System.out.println("   " + coordinator);
+            }
+
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT SUM(bounty) FROM pirates")) {
+                rs.next();
+                System.out.printf("%n✅ Suma nagród: %,d (oczekiwano %,d)%n", rs.getLong(1), 2L * threads * UPDATES_PER_THREAD);
+            }
+        } finally {
+            deleteRecursively(dir);
+        }
+
+        System.out.println("\n💡 Każdy wywołujący i tak czeka na commit - ale jeden zapis pliku obsługuje całą grupę.");
+        System.out.println("   Okno to kompromis: dłuższe = większe grupy, ale wyższa latencja pojedynczego wywołania.");
+    }
+
+    @FunctionalInterface
+    private interface Update {
+        void apply(long pirateId) throws SQLException;
+    }
+
+    /**
+     * @return UPDATE/s
+     */
+    private static double run(int threads, Update update) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        update.apply(1 + (thread * UPDATES_PER_THREAD + i) % PIRATES);
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return threads * UPDATES_PER_THREAD / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static void setupDatabase(HikariDataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE pirates (id BIGINT PRIMARY KEY, name VARCHAR(100), bounty BIGINT)");
+            stmt.execute("INSERT INTO pirates SELECT X, 'Pirate ' || X, 0 FROM SYSTEM_RANGE(1, " + PIRATES + ")");
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package pl.przemekzagorski.training.jdbc;
 
+import pl.przemekzagorski.training.jdbc.dao.PirateDashboard;
+import pl.przemekzagorski.training.jdbc.dao.PirateStatsDao;
+
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
@@ -103,6 +106,19 @@ public class PirateExercisesSolutions {
             System.out.println("   Transfer udany: " + shouldFail);
             System.out.println("   Status: ✅ POPRAWNIE (błąd obsłużony prawidłowo)!");
 
+            // ═══════════════════════════════════════════════════════════
+            // BONUS: wszystkie liczniki jednym zapytaniem
+            // ═══════════════════════════════════════════════════════════
+            System.out.println("\n" + "═".repeat(60));
+            System.out.println("✅ BONUS: Dashboard rang jednym zapytaniem (PirateStatsDao)");
+            System.out.println("═".repeat(60));
+            System.out.println("   Zamiast exercise4_CountByRank dla każdej rangi osobno:");
+
+            PirateDashboard dashboard = new PirateStatsDao(conn).dashboard();
+            dashboard.ranks().forEach(rank -> System.out.println("   " + rank));
+            System.out.printf("   Razem: %d piratów, %d statków, nagrody %.2f%n",
+                    dashboard.pirates(), dashboard.ships(), dashboard.bountyCents() / 100.0);
+
             // ═══════════════════════════════════════════════════════════
             // PODSUMOWANIE
             // ═══════════════════════════════════════════════════════════
@@ -376,6 +392,7 @@ public class PirateExercisesSolutions {
                     rank VARCHAR(50),
                     bounty DECIMAL(15,2) DEFAULT 0,
                     ship_id BIGINT,
+                    joined_at DATE,
                     FOREIGN KEY (ship_id) REFERENCES ships(id)
                 )
             """);
@@ -384,14 +401,14 @@ public class PirateExercisesSolutions {
             stmt.execute("INSERT INTO ships (name, ship_type, cannons) VALUES ('Flying Dutchman', 'Galleon', 46)");
             stmt.execute("INSERT INTO ships (name, ship_type, cannons) VALUES ('Queen Annes Revenge', 'Frigate', 40)");
 
-            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id) VALUES ('Jack Sparrow', 'Captain Jack', 'Captain', 10000.00, 1)");
-            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id) VALUES ('Davy Jones', 'Devil of the Sea', 'Captain', 100000.00, 2)");
-            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id) VALUES ('Edward Teach', 'Blackbeard', 'Captain', 50000.00, 3)");
-            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id) VALUES ('Joshamee Gibbs', 'Mr. Gibbs', 'First Mate', 1000.00, 1)");
-            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id) VALUES ('Hector Barbossa', 'Barbossa', 'Quartermaster', 8000.00, 1)");
-            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id) VALUES ('Bootstrap Bill', 'Bootstrap', 'First Mate', 3000.00, 2)");
-            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id) VALUES ('Cotton', NULL, 'Sailor', 100.00, 1)");
-            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id) VALUES ('Marty', NULL, 'Sailor', 150.00, 1)");
+            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES ('Jack Sparrow', 'Captain Jack', 'Captain', 10000.00, 1, DATE '1720-06-15')");
+            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES ('Davy Jones', 'Devil of the Sea', 'Captain', 100000.00, 2, DATE '1698-01-01')");
+            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES ('Edward Teach', 'Blackbeard', 'Captain', 50000.00, 3, DATE '1716-11-22')");
+            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES ('Joshamee Gibbs', 'Mr. Gibbs', 'First Mate', 1000.00, 1, DATE '1719-03-10')");
+            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES ('Hector Barbossa', 'Barbossa', 'Quartermaster', 8000.00, 1, DATE '1701-07-04')");
+            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES ('Bootstrap Bill', 'Bootstrap', 'First Mate', 3000.00, 2, DATE '1699-05-30')");
+            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES ('Cotton', NULL, 'Sailor', 100.00, 1, DATE '1721-02-14')");
+            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES ('Marty', NULL, 'Sailor', 150.00, 1, DATE '1722-09-01')");
         }
         System.out.println("✅ Baza danych zainicjalizowana\n");
     }
@@ -0,0 +1,138 @@
+package pl.przemekzagorski.training.jdbc;
+
+import pl.przemekzagorski.training.jdbc.dao.JdbcPirateDao;
+import pl.przemekzagorski.training.jdbc.dao.PirateRowMapper;
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+/**
+ * Porównanie mapowania ResultSet → Pirate na szerokiej tabeli (domyślnie 1M wierszy).
+ *
+ * STARY: SELECT * + rs.getXxx("etykieta") w każdym wierszu
+ * NOWY:  SELECT lista_kolumn + indeksy rozwiązane raz (PirateRowMapper)
+ *
+ * Uruchom z większym heapem, np. -Xmx2g. Liczbę wierszy można podać jako argument.
+ */
+public class RowMapperBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:row_mapper_benchmark";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("🏴‍☠️ Row Mapper Benchmark");
+        System.out.println("========================\n");
+
+        try (Connection conn = DriverManager.getConnection(JDBC_URL, USER, PASSWORD)) {
+            setupDatabase(conn);
+            loadPirates(conn, rows);
+
+            String legacySql = "SELECT * FROM pirates";
+            String plannedSql = "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates";
+            PirateRowMapper mapper = new PirateRowMapper();
+
+            for (int round = 1; round <= ROUNDS; round++) {
+                long legacy = measure(conn, legacySql, rs -> mapByLabel(rs));
+                long planned = measure(conn, plannedSql, new PlannedMapping(mapper, plannedSql));
+                System.out.printf("   Runda %d: SELECT * + etykiety: %5d ms | lista kolumn + plan: %5d ms (%.2fx)%n",
+                        round, legacy, planned, (double) legacy / Math.max(planned, 1));
+            }
+
+            System.out.println("\n💡 Pierwsze rundy to rozgrzewka JIT - patrz na ostatnie wyniki.");
+        }
+    }
+
+    private static long measure(Connection conn, String sql, RowMapping mapping) throws SQLException {
+        long start = System.nanoTime();
+        long checksum = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                checksum += mapping.map(rs).getId();
+            }
+        }
+        if (checksum == 0) {
+            throw new IllegalStateException("Brak danych");
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /** Kopia dawnego JdbcPirateDao.mapRowToPirate - punkt odniesienia. */
+    private static Pirate mapByLabel(ResultSet rs) throws SQLException {
+        Pirate pirate = new Pirate();
+        pirate.setId(rs.getLong("id"));
+        pirate.setName(rs.getString("name"));
+        pirate.setNickname(rs.getString("nickname"));
+        pirate.setRank(rs.getString("rank"));
+        pirate.setBounty(rs.getBigDecimal("bounty"));
+        long shipId = rs.getLong("ship_id");
+        pirate.setShipId(rs.wasNull() ? null : shipId);
+        Date joinedAt = rs.getDate("joined_at");
+        pirate.setJoinedAt(joinedAt != null ? joinedAt.toLocalDate() : null);
+        return pirate;
+    }
+
+    @FunctionalInterface
+    private interface RowMapping {
+        Pirate map(ResultSet rs) throws SQLException;
+    }
+
+    private static class PlannedMapping implements RowMapping {
+
+        private final PirateRowMapper mapper;
+        private final String sql;
+        private PirateRowMapper.ColumnPlan plan;
+
+        PlannedMapping(PirateRowMapper mapper, String sql) {
+            this.mapper = mapper;
+            this.sql = sql;
+        }
+
+        @Override
+        public Pirate map(ResultSet rs) throws SQLException {
+            if (plan == null) {
+                plan = mapper.planFor(sql, rs);
+            }
+            return mapper.map(rs, plan);
+        }
+    }
+
+    private static void loadPirates(Connection conn, int rows) throws SQLException {
+        System.out.println("⏳ Ładowanie " + rows + " piratów...");
+        Iterator<Pirate> generator = IntStream.range(0, rows)
+                .mapToObj(i -> new Pirate("Pirate #" + i, i % 10 == 0 ? "Captain" : "Sailor",
+                        new BigDecimal(i % 10_000)))
+                .iterator();
+        conn.setAutoCommit(false);
+        System.out.println("   " + new JdbcPirateDao(conn).saveAll(generator, 1_000));
+        conn.commit();
+        conn.setAutoCommit(true);
+        System.out.println();
+    }
+
+    /** Dodatkowe kolumny udają "szeroką" tabelę - SELECT * przesyła je na darmo. */
+    private static void setupDatabase(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE pirates (
+                    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+                    name VARCHAR(100) NOT NULL,
+                    nickname VARCHAR(100),
+                    rank VARCHAR(50),
+                    bounty DECIMAL(15,2) DEFAULT 0,
+                    ship_id BIGINT,
+                    joined_at DATE,
+                    biography VARCHAR(500) DEFAULT 'Urodzony na Tortudze, wychowany przez rum i sztormy Karaibów.',
+                    last_port VARCHAR(100) DEFAULT 'Port Royal',
+                    reputation INT DEFAULT 0
+                )
+            """);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package pl.przemekzagorski.training.jdbc;
+
+import pl.przemekzagorski.training.jdbc.dao.JdbcPirateDao;
+import pl.przemekzagorski.training.jdbc.dao.PirateRowMapper;
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Porównanie: prepareStatement() przy każdym wywołaniu vs StatementCache w JdbcPirateDao.
+ *
+ * Pętla findById + update na tych samych piratach - typowy "gorący" kod serwisu.
+ * QUERY_CACHE_SIZE=0 wyłącza wewnętrzny cache zapytań H2, żeby było widać koszt parsowania
+ * (większość produkcyjnych baz parsuje SQL po stronie serwera przy każdym prepare).
+ */
+public class StatementCacheBenchmark {
+
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+    private static final int PIRATES = 1_000;
+    private static final int ITERATIONS = 200_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws SQLException {
+        System.out.println("🏴‍☠️ Statement Cache Benchmark");
+        System.out.println("=============================\n");
+
+        for (String url : new String[]{
+                "jdbc:h2:mem:stmt_cache_benchmark",
+                "jdbc:h2:mem:stmt_cache_benchmark_nocache;QUERY_CACHE_SIZE=0"}) {
+            System.out.println("📦 " + url);
+            try (Connection conn = DriverManager.getConnection(url, USER, PASSWORD)) {
+                setupDatabase(conn);
+                List<Long> ids = loadPirates(conn);
+
+                try (JdbcPirateDao dao = new JdbcPirateDao(conn)) {
+                    for (int round = 1; round <= ROUNDS; round++) {
+                        long uncached = measureUncached(conn, ids);
+                        long cached = measureCached(dao, ids);
+                        System.out.printf("   Runda %d: prepare za każdym razem: %5d ms | StatementCache: %5d ms (%.2fx)%n",
+                                round, uncached, cached, (double) uncached / Math.max(cached, 1));
+                    }
+                    System.out.println("   " + dao.getStatementCache() + "\n");
+                }
+            }
+        }
+    }
+
+    private static long measureCached(JdbcPirateDao dao, List<Long> ids) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Pirate pirate = dao.findById(ids.get(i % ids.size())).orElseThrow();
+            pirate.setBounty(BigDecimal.valueOf(i));
+            dao.update(pirate);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /** Tak działał JdbcPirateDao przed wprowadzeniem cache - ten sam SQL, nowy statement w każdym wywołaniu. */
+    private static long measureUncached(Connection conn, List<Long> ids) throws SQLException {
+        String selectSql = "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates WHERE id = ?";
+        String updateSql = "UPDATE pirates SET name = ?, nickname = ?, rank = ?, bounty = ? WHERE id = ?";
+        PirateRowMapper mapper = new PirateRowMapper();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Pirate pirate;
+            try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                stmt.setLong(1, ids.get(i % ids.size()));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    pirate = mapper.map(rs, mapper.planFor(selectSql, rs));
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                stmt.setString(1, pirate.getName());
+                stmt.setString(2, pirate.getNickname());
+                stmt.setString(3, pirate.getRank());
+                stmt.setBigDecimal(4, BigDecimal.valueOf(i));
+                stmt.setLong(5, pirate.getId());
+                stmt.executeUpdate();
+            }
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static List<Long> loadPirates(Connection conn) {
+        List<Pirate> crew = new ArrayList<>(PIRATES);
+        for (int i = 0; i < PIRATES; i++) {
+            crew.add(new Pirate("Pirate #" + i, "Sailor", BigDecimal.ZERO));
+        }
+        try (JdbcPirateDao dao = new JdbcPirateDao(conn)) {
+            dao.saveAll(crew);
+        }
+        return crew.stream().map(Pirate::getId).toList();
+    }
+
+    private static void setupDatabase(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE pirates (
+                    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+                    name VARCHAR(100) NOT NULL,
+                    nickname VARCHAR(100),
+                    rank VARCHAR(50),
+                    bounty DECIMAL(15,2) DEFAULT 0,
+                    ship_id BIGINT,
+                    joined_at DATE
+                )
+            """);
+        }
+    }
+}
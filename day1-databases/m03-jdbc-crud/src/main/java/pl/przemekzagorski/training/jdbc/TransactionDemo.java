@@ -1,11 +1,26 @@
 package pl.przemekzagorski.training.jdbc;
 
+import org.h2.jdbcx.JdbcDataSource;
+import pl.przemekzagorski.training.jdbc.tx.RetryPolicy;
+import pl.przemekzagorski.training.jdbc.tx.TransactionExecutor;
+import pl.przemekzagorski.training.jdbc.tx.TreasureTransferEngine;
+
 import java.math.BigDecimal;
 import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Demonstracja transakcji w JDBC.
  * Transakcja = zestaw operacji wykonywanych jako jedna całość.
+ *
+ * Transfer działa na TransactionExecutor: commit/rollback i ponawianie po konfliktach blokad
+ * są w jednym miejscu, a transferTreasure zawiera już tylko logikę biznesową.
  */
 public class TransactionDemo {
 
@@ -13,70 +28,80 @@ public class TransactionDemo {
     private static final String USER = "sa";
     private static final String PASSWORD = "";
 
-    public static void main(String[] args) throws SQLException {
+    public static void main(String[] args) throws Exception {
         System.out.println("🏴‍☠️ Transaction Demo - Transfer skarbu");
         System.out.println("========================================\n");
 
-        try (Connection conn = DriverManager.getConnection(JDBC_URL, USER, PASSWORD)) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        // krótki LOCK_TIMEOUT - równoległe transfery czekające na blokadę wiersza dostaną HYT00 i zostaną ponowione
+        dataSource.setURL(JDBC_URL + ";LOCK_TIMEOUT=20");
+        dataSource.setUser(USER);
+        dataSource.setPassword(PASSWORD);
+        TransactionExecutor tx = new TransactionExecutor(dataSource,
+                new RetryPolicy(10, Duration.ofMillis(5), Duration.ofMillis(200), 2.0));
+
+        // to połączenie trzyma bazę in-memory przy życiu i służy do podglądu stanu
+        try (Connection conn = dataSource.getConnection()) {
             setupDatabase(conn);
             showState(conn, "STAN POCZĄTKOWY");
 
             System.out.println("\nSCENARIUSZ 1: Udany transfer 5000 złota");
-            boolean success = transferTreasure(conn, 1, 1, new BigDecimal("5000"));
+            boolean success = transferTreasure(tx, 1, 1, new BigDecimal("5000"));
             System.out.println(success ? "✅ Transfer udany!" : "❌ Transfer nieudany!");
             showState(conn, "PO TRANSFERZE");
 
             System.out.println("\nSCENARIUSZ 2: Transfer 999999 złota (za dużo!)");
-            success = transferTreasure(conn, 1, 1, new BigDecimal("999999"));
+            success = transferTreasure(tx, 1, 1, new BigDecimal("999999"));
             System.out.println(success ? "✅ Transfer udany!" : "❌ Transfer nieudany!");
             showState(conn, "PO NIEUDANYM TRANSFERZE");
-        }
-    }
 
-    private static boolean transferTreasure(Connection conn, long islandId, long shipId,
-                                            BigDecimal amount) throws SQLException {
-        conn.setAutoCommit(false);
-        try {
-            BigDecimal islandTreasure = getIslandTreasure(conn, islandId);
-            if (islandTreasure.compareTo(amount) < 0) {
-                throw new SQLException("Za mało skarbu na wyspie!");
-            }
+            System.out.println("\nSCENARIUSZ 3: 1000 równoległych transferów po 10 złota (50 wątków)");
+            int succeeded = concurrentTransfers(tx, 50, 20, new BigDecimal("10"));
+            System.out.printf("✅ Udanych transferów: %d / 1000%n", succeeded);
+            showState(conn, "PO RÓWNOLEGŁYCH TRANSFERACH");
 
-            try (PreparedStatement stmt = conn.prepareStatement(
-                    "UPDATE islands SET treasure_value = treasure_value - ? WHERE id = ?")) {
-                stmt.setBigDecimal(1, amount);
-                stmt.setLong(2, islandId);
-                stmt.executeUpdate();
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(
-                    "UPDATE ships SET gold = gold + ? WHERE id = ?")) {
-                stmt.setBigDecimal(1, amount);
-                stmt.setLong(2, shipId);
-                stmt.executeUpdate();
-            }
+            System.out.println("\n📈 Metryki TransactionExecutor:");
+            System.out.println("   " + tx.getMetrics());
+        }
+    }
 
-            conn.commit();
-            return true;
-        } catch (SQLException e) {
-            System.out.println("   ⚠️ BŁĄD: " + e.getMessage());
-            conn.rollback();
+    /**
+     * Przenosi skarb z wyspy na statek w jednej transakcji (TreasureTransferEngine).
+     * Saldo jest sprawdzane w tym samym UPDATE, który je zmniejsza - bez wyścigu SELECT → UPDATE.
+     * Konflikt blokad (lock timeout, deadlock) jest ponawiany przez TransactionExecutor,
+     * brak skarbu kończy transfer od razu z rollbackiem.
+     */
+    static boolean transferTreasure(TransactionExecutor tx, long islandId, long shipId,
+                                    BigDecimal amount) throws SQLException {
+        boolean transferred = new TreasureTransferEngine(tx).transfer(islandId, shipId, amount);
+        if (!transferred) {
+            System.out.println("   ⚠️ BŁĄD: Za mało skarbu na wyspie!");
             System.out.println("   ↩️ ROLLBACK!");
-            return false;
-        } finally {
-            conn.setAutoCommit(true);
         }
+        return transferred;
     }
 
-    private static BigDecimal getIslandTreasure(Connection conn, long islandId) throws SQLException {
-        try (PreparedStatement stmt = conn.prepareStatement(
-                "SELECT treasure_value FROM islands WHERE id = ?")) {
-            stmt.setLong(1, islandId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) return rs.getBigDecimal("treasure_value");
-                throw new SQLException("Wyspa nie istnieje!");
+    private static int concurrentTransfers(TransactionExecutor tx, int threads, int transfersPerThread,
+                                           BigDecimal amount) throws InterruptedException, ExecutionException {
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    int ok = 0;
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        if (transferTreasure(tx, 1, 1, amount)) {
+                            ok++;
+                        }
+                    }
+                    return ok;
+                }));
             }
         }
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        return total;
     }
 
     private static void showState(Connection conn, String label) throws SQLException {
@@ -95,7 +120,7 @@ public class TransactionDemo {
         }
     }
 
-    private static void setupDatabase(Connection conn) throws SQLException {
+    static void setupDatabase(Connection conn) throws SQLException {
         try (Statement stmt = conn.createStatement()) {
             stmt.execute("CREATE TABLE islands (id BIGINT PRIMARY KEY, name VARCHAR(100), treasure_value DECIMAL(15,2))");
             stmt.execute("CREATE TABLE ships (id BIGINT PRIMARY KEY, name VARCHAR(100), gold DECIMAL(15,2))");
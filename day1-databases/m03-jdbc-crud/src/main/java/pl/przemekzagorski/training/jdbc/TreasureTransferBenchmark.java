@@ -0,0 +1,136 @@
+package pl.przemekzagorski.training.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import pl.przemekzagorski.training.jdbc.tx.RetryPolicy;
+import pl.przemekzagorski.training.jdbc.tx.TransactionExecutor;
+import pl.przemekzagorski.training.jdbc.tx.TreasureTransferEngine;
+import pl.przemekzagorski.training.jdbc.tx.TreasureTransferEngine.Transfer;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Przepustowość TreasureTransferEngine: wiele wątków, losowe transfery między 20 wyspami i 20 statkami.
+ *
+ * Dla paczek 1, 10 i 100 transferów na transakcję mierzy transfery/s, liczbę odrzuconych
+ * (wyspa bez skarbu) i ponowień, a na końcu sprawdza, że suma skarbu na wyspach i statkach
+ * się nie zmieniła. Liczba wątków w argumencie (domyślnie 8).
+ */
+public class TreasureTransferBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:transfer_benchmark;LOCK_TIMEOUT=100";
+    private static final int ISLANDS = 20;
+    private static final int SHIPS = 20;
+    private static final BigDecimal ISLAND_TREASURE = new BigDecimal("1000000.00");
+    private static final int TRANSFERS = 40_000;
+    private static final int[] BATCH_SIZES = {1, 10, 100};
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+
+        System.out.println("🏴‍☠️ Treasure Transfer Benchmark");
+        System.out.println("===============================\n");
+        System.out.printf("%d wątków, %,d transferów na rundę, %d wysp, %d statków%n%n", threads, TRANSFERS, ISLANDS, SHIPS);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(JDBC_URL);
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(threads);
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            setupDatabase(dataSource);
+            BigDecimal expectedTotal = totalTreasure(dataSource);
+
+            for (int batchSize : BATCH_SIZES) {
+                resetBalances(dataSource);
+                TransactionExecutor tx = new TransactionExecutor(dataSource,
+                        new RetryPolicy(20, Duration.ofMillis(1), Duration.ofMillis(100), 2.0));
+                TreasureTransferEngine engine = new TreasureTransferEngine(tx);
+
+                RunResult result = run(engine, threads, batchSize);
+                BigDecimal total = totalTreasure(dataSource);
+                System.out.printf("📦 paczka %3d: %,9.0f transferów/s | przyjęte %,6d | odrzucone %,6d | ponowienia %,5d | suma %s %s%n",
+                        batchSize, TRANSFERS / result.seconds(), result.accepted(), result.rejected(),
+                        tx.getMetrics().getRetries(), total,
+                        total.compareTo(expectedTotal) == 0 ? "✅" : "❌ (oczekiwano " + expectedTotal + ")");
+            }
+        }
+
+        System.out.println("\n💡 Blokady brane zawsze w kolejności id - brak deadlocków mimo transferów \"na krzyż\".");
+        System.out.println("   Większa paczka = mniej commitów (i fsync na bazie plikowej), ale dłużej trzymane blokady.");
+    }
+
+    private record RunResult(long accepted, long rejected, double seconds) {
+    }
+
+    private static RunResult run(TreasureTransferEngine engine, int threads, int batchSize) throws Exception {
+        LongAdder accepted = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        int perThread = TRANSFERS / threads;
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    List<Transfer> batch = new ArrayList<>(batchSize);
+                    for (int i = 0; i < perThread; i++) {
+                        batch.add(new Transfer(random.nextLong(1, ISLANDS + 1), random.nextLong(1, SHIPS + 1),
+                                BigDecimal.valueOf(random.nextLong(1, 1_000))));
+                        if (batch.size() == batchSize || i == perThread - 1) {
+                            TreasureTransferEngine.BatchResult result = engine.transferAll(batch);
+                            accepted.add(result.accepted());
+                            rejected.add(result.rejected().size());
+                            batch.clear();
+                        }
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return new RunResult(accepted.sum(), rejected.sum(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void setupDatabase(HikariDataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE islands (id BIGINT PRIMARY KEY, name VARCHAR(100), treasure_value DECIMAL(15,2))");
+            stmt.execute("CREATE TABLE ships (id BIGINT PRIMARY KEY, name VARCHAR(100), gold DECIMAL(15,2))");
+            for (int i = 1; i <= ISLANDS; i++) {
+                stmt.execute("INSERT INTO islands VALUES (" + i + ", 'Island " + i + "', 0)");
+            }
+            for (int i = 1; i <= SHIPS; i++) {
+                stmt.execute("INSERT INTO ships VALUES (" + i + ", 'Ship " + i + "', 0)");
+            }
+        }
+        resetBalances(dataSource);
+    }
+
+    private static void resetBalances(HikariDataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement islands = conn.prepareStatement("UPDATE islands SET treasure_value = ?");
+             Statement ships = conn.createStatement()) {
+            islands.setBigDecimal(1, ISLAND_TREASURE);
+            islands.executeUpdate();
+            ships.executeUpdate("UPDATE ships SET gold = 0");
+        }
+    }
+
+    private static BigDecimal totalTreasure(HikariDataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT (SELECT SUM(treasure_value) FROM islands) + (SELECT SUM(gold) FROM ships)")) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Asynchroniczna fasada nad JdbcPirateDao na wątkach wirtualnych.
+ *
+ * - każde wywołanie to osobny wątek wirtualny (tysiące równoległych zapytań nie blokują wątków platformy)
+ * - połączenie pożyczane z puli (DataSource) na czas jednego wywołania, nie jedno współdzielone Connection
+ * - Semaphore ogranicza równoległą pracę na bazie do rozmiaru puli: nadmiarowe wywołania czekają
+ *   tanio na wątku wirtualnym, zamiast ustawiać się w kolejce puli i dostawać connectionTimeout
+ *
+ * Strumieni (streamAll) tu nie ma - kursor trzyma połączenie, którego nie można oddać do puli
+ * przed zamknięciem strumienia. close() zamyka executor, ale nie DataSource.
+ */
+public class AsyncPirateDao implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Limit równoległości = maximumPoolSize puli.
+     */
+    public AsyncPirateDao(HikariDataSource dataSource) {
+        this(dataSource, dataSource.getMaximumPoolSize());
+    }
+
+    public AsyncPirateDao(DataSource dataSource, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency musi być większy od 0: " + maxConcurrency);
+        }
+        this.dataSource = dataSource;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    public CompletableFuture<Pirate> save(Pirate pirate) {
+        return submit(dao -> dao.save(pirate));
+    }
+
+    public CompletableFuture<Optional<Pirate>> findById(Long id) {
+        return submit(dao -> dao.findById(id));
+    }
+
+    public CompletableFuture<Map<Long, Pirate>> findAllById(Collection<Long> ids) {
+        return submit(dao -> dao.findAllById(ids));
+    }
+
+    public CompletableFuture<List<Pirate>> findAll() {
+        return submit(PirateDao::findAll);
+    }
+
+    public CompletableFuture<List<Pirate>> findByRank(String rank) {
+        return submit(dao -> dao.findByRank(rank));
+    }
+
+    public CompletableFuture<Void> update(Pirate pirate) {
+        return submit(dao -> {
+            dao.update(pirate);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> delete(Long id) {
+        return submit(dao -> {
+            dao.delete(id);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Long> count() {
+        return submit(PirateDao::count);
+    }
+
+    public CompletableFuture<BatchReport> saveAll(Collection<Pirate> pirates) {
+        return submit(dao -> dao.saveAll(pirates));
+    }
+
+    public CompletableFuture<Pirate> upsert(Pirate pirate) {
+        return submit(dao -> dao.upsert(pirate));
+    }
+
+    public CompletableFuture<PiratePage> findPage(Long afterId, int limit) {
+        return submit(dao -> dao.findPage(afterId, limit));
+    }
+
+    /**
+     * Ile wywołań może jeszcze od razu dostać połączenie.
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private <T> CompletableFuture<T> submit(Function<PirateDao, T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException("Przerwano oczekiwanie na połączenie", e);
+            }
+            try (Connection connection = dataSource.getConnection();
+                 JdbcPirateDao dao = new JdbcPirateDao(connection)) {
+                return work.apply(dao);
+            } catch (SQLException e) {
+                throw new RuntimeException("Błąd przy pobieraniu połączenia z puli", e);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
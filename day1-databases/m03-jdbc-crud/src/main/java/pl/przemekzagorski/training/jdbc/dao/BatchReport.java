@@ -0,0 +1,43 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import java.util.List;
+
+/**
+ * Raport z operacji wsadowej (addBatch/executeBatch).
+ * Zawiera czasy poszczególnych paczek - pomaga dobrać batchSize pod konkretną bazę.
+ */
+public record BatchReport(int rows, int batchSize, List<ChunkTiming> chunks) {
+
+    /**
+     * Czas jednej paczki: bindowanie parametrów + executeBatch + odczyt wygenerowanych kluczy.
+     */
+    public record ChunkTiming(int rows, long nanos) {
+
+        public double millis() {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    public BatchReport {
+        chunks = List.copyOf(chunks);
+    }
+
+    public long totalNanos() {
+        long total = 0;
+        for (ChunkTiming chunk : chunks) {
+            total += chunk.nanos();
+        }
+        return total;
+    }
+
+    public double rowsPerSecond() {
+        long total = totalNanos();
+        return total == 0 ? 0 : rows * 1_000_000_000.0 / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchReport{rows=%d, batchSize=%d, chunks=%d, total=%.1f ms, %.0f rows/s}",
+                rows, batchSize, chunks.size(), totalNanos() / 1_000_000.0, rowsPerSecond());
+    }
+}
@@ -0,0 +1,21 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+/**
+ * Migawka liczników cache.
+ *
+ * @param evictions   wpisy usunięte z powodu limitu rozmiaru
+ * @param expirations wpisy usunięte po upływie TTL
+ */
+public record CacheStats(long hits, long misses, long evictions, long expirations, int size) {
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{size=%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, expirations=%d}",
+                size, hits, misses, hitRate() * 100, evictions, expirations);
+    }
+}
@@ -0,0 +1,224 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Dekorator PirateDao z cache read-through (wzorzec Decorator - jak w m02-design-patterns).
+ *
+ * - findById / findAllById → cache piratów po ID
+ * - findByRank             → cache list per ranga
+ * - save / upsert / update / delete → unieważnienie dotkniętych wpisów
+ *
+ * Pirate jest mutowalny, więc cache trzyma i zwraca KOPIE - zmiana obiektu
+ * przez wywołującego bez update() nie psuje zawartości cache.
+ * findAll, strumienie, strony i count() idą zawsze do bazy.
+ *
+ * Współbieżność: trafienia w cache idą równolegle, ale każde wywołanie delegata (chybienie, zapis,
+ * findAll, ...) jest serializowane jedną blokadą. JdbcPirateDao nie jest bezpieczny wątkowo - jedno
+ * połączenie i współdzielone PreparedStatementy z StatementCache - więc bez tego dwa równoległe chybienia
+ * mogłyby nadpisać sobie parametry zapytania. Wyjątek: strumienie są leniwe i czytają z połączenia
+ * już po zwolnieniu blokady - przy delegacie niebezpiecznym wątkowo trzeba je konsumować,
+ * gdy nikt inny nie używa DAO.
+ */
+public class CachingPirateDao implements PirateDao {
+
+    private final PirateDao delegate;
+    private final TtlCache<Long, Pirate> byId;
+    private final TtlCache<String, List<Pirate>> byRank;
+    private final ReentrantLock delegateLock = new ReentrantLock();
+
+    public CachingPirateDao(PirateDao delegate, int maxEntries, Duration ttl) {
+        this(delegate, maxEntries, ttl, System::nanoTime);
+    }
+
+    CachingPirateDao(PirateDao delegate, int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.byId = new TtlCache<>(maxEntries, ttl.toNanos(), nanoClock);
+        this.byRank = new TtlCache<>(maxEntries, ttl.toNanos(), nanoClock);
+    }
+
+    @Override
+    public Pirate save(Pirate pirate) {
+        Pirate saved = locked(() -> delegate.save(pirate));
+        byRank.invalidate(saved.getRank());
+        return saved;
+    }
+
+    @Override
+    public BatchReport saveAll(Iterator<Pirate> pirates, int batchSize) {
+        try {
+            return locked(() -> delegate.saveAll(pirates, batchSize));
+        } finally {
+            byRank.invalidateAll();
+        }
+    }
+
+    @Override
+    public Pirate upsert(Pirate pirate) {
+        try {
+            return locked(() -> delegate.upsert(pirate));
+        } finally {
+            if (pirate.getId() != null) {
+                byId.invalidate(pirate.getId());
+            }
+            byRank.invalidateAll();
+        }
+    }
+
+    @Override
+    public BatchReport upsertAll(Collection<Pirate> pirates, int batchSize) {
+        try {
+            return locked(() -> delegate.upsertAll(pirates, batchSize));
+        } finally {
+            byId.invalidateAll();
+            byRank.invalidateAll();
+        }
+    }
+
+    @Override
+    public Optional<Pirate> findById(Long id) {
+        Pirate cached = byId.get(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        long generation = byId.generation();
+        Optional<Pirate> loaded = locked(() -> delegate.findById(id));
+        loaded.ifPresent(pirate -> byId.put(id, copy(pirate), generation));
+        return loaded;
+    }
+
+    @Override
+    public Map<Long, Pirate> findAllById(Collection<Long> ids) {
+        Map<Long, Pirate> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Pirate cached = id != null ? byId.get(id) : null;
+            if (cached != null) {
+                result.put(id, copy(cached));
+            } else if (id != null) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long generation = byId.generation();
+            Map<Long, Pirate> loaded = locked(() -> delegate.findAllById(missing));
+            loaded.forEach((id, pirate) -> byId.put(id, copy(pirate), generation));
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Pirate> findByRank(String rank) {
+        List<Pirate> cached = byRank.get(rank);
+        if (cached != null) {
+            return copyAll(cached);
+        }
+        long generation = byRank.generation();
+        List<Pirate> loaded = locked(() -> delegate.findByRank(rank));
+        byRank.put(rank, List.copyOf(copyAll(loaded)), generation);
+        return loaded;
+    }
+
+    /**
+     * Ranga mogła się zmienić, a starej nie znamy - czyścimy wszystkie listy rang.
+     */
+    @Override
+    public void update(Pirate pirate) {
+        try {
+            lockedRun(() -> delegate.update(pirate));
+        } finally {
+            byId.invalidate(pirate.getId());
+            byRank.invalidateAll();
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        try {
+            lockedRun(() -> delegate.delete(id));
+        } finally {
+            byId.invalidate(id);
+            byRank.invalidateAll();
+        }
+    }
+
+    @Override
+    public List<Pirate> findAll() {
+        return locked(delegate::findAll);
+    }
+
+    @Override
+    public long count() {
+        return locked(delegate::count);
+    }
+
+    @Override
+    public Stream<Pirate> streamAll() {
+        return locked(delegate::streamAll);
+    }
+
+    @Override
+    public Stream<Pirate> streamByRank(String rank) {
+        return locked(() -> delegate.streamByRank(rank));
+    }
+
+    @Override
+    public PiratePage findPage(Long afterId, int limit) {
+        return locked(() -> delegate.findPage(afterId, limit));
+    }
+
+    @Override
+    public PiratePage findByRankPage(String rank, String afterName, Long afterId, int limit) {
+        return locked(() -> delegate.findByRankPage(rank, afterName, afterId, limit));
+    }
+
+    public CacheStats getEntityCacheStats() {
+        return byId.stats();
+    }
+
+    public CacheStats getRankCacheStats() {
+        return byRank.stats();
+    }
+
+    private <T> T locked(Supplier<T> call) {
+        delegateLock.lock();
+        try {
+            return call.get();
+        } finally {
+            delegateLock.unlock();
+        }
+    }
+
+    private void lockedRun(Runnable call) {
+        locked(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private static List<Pirate> copyAll(List<Pirate> pirates) {
+        List<Pirate> copies = new ArrayList<>(pirates.size());
+        for (Pirate pirate : pirates) {
+            copies.add(copy(pirate));
+        }
+        return copies;
+    }
+
+    private static Pirate copy(Pirate p) {
+        return new Pirate(p.getId(), p.getName(), p.getNickname(), p.getRank(),
+                p.getBounty(), p.getShipId(), p.getJoinedAt());
+    }
+}
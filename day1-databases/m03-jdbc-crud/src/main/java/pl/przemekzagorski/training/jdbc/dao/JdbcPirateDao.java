@@ -3,38 +3,94 @@ package pl.przemekzagorski.training.jdbc.dao;
 import pl.przemekzagorski.training.jdbc.model.Pirate;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementacja PirateDao używająca JDBC.
+ *
+ * Pojedyncze operacje (findById, update, ...) korzystają ze StatementCache -
+ * DAO trzyma jedno długo żyjące połączenie, więc statementy przygotowujemy raz.
+ * close() zwalnia statementy z cache (połączenie zamyka właściciel).
  */
-public class JdbcPirateDao implements PirateDao {
+public class JdbcPirateDao implements PirateDao, AutoCloseable {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    /** Składnia H2: wiersz o danym id jest aktualizowany, a jeśli go nie ma - wstawiany. */
+    private static final String MERGE_SQL =
+            "MERGE INTO pirates (name, nickname, rank, bounty, ship_id, joined_at, id) KEY(id)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /** Następna wartość, którą wygeneruje AUTO_INCREMENT kolumny id (H2 2.x). */
+    private static final String IDENTITY_BASE_SQL =
+            "SELECT IDENTITY_BASE FROM INFORMATION_SCHEMA.COLUMNS"
+                    + " WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'PIRATES' AND COLUMN_NAME = 'ID'";
+
+    /**
+     * Ile wierszy sterownik pobiera naraz przy odczycie strumieniowym.
+     * Uwaga: H2 embedded w pełni strumieniuje dopiero z LAZY_QUERY_EXECUTION=1 w URL.
+     */
+    static final int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Największa strona findPage / findByRankPage - strona i tak ląduje w pamięci (lista),
+     * a zapytanie prosi o limit + 1 wierszy, więc limit nie może dojść do Integer.MAX_VALUE.
+     */
+    static final int MAX_PAGE_SIZE = 10_000;
+
+    /**
+     * Dozwolone długości listy IN - krótsza paczka jest dopełniana powtórzeniem ostatniego ID.
+     * Dzięki temu findAllById generuje najwyżej 4 różne teksty SQL (i 4 wpisy w StatementCache).
+     */
+    static final int[] IN_LIST_SIZES = {1, 8, 32, 128};
+
+    private static final String[] IN_LIST_SQL = new String[IN_LIST_SIZES.length];
+
+    static {
+        for (int i = 0; i < IN_LIST_SIZES.length; i++) {
+            String placeholders = String.join(", ", Collections.nCopies(IN_LIST_SIZES[i], "?"));
+            IN_LIST_SQL[i] = "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates WHERE id IN (" + placeholders + ")";
+        }
+    }
+
+    /** Plany kolumn są współdzielone przez wszystkie instancje DAO (klucz = tekst SQL). */
+    private static final PirateRowMapper ROW_MAPPER = new PirateRowMapper();
 
     private final Connection connection;
+    private final StatementCache statements;
 
     public JdbcPirateDao(Connection connection) {
+        this(connection, StatementCache.DEFAULT_MAX_SIZE);
+    }
+
+    public JdbcPirateDao(Connection connection, int statementCacheSize) {
         this.connection = connection;
+        this.statements = new StatementCache(connection, statementCacheSize);
+    }
+
+    public StatementCache getStatementCache() {
+        return statements;
     }
 
     @Override
     public Pirate save(Pirate pirate) {
-        String sql = "INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, pirate.getName());
-            stmt.setString(2, pirate.getNickname());
-            stmt.setString(3, pirate.getRank());
-            stmt.setBigDecimal(4, pirate.getBounty());
-            if (pirate.getShipId() != null) {
-                stmt.setLong(5, pirate.getShipId());
-            } else {
-                stmt.setNull(5, Types.BIGINT);
-            }
-            if (pirate.getJoinedAt() != null) {
-                stmt.setDate(6, Date.valueOf(pirate.getJoinedAt()));
-            } else {
-                stmt.setNull(6, Types.DATE);
-            }
+        try {
+            PreparedStatement stmt = statements.prepare(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            bindInsert(stmt, pirate);
             stmt.executeUpdate();
             try (ResultSet keys = stmt.getGeneratedKeys()) {
                 if (keys.next()) {
@@ -47,14 +103,174 @@ public class JdbcPirateDao implements PirateDao {
         }
     }
 
+    /**
+     * Jeden PreparedStatement na cały import, wiersze wysyłane paczkami po batchSize.
+     * Transakcją steruje wywołujący - przy autoCommit=true każda paczka jest commitowana osobno.
+     * Statement nie trafia do cache - jest przygotowywany raz na cały import.
+     */
+    @Override
+    public BatchReport saveAll(Iterator<Pirate> pirates, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize musi być większy od 0: " + batchSize);
+        }
+        List<BatchReport.ChunkTiming> timings = new ArrayList<>();
+        List<Pirate> chunk = new ArrayList<>(batchSize);
+        int rows = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            long chunkStart = System.nanoTime();
+            while (pirates.hasNext()) {
+                Pirate pirate = pirates.next();
+                bindInsert(stmt, pirate);
+                stmt.addBatch();
+                chunk.add(pirate);
+                if (chunk.size() == batchSize) {
+                    timings.add(executeInsertChunk(stmt, chunk, chunkStart));
+                    rows += chunk.size();
+                    chunk.clear();
+                    chunkStart = System.nanoTime();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                timings.add(executeInsertChunk(stmt, chunk, chunkStart));
+                rows += chunk.size();
+            }
+            return new BatchReport(rows, batchSize, timings);
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy zapisie wsadowym piratów (zapisano " + rows + ")", e);
+        }
+    }
+
+    private BatchReport.ChunkTiming executeInsertChunk(PreparedStatement stmt, List<Pirate> chunk,
+                                                       long chunkStart) throws SQLException {
+        stmt.executeBatch();
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            int i = 0;
+            while (keys.next() && i < chunk.size()) {
+                chunk.get(i++).setId(keys.getLong(1));
+            }
+            if (i != chunk.size()) {
+                throw new SQLException("Sterownik zwrócił " + i + " kluczy dla " + chunk.size() + " wierszy");
+            }
+        }
+        return new BatchReport.ChunkTiming(chunk.size(), System.nanoTime() - chunkStart);
+    }
+
+    private void bindInsert(PreparedStatement stmt, Pirate pirate) throws SQLException {
+        stmt.setString(1, pirate.getName());
+        stmt.setString(2, pirate.getNickname());
+        stmt.setString(3, pirate.getRank());
+        stmt.setBigDecimal(4, pirate.getBounty());
+        if (pirate.getShipId() != null) {
+            stmt.setLong(5, pirate.getShipId());
+        } else {
+            stmt.setNull(5, Types.BIGINT);
+        }
+        if (pirate.getJoinedAt() != null) {
+            stmt.setDate(6, Date.valueOf(pirate.getJoinedAt()));
+        } else {
+            stmt.setNull(6, Types.DATE);
+        }
+    }
+
+    /**
+     * Pirat bez id jest wstawiany (save), z id - MERGE po kluczu.
+     * MERGE z jawnym id nie przesuwa licznika AUTO_INCREMENT - jeśli id jest poza licznikiem,
+     * licznik jest przestawiany na MAX(id) + 1, żeby kolejny save() nie trafił w zajęty klucz.
+     */
+    @Override
+    public Pirate upsert(Pirate pirate) {
+        if (pirate.getId() == null) {
+            return save(pirate);
+        }
+        try {
+            PreparedStatement stmt = statements.prepare(MERGE_SQL);
+            bindInsert(stmt, pirate);
+            stmt.setLong(7, pirate.getId());
+            stmt.executeUpdate();
+            advanceIdentityPast(pirate.getId());
+            return pirate;
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy upsert pirata", e);
+        }
+    }
+
+    /**
+     * Piraci z id idą paczkami przez MERGE, nowi (bez id) - przez saveAll.
+     * Jeden round trip na paczkę zamiast findById + insert/update na każdy wiersz.
+     */
+    @Override
+    public BatchReport upsertAll(Collection<Pirate> pirates, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize musi być większy od 0: " + batchSize);
+        }
+        List<Pirate> newPirates = new ArrayList<>();
+        List<BatchReport.ChunkTiming> timings = new ArrayList<>();
+        int rows = 0;
+        long maxMergedId = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(MERGE_SQL)) {
+            int pending = 0;
+            long chunkStart = System.nanoTime();
+            for (Pirate pirate : pirates) {
+                if (pirate.getId() == null) {
+                    newPirates.add(pirate);
+                    continue;
+                }
+                bindInsert(stmt, pirate);
+                stmt.setLong(7, pirate.getId());
+                stmt.addBatch();
+                maxMergedId = Math.max(maxMergedId, pirate.getId());
+                if (++pending == batchSize) {
+                    stmt.executeBatch();
+                    timings.add(new BatchReport.ChunkTiming(pending, System.nanoTime() - chunkStart));
+                    rows += pending;
+                    pending = 0;
+                    chunkStart = System.nanoTime();
+                }
+            }
+            if (pending > 0) {
+                stmt.executeBatch();
+                timings.add(new BatchReport.ChunkTiming(pending, System.nanoTime() - chunkStart));
+                rows += pending;
+            }
+            // przed saveAll - nowi piraci nie mogą dostać id wstawionych właśnie przez MERGE
+            advanceIdentityPast(maxMergedId);
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy wsadowym upsert piratów (zapisano " + rows + ")", e);
+        }
+        if (!newPirates.isEmpty()) {
+            BatchReport inserted = saveAll(newPirates.iterator(), batchSize);
+            timings.addAll(inserted.chunks());
+            rows += inserted.rows();
+        }
+        return new BatchReport(rows, batchSize, timings);
+    }
+
+    /**
+     * Przestawia AUTO_INCREMENT na MAX(id) + 1, jeśli licznik nie wyszedł jeszcze poza id.
+     * Zwykły MERGE istniejącego wiersza (id poniżej licznika) nie wykonuje DDL.
+     */
+    private void advanceIdentityPast(long id) throws SQLException {
+        try (ResultSet rs = statements.prepare(IDENTITY_BASE_SQL).executeQuery()) {
+            if (!rs.next() || rs.getLong(1) > id) {
+                return;
+            }
+        }
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM pirates")) {
+            rs.next();
+            stmt.execute("ALTER TABLE pirates ALTER COLUMN id RESTART WITH " + (rs.getLong(1) + 1));
+        }
+    }
+
     @Override
     public Optional<Pirate> findById(Long id) {
-        String sql = "SELECT * FROM pirates WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        String sql = "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates WHERE id = ?";
+        try {
+            PreparedStatement stmt = statements.prepare(sql);
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapRowToPirate(rs));
+                    return Optional.of(ROW_MAPPER.map(rs, ROW_MAPPER.planFor(sql, rs)));
                 }
                 return Optional.empty();
             }
@@ -63,14 +279,51 @@ public class JdbcPirateDao implements PirateDao {
         }
     }
 
+    @Override
+    public Map<Long, Pirate> findAllById(Collection<Long> ids) {
+        List<Long> unique = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, Pirate> pirates = new HashMap<>();
+        int maxChunk = IN_LIST_SIZES[IN_LIST_SIZES.length - 1];
+        try {
+            for (int from = 0; from < unique.size(); from += maxChunk) {
+                List<Long> chunk = unique.subList(from, Math.min(from + maxChunk, unique.size()));
+                int shape = inListShape(chunk.size());
+                String sql = IN_LIST_SQL[shape];
+                PreparedStatement stmt = statements.prepare(sql);
+                for (int i = 0; i < IN_LIST_SIZES[shape]; i++) {
+                    stmt.setLong(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    PirateRowMapper.ColumnPlan plan = ROW_MAPPER.planFor(sql, rs);
+                    while (rs.next()) {
+                        Pirate pirate = ROW_MAPPER.map(rs, plan);
+                        pirates.put(pirate.getId(), pirate);
+                    }
+                }
+            }
+            return pirates;
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy pobieraniu piratów po ID", e);
+        }
+    }
+
+    private static int inListShape(int count) {
+        for (int i = 0; i < IN_LIST_SIZES.length; i++) {
+            if (count <= IN_LIST_SIZES[i]) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Paczka większa niż " + IN_LIST_SIZES[IN_LIST_SIZES.length - 1]);
+    }
+
     @Override
     public List<Pirate> findAll() {
-        String sql = "SELECT * FROM pirates ORDER BY id";
+        String sql = "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates ORDER BY id";
         List<Pirate> pirates = new ArrayList<>();
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ResultSet rs = statements.prepare(sql).executeQuery()) {
+            PirateRowMapper.ColumnPlan plan = ROW_MAPPER.planFor(sql, rs);
             while (rs.next()) {
-                pirates.add(mapRowToPirate(rs));
+                pirates.add(ROW_MAPPER.map(rs, plan));
             }
             return pirates;
         } catch (SQLException e) {
@@ -80,13 +333,15 @@ public class JdbcPirateDao implements PirateDao {
 
     @Override
     public List<Pirate> findByRank(String rank) {
-        String sql = "SELECT * FROM pirates WHERE rank = ? ORDER BY name";
+        String sql = "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates WHERE rank = ? ORDER BY name";
         List<Pirate> pirates = new ArrayList<>();
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try {
+            PreparedStatement stmt = statements.prepare(sql);
             stmt.setString(1, rank);
             try (ResultSet rs = stmt.executeQuery()) {
+                PirateRowMapper.ColumnPlan plan = ROW_MAPPER.planFor(sql, rs);
                 while (rs.next()) {
-                    pirates.add(mapRowToPirate(rs));
+                    pirates.add(ROW_MAPPER.map(rs, plan));
                 }
             }
             return pirates;
@@ -95,10 +350,73 @@ public class JdbcPirateDao implements PirateDao {
         }
     }
 
+    @Override
+    public Stream<Pirate> streamAll() {
+        return stream("SELECT " + PirateRowMapper.COLUMNS + " FROM pirates ORDER BY id", stmt -> { });
+    }
+
+    @Override
+    public Stream<Pirate> streamByRank(String rank) {
+        return stream("SELECT " + PirateRowMapper.COLUMNS + " FROM pirates WHERE rank = ? ORDER BY name",
+                stmt -> stmt.setString(1, rank));
+    }
+
+    @Override
+    public PiratePage findPage(Long afterId, int limit) {
+        checkLimit(limit);
+        String sql = afterId == null
+                ? "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates ORDER BY id LIMIT ?"
+                : "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates WHERE id > ? ORDER BY id LIMIT ?";
+        try {
+            PreparedStatement stmt = statements.prepare(sql);
+            int index = 1;
+            if (afterId != null) {
+                stmt.setLong(index++, afterId);
+            }
+            stmt.setInt(index, limit + 1);
+            return toPage(fetchPage(sql, stmt), limit, last -> new PiratePage.Cursor(null, last.getId()));
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy pobieraniu strony piratów", e);
+        }
+    }
+
+    /**
+     * "name >= ?" pozwala użyć zakresu na indeksie (rank, name, id),
+     * "(name > ? OR id > ?)" odcina wiersze z tym samym imieniem, które już były.
+     */
+    @Override
+    public PiratePage findByRankPage(String rank, String afterName, Long afterId, int limit) {
+        checkLimit(limit);
+        if ((afterName == null) != (afterId == null)) {
+            throw new IllegalArgumentException("Kursor wymaga obu wartości: afterName i afterId");
+        }
+        String sql = afterId == null
+                ? "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates WHERE rank = ?"
+                        + " ORDER BY name, id LIMIT ?"
+                : "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates WHERE rank = ?"
+                        + " AND name >= ? AND (name > ? OR id > ?) ORDER BY name, id LIMIT ?";
+        try {
+            PreparedStatement stmt = statements.prepare(sql);
+            int index = 1;
+            stmt.setString(index++, rank);
+            if (afterId != null) {
+                stmt.setString(index++, afterName);
+                stmt.setString(index++, afterName);
+                stmt.setLong(index++, afterId);
+            }
+            stmt.setInt(index, limit + 1);
+            return toPage(fetchPage(sql, stmt), limit,
+                    last -> new PiratePage.Cursor(last.getName(), last.getId()));
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy pobieraniu strony piratów", e);
+        }
+    }
+
     @Override
     public void update(Pirate pirate) {
         String sql = "UPDATE pirates SET name = ?, nickname = ?, rank = ?, bounty = ? WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try {
+            PreparedStatement stmt = statements.prepare(sql);
             stmt.setString(1, pirate.getName());
             stmt.setString(2, pirate.getNickname());
             stmt.setString(3, pirate.getRank());
@@ -113,7 +431,8 @@ public class JdbcPirateDao implements PirateDao {
     @Override
     public void delete(Long id) {
         String sql = "DELETE FROM pirates WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try {
+            PreparedStatement stmt = statements.prepare(sql);
             stmt.setLong(1, id);
             stmt.executeUpdate();
         } catch (SQLException e) {
@@ -124,8 +443,7 @@ public class JdbcPirateDao implements PirateDao {
     @Override
     public long count() {
         String sql = "SELECT COUNT(*) FROM pirates";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ResultSet rs = statements.prepare(sql).executeQuery()) {
             if (rs.next()) {
                 return rs.getLong(1);
             }
@@ -135,18 +453,107 @@ public class JdbcPirateDao implements PirateDao {
         }
     }
 
-    private Pirate mapRowToPirate(ResultSet rs) throws SQLException {
-        Pirate pirate = new Pirate();
-        pirate.setId(rs.getLong("id"));
-        pirate.setName(rs.getString("name"));
-        pirate.setNickname(rs.getString("nickname"));
-        pirate.setRank(rs.getString("rank"));
-        pirate.setBounty(rs.getBigDecimal("bounty"));
-        long shipId = rs.getLong("ship_id");
-        pirate.setShipId(rs.wasNull() ? null : shipId);
-        Date joinedAt = rs.getDate("joined_at");
-        pirate.setJoinedAt(joinedAt != null ? joinedAt.toLocalDate() : null);
-        return pirate;
+    @Override
+    public void close() {
+        try {
+            statements.close();
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy zamykaniu statementów DAO", e);
+        }
     }
-}
 
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit musi być w zakresie 1.." + MAX_PAGE_SIZE + ": " + limit);
+        }
+    }
+
+    private List<Pirate> fetchPage(String sql, PreparedStatement stmt) throws SQLException {
+        List<Pirate> pirates = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            PirateRowMapper.ColumnPlan plan = ROW_MAPPER.planFor(sql, rs);
+            while (rs.next()) {
+                pirates.add(ROW_MAPPER.map(rs, plan));
+            }
+        }
+        return pirates;
+    }
+
+    /**
+     * Pobieramy limit + 1 wierszy: nadmiarowy wiersz oznacza, że istnieje następna strona.
+     */
+    private static PiratePage toPage(List<Pirate> pirates, int limit,
+                                     Function<Pirate, PiratePage.Cursor> cursorOf) {
+        if (pirates.size() <= limit) {
+            return new PiratePage(pirates, null);
+        }
+        List<Pirate> content = pirates.subList(0, limit);
+        return new PiratePage(content, cursorOf.apply(content.get(limit - 1)));
+    }
+
+    /**
+     * Kursor forward-only/read-only opakowany w Stream.
+     * Statement i ResultSet zamykane są w onClose() - dlatego strumień trzeba zamknąć.
+     */
+    private Stream<Pirate> stream(String sql, StatementBinder binder) {
+        PreparedStatement stmt = null;
+        try {
+            stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            binder.bind(stmt);
+            ResultSet rs = stmt.executeQuery();
+            PreparedStatement openStmt = stmt;
+            PirateSpliterator rows = new PirateSpliterator(rs, ROW_MAPPER.planFor(sql, rs));
+            return StreamSupport.stream(rows, false)
+                    .onClose(() -> closeCursor(rs, openStmt));
+        } catch (SQLException e) {
+            RuntimeException failure = new RuntimeException("Błąd przy otwieraniu kursora piratów", e);
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (SQLException closeError) {
+                    failure.addSuppressed(closeError);
+                }
+            }
+            throw failure;
+        }
+    }
+
+    private static void closeCursor(ResultSet rs, Statement stmt) {
+        try (stmt; rs) {
+            // try-with-resources zamyka oba zasoby (null jest pomijany)
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy zamykaniu kursora piratów", e);
+        }
+    }
+
+    private static class PirateSpliterator extends Spliterators.AbstractSpliterator<Pirate> {
+
+        private final ResultSet rs;
+        private final PirateRowMapper.ColumnPlan plan;
+
+        PirateSpliterator(ResultSet rs, PirateRowMapper.ColumnPlan plan) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.rs = rs;
+            this.plan = plan;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Pirate> action) {
+            try {
+                if (!rs.next()) {
+                    return false;
+                }
+                action.accept(ROW_MAPPER.map(rs, plan));
+                return true;
+            } catch (SQLException e) {
+                throw new RuntimeException("Błąd przy odczycie kursora piratów", e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+}
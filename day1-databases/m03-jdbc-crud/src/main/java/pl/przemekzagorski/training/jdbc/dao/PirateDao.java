@@ -1,13 +1,20 @@
 package pl.przemekzagorski.training.jdbc.dao;
 
 import pl.przemekzagorski.training.jdbc.model.Pirate;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interfejs DAO (Data Access Object) dla piratów.
  */
 public interface PirateDao {
+
+    int DEFAULT_BATCH_SIZE = 500;
+
     Pirate save(Pirate pirate);
     Optional<Pirate> findById(Long id);
     List<Pirate> findAll();
@@ -15,5 +22,48 @@ public interface PirateDao {
     void update(Pirate pirate);
     void delete(Long id);
     long count();
-}
 
+    /**
+     * Pobranie wielu piratów naraz (zamiast N razy findById). Brakujących ID nie ma w mapie.
+     */
+    Map<Long, Pirate> findAllById(Collection<Long> ids);
+
+    /**
+     * Zapis wsadowy - wygenerowane ID trafiają z powrotem do obiektów Pirate.
+     */
+    default BatchReport saveAll(Collection<Pirate> pirates) {
+        return saveAll(pirates.iterator(), DEFAULT_BATCH_SIZE);
+    }
+
+    BatchReport saveAll(Iterator<Pirate> pirates, int batchSize);
+
+    /**
+     * Zapis idempotentny: pirat z id jest wstawiany albo nadpisywany, pirat bez id - wstawiany.
+     */
+    Pirate upsert(Pirate pirate);
+
+    default BatchReport upsertAll(Collection<Pirate> pirates) {
+        return upsertAll(pirates, DEFAULT_BATCH_SIZE);
+    }
+
+    BatchReport upsertAll(Collection<Pirate> pirates, int batchSize);
+
+    /**
+     * Strumieniowy odczyt - wiersze mapowane leniwie, bez ładowania całej tabeli do pamięci.
+     * Strumień trzyma otwarty kursor, więc ZAWSZE zamykaj go (try-with-resources).
+     */
+    Stream<Pirate> streamAll();
+
+    Stream<Pirate> streamByRank(String rank);
+
+    /**
+     * Paginacja keyset po id: afterId = null → pierwsza strona, potem page.next().afterId().
+     */
+    PiratePage findPage(Long afterId, int limit);
+
+    /**
+     * Paginacja keyset w kolejności (name, id) dla danej rangi.
+     * Na pierwszą stronę przekaż afterName = null i afterId = null.
+     */
+    PiratePage findByRankPage(String rank, String afterName, Long afterId, int limit);
+}
@@ -0,0 +1,71 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Zestawienie załogi per ranga - wynik jednego zapytania PirateStatsDao.
+ *
+ * Kwoty w groszach (long) zamiast BigDecimal: DECIMAL(15,2) mieści się w long bez utraty
+ * precyzji, a dashboard z setkami rang nie tworzy tysięcy obiektów BigDecimal.
+ *
+ * @param pirates         liczba wszystkich piratów
+ * @param ships           liczba różnych wartości ship_id w całej tabeli (COUNT DISTINCT, NULL pominięte)
+ * @param bountyCents     suma nagród wszystkich piratów
+ */
+public record PirateDashboard(List<RankStats> ranks, long pirates, long ships, long bountyCents) {
+
+    public PirateDashboard {
+        ranks = List.copyOf(ranks);
+    }
+
+    /**
+     * Statystyki jednej rangi (rank = null dla piratów bez rangi).
+     *
+     * @param ships           liczba różnych ship_id w tej randze (bez NULL)
+     * @param bountyCount     ilu piratów ma wpisaną nagrodę (AVG pomija NULL)
+     * @param maxBountyCents  najwyższa nagroda albo -1, gdy nikt nie ma nagrody
+     * @param firstDecade     pierwsza dekada histogramu (np. 1700); decadeCounts[i] = dekada firstDecade + 10·i
+     * @param unknownJoinDate piraci bez joined_at
+     */
+    public record RankStats(String rank, long pirates, long bountyCount, long bountyCents, long maxBountyCents,
+                            long ships, int firstDecade, long[] decadeCounts, long unknownJoinDate) {
+
+        public double avgBountyCents() {
+            return bountyCount == 0 ? 0 : (double) bountyCents / bountyCount;
+        }
+
+        /**
+         * @param decade rok podzielny przez 10, np. 1710
+         */
+        public long joinedInDecade(int decade) {
+            int index = (decade - firstDecade) / 10;
+            return decade % 10 != 0 || index < 0 || index >= decadeCounts.length ? 0 : decadeCounts[index];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RankStats other
+                    && Objects.equals(rank, other.rank)
+                    && pirates == other.pirates && bountyCount == other.bountyCount
+                    && bountyCents == other.bountyCents && maxBountyCents == other.maxBountyCents
+                    && ships == other.ships && firstDecade == other.firstDecade
+                    && Arrays.equals(decadeCounts, other.decadeCounts) && unknownJoinDate == other.unknownJoinDate;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hash(rank, pirates, bountyCount, bountyCents, maxBountyCents, ships,
+                    firstDecade, unknownJoinDate) + Arrays.hashCode(decadeCounts);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-14s piratów=%d, statków=%d, suma=%.2f, średnio=%.2f, max=%s, dekady od %d: %s, bez daty=%d",
+                    rank, pirates, ships, bountyCents / 100.0, avgBountyCents() / 100.0,
+                    maxBountyCents < 0 ? "-" : String.format("%.2f", maxBountyCents / 100.0),
+                    firstDecade, Arrays.toString(decadeCounts), unknownJoinDate);
+        }
+    }
+}
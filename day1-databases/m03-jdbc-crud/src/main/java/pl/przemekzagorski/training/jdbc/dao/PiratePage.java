@@ -0,0 +1,29 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+import java.util.List;
+
+/**
+ * Strona wyników paginacji keyset (seek).
+ *
+ * Zamiast numeru strony (OFFSET) niesie kursor - klucz ostatniego wiersza.
+ * Kolejne zapytanie zaczyna od "WHERE klucz > kursor", więc koszt nie rośnie z głębokością.
+ *
+ * @param content piraci na tej stronie
+ * @param next    kursor następnej strony albo null, jeśli to ostatnia strona
+ */
+public record PiratePage(List<Pirate> content, Cursor next) {
+
+    /**
+     * Klucz ostatniego wiersza strony. afterName jest null dla paginacji po samym id.
+     */
+    public record Cursor(String afterName, Long afterId) {}
+
+    public PiratePage {
+        content = List.copyOf(content);
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
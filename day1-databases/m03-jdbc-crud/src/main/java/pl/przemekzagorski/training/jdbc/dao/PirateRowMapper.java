@@ -0,0 +1,96 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapper ResultSet → Pirate oparty o indeksy kolumn.
+ *
+ * rs.getString("name") w każdym wierszu = wyszukanie etykiety w metadanych.
+ * Tu indeksy rozwiązujemy RAZ na zapytanie (ResultSetMetaData) i zapamiętujemy
+ * plan per tekst SQL - kolejne wykonania tego samego zapytania nie dotykają metadanych.
+ *
+ * Kolumny, których zapytanie nie zwraca, zostają w obiekcie jako null.
+ */
+public class PirateRowMapper {
+
+    /** Lista kolumn zamiast SELECT * - baza nie wysyła kolumn, których nie mapujemy. */
+    public static final String COLUMNS = "id, name, nickname, rank, bounty, ship_id, joined_at";
+
+    private static final int MISSING = 0;
+
+    private final Map<String, ColumnPlan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * Indeksy kolumn (1-based) rozwiązane z metadanych; 0 = kolumny nie ma w wyniku.
+     */
+    public record ColumnPlan(int id, int name, int nickname, int rank, int bounty, int shipId, int joinedAt) {
+
+        static ColumnPlan resolve(ResultSetMetaData meta) throws SQLException {
+            int id = MISSING, name = MISSING, nickname = MISSING, rank = MISSING;
+            int bounty = MISSING, shipId = MISSING, joinedAt = MISSING;
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                switch (meta.getColumnLabel(i).toLowerCase()) {
+                    case "id" -> id = i;
+                    case "name" -> name = i;
+                    case "nickname" -> nickname = i;
+                    case "rank" -> rank = i;
+                    case "bounty" -> bounty = i;
+                    case "ship_id" -> shipId = i;
+                    case "joined_at" -> joinedAt = i;
+                    default -> { }
+                }
+            }
+            return new ColumnPlan(id, name, nickname, rank, bounty, shipId, joinedAt);
+        }
+    }
+
+    /**
+     * Zwraca plan dla danego SQL - przy pierwszym wykonaniu rozwiązuje go z metadanych wyniku.
+     */
+    public ColumnPlan planFor(String sql, ResultSet rs) throws SQLException {
+        ColumnPlan plan = plans.get(sql);
+        if (plan == null) {
+            plan = ColumnPlan.resolve(rs.getMetaData());
+            plans.putIfAbsent(sql, plan);
+        }
+        return plan;
+    }
+
+    public Pirate map(ResultSet rs, ColumnPlan plan) throws SQLException {
+        Pirate pirate = new Pirate();
+        if (plan.id() != MISSING) {
+            pirate.setId(rs.getLong(plan.id()));
+        }
+        if (plan.name() != MISSING) {
+            pirate.setName(rs.getString(plan.name()));
+        }
+        if (plan.nickname() != MISSING) {
+            pirate.setNickname(rs.getString(plan.nickname()));
+        }
+        if (plan.rank() != MISSING) {
+            pirate.setRank(rs.getString(plan.rank()));
+        }
+        if (plan.bounty() != MISSING) {
+            pirate.setBounty(rs.getBigDecimal(plan.bounty()));
+        }
+        if (plan.shipId() != MISSING) {
+            long shipId = rs.getLong(plan.shipId());
+            pirate.setShipId(rs.wasNull() ? null : shipId);
+        }
+        if (plan.joinedAt() != MISSING) {
+            // JDBC 4.2 - bez pośredniego java.sql.Date i konwersji strefy czasowej
+            pirate.setJoinedAt(rs.getObject(plan.joinedAt(), LocalDate.class));
+        }
+        return pirate;
+    }
+
+    int cachedPlans() {
+        return plans.size();
+    }
+}
@@ -0,0 +1,143 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import pl.przemekzagorski.training.jdbc.dao.PirateDashboard.RankStats;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Raporty agregujące liczone w bazie - jedno zapytanie zamiast pętli COUNT(*) per ranga.
+ *
+ * H2 nie obsługuje GROUPING SETS / ROLLUP, więc jeden przebieg składa się z:
+ * - GROUP BY rank, dekada - najdrobniejszy poziom (histogram dat dołączenia)
+ * - funkcji okna OVER (PARTITION BY rank) - sumy rangi doklejone do każdego wiersza dekady
+ * - COUNT(DISTINCT ship_id) OVER (...) - statki per ranga i w całej tabeli, których nie da się
+ *   zsumować z grup niższego poziomu
+ * Na bazie z GROUPING SETS (PostgreSQL, Oracle) to samo daje GROUPING SETS ((rank, dekada), (rank), ()).
+ */
+public class PirateStatsDao {
+
+    static final String DASHBOARD_SQL = """
+            SELECT rank, decade, cnt,
+                   SUM(cnt) OVER w AS rank_count,
+                   SUM(bounties) OVER w AS rank_bounties,
+                   SUM(total_cents) OVER w AS rank_cents,
+                   MAX(max_cents) OVER w AS rank_max_cents,
+                   ships, all_ships
+            FROM (
+                SELECT rank, decade, COUNT(*) AS cnt, COUNT(bounty) AS bounties,
+                       CAST(COALESCE(SUM(bounty), 0) * 100 AS BIGINT) AS total_cents,
+                       CAST(MAX(bounty) * 100 AS BIGINT) AS max_cents,
+                       MAX(ships) AS ships, MAX(all_ships) AS all_ships
+                FROM (
+                    SELECT rank, bounty, EXTRACT(YEAR FROM joined_at) / 10 * 10 AS decade,
+                           COUNT(DISTINCT ship_id) OVER (PARTITION BY rank) AS ships,
+                           COUNT(DISTINCT ship_id) OVER () AS all_ships
+                    FROM pirates
+                ) p
+                GROUP BY rank, decade
+            ) g
+            WINDOW w AS (PARTITION BY rank)
+            ORDER BY rank NULLS LAST, decade NULLS LAST
+            """;
+
+    private final Connection connection;
+
+    public PirateStatsDao(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Pełny dashboard: liczności, suma/średnia/max nagród, statki i histogram dekad dla każdej rangi.
+     */
+    public PirateDashboard dashboard() {
+        try (PreparedStatement stmt = connection.prepareStatement(DASHBOARD_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            List<RankStats> ranks = new ArrayList<>();
+            long pirates = 0;
+            long bountyCents = 0;
+            long allShips = 0;
+
+            RankAccumulator current = null;
+            while (rs.next()) {
+                String rank = rs.getString("rank");
+                if (current == null || !current.matches(rank)) {
+                    if (current != null) {
+                        ranks.add(current.toStats());
+                    }
+                    current = new RankAccumulator(rank, rs.getLong("rank_count"), rs.getLong("rank_bounties"),
+                            rs.getLong("rank_cents"), rs.getLong("rank_max_cents"), rs.wasNull(), rs.getLong("ships"));
+                    pirates += current.pirates;
+                    bountyCents += current.bountyCents;
+                    allShips = rs.getLong("all_ships");
+                }
+                int decade = rs.getInt("decade");
+                current.add(rs.wasNull() ? null : decade, rs.getLong("cnt"));
+            }
+            if (current != null) {
+                ranks.add(current.toStats());
+            }
+            return new PirateDashboard(ranks, pirates, allShips, bountyCents);
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy liczeniu statystyk piratów", e);
+        }
+    }
+
+    /**
+     * Zbiera wiersze dekad jednej rangi - przychodzą po kolei dzięki ORDER BY rank, decade.
+     */
+    private static final class RankAccumulator {
+
+        private final String rank;
+        private final long pirates;
+        private final long bountyCount;
+        private final long bountyCents;
+        private final long maxBountyCents;
+        private final long ships;
+        private int[] decades = new int[8];
+        private long[] counts = new long[8];
+        private int size;
+        private long unknownJoinDate;
+
+        RankAccumulator(String rank, long pirates, long bountyCount, long bountyCents, long maxBountyCents,
+                        boolean noBounty, long ships) {
+            this.rank = rank;
+            this.pirates = pirates;
+            this.bountyCount = bountyCount;
+            this.bountyCents = bountyCents;
+            this.maxBountyCents = noBounty ? -1 : maxBountyCents;
+            this.ships = ships;
+        }
+
+        boolean matches(String other) {
+            return rank == null ? other == null : rank.equals(other);
+        }
+
+        void add(Integer decade, long count) {
+            if (decade == null) {
+                unknownJoinDate += count;
+            } else {
+                if (size == decades.length) {
+                    decades = Arrays.copyOf(decades, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                decades[size] = decade;
+                counts[size++] = count;
+            }
+        }
+
+        RankStats toStats() {
+            // dekady bez piratów nie mają wiersza w wyniku - w histogramie zostają zerem
+            int first = size == 0 ? 0 : decades[0];
+            long[] histogram = new long[size == 0 ? 0 : (decades[size - 1] - first) / 10 + 1];
+            for (int i = 0; i < size; i++) {
+                histogram[(decades[i] - first) / 10] = counts[i];
+            }
+            return new RankStats(rank, pirates, bountyCount, bountyCents, maxBountyCents, ships, first, histogram, unknownJoinDate);
+        }
+    }
+}
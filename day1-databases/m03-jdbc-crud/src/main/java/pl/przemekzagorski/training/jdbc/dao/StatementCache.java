@@ -0,0 +1,140 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache PreparedStatement-ów dla JEDNEGO połączenia, klucz = tekst SQL.
+ *
+ * connection.prepareStatement(sql) przy każdym wywołaniu = parsowanie i planowanie od nowa.
+ * Tu statement przygotowujemy raz i używamy ponownie (LRU, ograniczony rozmiar).
+ *
+ * ZASADY:
+ * - statementów z cache NIE zamykamy (żadnego try-with-resources na nich!)
+ * - ResultSet-y zamykamy normalnie
+ * - close() zamyka wszystkie statementy, ale nie połączenie
+ */
+public class StatementCache implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    private record Key(String sql, int autoGeneratedKeys) {}
+
+    private final Connection connection;
+    private final int maxSize;
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private boolean closed;
+
+    public StatementCache(Connection connection) {
+        this(connection, DEFAULT_MAX_SIZE);
+    }
+
+    public StatementCache(Connection connection, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize musi być większy od 0: " + maxSize);
+        }
+        this.connection = connection;
+        this.maxSize = maxSize;
+        // accessOrder = true → iteracja od najdawniej używanego (LRU)
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    public synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        if (closed) {
+            throw new SQLException("StatementCache jest zamknięty");
+        }
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement stmt = statements.get(key);
+        if (stmt != null && !stmt.isClosed()) {
+            hits++;
+            stmt.clearParameters();
+            return stmt;
+        }
+        misses++;
+        stmt = connection.prepareStatement(sql, autoGeneratedKeys);
+        statements.put(key, stmt);
+        evictEldest();
+        return stmt;
+    }
+
+    private void evictEldest() throws SQLException {
+        Iterator<Map.Entry<Key, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            PreparedStatement eldest = it.next().getValue();
+            it.remove();
+            evictions++;
+            eldest.close();
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Zamyka wszystkie statementy; wywołanie wielokrotne jest bezpieczne.
+     */
+    @Override
+    public synchronized void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        SQLException failure = null;
+        for (PreparedStatement stmt : statements.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        statements.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("StatementCache{size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%}",
+                statements.size(), maxSize, hits, misses, evictions, getHitRate() * 100);
+    }
+}
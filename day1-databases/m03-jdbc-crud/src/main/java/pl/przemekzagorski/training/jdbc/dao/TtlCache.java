@@ -0,0 +1,89 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Prosty cache LRU z limitem rozmiaru i czasem życia wpisów (TTL).
+ *
+ * Wyścig "odczyt z bazy vs. unieważnienie": wątek A pobiera starą wartość z bazy,
+ * wątek B robi update + invalidate, A wkłada starą wartość do cache.
+ * Dlatego put() przyjmuje generację odczytaną PRZED zapytaniem do bazy -
+ * jeśli w międzyczasie było unieważnienie, wartość nie trafia do cache.
+ */
+class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    TtlCache(int maxSize, long ttlNanos, LongSupplier nanoClock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize musi być większy od 0: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (nanoClock.getAsLong() - entry.expiresAt() >= 0) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Wkłada wartość, o ile od odczytu generacji nie było żadnego unieważnienia.
+     */
+    synchronized void put(K key, V value, long readGeneration) {
+        if (readGeneration != generation) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, nanoClock.getAsLong() + ttlNanos));
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, expirations, entries.size());
+    }
+}
@@ -0,0 +1,397 @@
+package pl.przemekzagorski.training.jdbc.loader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Ładowanie dużych plików CSV z piratami do tabeli pirates (w stylu COPY).
+ *
+ * - plik czytany kanałem NIO w dużych blokach, bez dzielenia na linie (brak String na linię)
+ * - pola parsowane wprost z bajtów: liczby, kwoty i daty bez tworzenia podciągów,
+ *   powtarzające się rangi zamieniane na ten sam obiekt String
+ * - wartości bindowane od razu do PreparedStatement (bez pośrednich obiektów Pirate)
+ * - paczki addBatch/executeBatch, jedna transakcja z commitem co commitInterval wierszy
+ *
+ * Format: nagłówek name,nickname,rank,bounty,ship_id,joined_at; pola w cudzysłowach
+ * mogą zawierać przecinki ("" = cudzysłów). Puste pole = NULL (poza name).
+ */
+public class PirateCsvLoader {
+
+    public static final String HEADER = "name,nickname,rank,bounty,ship_id,joined_at";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 6;
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    /**
+     * Stan ładowania - przekazywany do callbacku po każdym commicie i zwracany na końcu.
+     */
+    public record LoadProgress(long rows, long elapsedNanos) {
+
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d wierszy w %.1f s (%,.0f wierszy/s)",
+                    rows, elapsedNanos / 1_000_000_000.0, rowsPerSecond());
+        }
+    }
+
+    private final Connection connection;
+    private final int batchSize;
+    private final int commitInterval;
+    private final int bufferSize;
+
+    public PirateCsvLoader(Connection connection, int batchSize, int commitInterval) {
+        this(connection, batchSize, commitInterval, DEFAULT_BUFFER_SIZE);
+    }
+
+    PirateCsvLoader(Connection connection, int batchSize, int commitInterval, int bufferSize) {
+        if (batchSize < 1 || commitInterval < batchSize) {
+            throw new IllegalArgumentException("Wymagane: batchSize >= 1 i commitInterval >= batchSize");
+        }
+        this.connection = connection;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.bufferSize = bufferSize;
+    }
+
+    public LoadProgress load(Path csv) {
+        return load(csv, progress -> { });
+    }
+
+    /**
+     * Wczytuje plik w jednej transakcji z okresowymi commitami.
+     * Przy błędzie wycofywana jest tylko niezatwierdzona część - w wyjątku jest liczba zapisanych wierszy.
+     */
+    public LoadProgress load(Path csv, Consumer<LoadProgress> onCommit) {
+        long start = System.nanoTime();
+        boolean autoCommit = true;
+        RowSink sink = null;
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ);
+             PreparedStatement stmt = connection.prepareStatement(INSERT_SQL)) {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            sink = new RowSink(stmt, start, onCommit);
+            parse(channel, sink);
+            sink.finish();
+            return sink.progress();
+        } catch (SQLException | IOException | RuntimeException e) {
+            long committed = sink != null ? sink.committed : 0;
+            RuntimeException failure = new RuntimeException(
+                    "Błąd ładowania " + csv + " (zatwierdzono " + committed + " wierszy)", e);
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                failure.addSuppressed(rollbackError);
+            }
+            throw failure;
+        } finally {
+            try {
+                connection.setAutoCommit(autoCommit);
+            } catch (SQLException ignored) {
+                // połączenie mogło zostać zamknięte - nie przykrywamy pierwotnego błędu
+            }
+        }
+    }
+
+    /**
+     * Maszyna stanów po bajtach. Bajty pola trafiają do wielokrotnie używanego bufora,
+     * więc granica bloku odczytu może wypaść w dowolnym miejscu linii.
+     */
+    private void parse(FileChannel channel, RowSink sink) throws IOException, SQLException {
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        FieldBuffer field = new FieldBuffer();
+        int state = FIELD_START;
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                switch (state) {
+                    case FIELD_START, UNQUOTED -> {
+                        if (b == ',') {
+                            sink.endField(field);
+                            state = FIELD_START;
+                        } else if (b == '\n') {
+                            sink.endField(field);
+                            sink.endRecord();
+                            state = FIELD_START;
+                        } else if (b == '"' && state == FIELD_START) {
+                            field.quoted = true;
+                            state = QUOTED;
+                        } else if (b != '\r') {
+                            field.append(b);
+                            state = UNQUOTED;
+                        }
+                    }
+                    case QUOTED -> {
+                        if (b == '"') {
+                            state = QUOTE_IN_QUOTED;
+                        } else {
+                            field.append(b);
+                        }
+                    }
+                    default -> {
+                        if (b == '"') {
+                            field.append(b);
+                            state = QUOTED;
+                        } else if (b == ',') {
+                            sink.endField(field);
+                            state = FIELD_START;
+                        } else if (b == '\n') {
+                            sink.endField(field);
+                            sink.endRecord();
+                            state = FIELD_START;
+                        } else if (b != '\r') {
+                            throw sink.error("znak po zamykającym cudzysłowie");
+                        }
+                    }
+                }
+            }
+            buffer.clear();
+        }
+        if (state == QUOTED) {
+            throw sink.error("niezamknięty cudzysłów");
+        }
+        if (field.length > 0 || field.quoted || sink.column > 0) {
+            sink.endField(field);
+            sink.endRecord();
+        }
+    }
+
+    /**
+     * Zamienia pola na parametry PreparedStatement i pilnuje paczek oraz commitów.
+     */
+    private class RowSink {
+
+        private final PreparedStatement stmt;
+        private final long start;
+        private final Consumer<LoadProgress> onCommit;
+        private final StringPool ranks = new StringPool();
+        private final StringBuilder header = new StringBuilder();
+
+        private long line = 1;
+        private int column;
+        private boolean nameMissing;
+        private int pending;
+        private long rows;
+        private long committed;
+
+        RowSink(PreparedStatement stmt, long start, Consumer<LoadProgress> onCommit) {
+            this.stmt = stmt;
+            this.start = start;
+            this.onCommit = onCommit;
+        }
+
+        void endField(FieldBuffer field) throws SQLException {
+            if (line == 1) {
+                if (column > 0) {
+                    header.append(',');
+                }
+                header.append(field.asString());
+            } else if (column == 0 && field.length == 0) {
+                nameMissing = true;
+            } else if (column < COLUMNS) {
+                bind(column, field);
+            }
+            column++;
+            field.reset();
+        }
+
+        private void bind(int index, FieldBuffer field) throws SQLException {
+            int param = index + 1;
+            boolean empty = field.length == 0 && !field.quoted;
+            switch (index) {
+                case 0 -> stmt.setString(param, field.asString());
+                case 1 -> stmt.setString(param, empty ? null : field.asString());
+                case 2 -> stmt.setString(param, empty ? null : ranks.intern(field));
+                case 3 -> stmt.setBigDecimal(param, empty ? null : field.asDecimal(this));
+                case 4 -> {
+                    if (empty) {
+                        stmt.setNull(param, Types.BIGINT);
+                    } else {
+                        stmt.setLong(param, field.asLong(this));
+                    }
+                }
+                default -> stmt.setObject(param, empty ? null : field.asDate(this), Types.DATE);
+            }
+        }
+
+        void endRecord() throws SQLException {
+            if (line == 1) {
+                if (!HEADER.contentEquals(header)) {
+                    throw error("oczekiwano nagłówka '" + HEADER + "', jest '" + header + "'");
+                }
+            } else if (column == 1 && nameMissing) {
+                // pusta linia - pomijamy
+            } else if (column != COLUMNS) {
+                throw error("oczekiwano " + COLUMNS + " kolumn, jest " + column);
+            } else if (nameMissing) {
+                throw error("brak wartości name");
+            } else {
+                stmt.addBatch();
+                rows++;
+                if (++pending == batchSize) {
+                    flush();
+                }
+                if (rows - committed >= commitInterval) {
+                    commit();
+                }
+            }
+            line++;
+            column = 0;
+            nameMissing = false;
+        }
+
+        void finish() throws SQLException {
+            if (rows > committed) {
+                commit();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (pending > 0) {
+                stmt.executeBatch();
+                pending = 0;
+            }
+        }
+
+        private void commit() throws SQLException {
+            flush();
+            connection.commit();
+            committed = rows;
+            onCommit.accept(progress());
+        }
+
+        LoadProgress progress() {
+            return new LoadProgress(rows, System.nanoTime() - start);
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Linia " + line + ": " + message);
+        }
+    }
+
+    /**
+     * Wielokrotnie używany bufor bajtów jednego pola + parsowanie bez tworzenia podciągów.
+     */
+    private static class FieldBuffer {
+
+        private byte[] bytes = new byte[128];
+        private int length;
+        private boolean quoted;
+
+        void append(byte b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = b;
+        }
+
+        void reset() {
+            length = 0;
+            quoted = false;
+        }
+
+        String asString() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        long asLong(RowSink sink) {
+            return parseLong(0, length, sink);
+        }
+
+        private long parseLong(int from, int to, RowSink sink) {
+            if (from >= to) {
+                throw sink.error("pusta liczba");
+            }
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw sink.error("niepoprawna liczba '" + asString() + "'");
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        /** "1234.50" → BigDecimal.valueOf(123450, 2), bez Stringa pośredniego. */
+        BigDecimal asDecimal(RowSink sink) {
+            boolean negative = length > 0 && bytes[0] == '-';
+            long unscaled = 0;
+            int scale = -1;
+            for (int i = negative ? 1 : 0; i < length; i++) {
+                byte b = bytes[i];
+                if (b == '.' && scale < 0) {
+                    scale = 0;
+                    continue;
+                }
+                int digit = b - '0';
+                if (digit < 0 || digit > 9) {
+                    throw sink.error("niepoprawna kwota '" + asString() + "'");
+                }
+                unscaled = unscaled * 10 + digit;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        }
+
+        /** Format yyyy-MM-dd. */
+        LocalDate asDate(RowSink sink) {
+            if (length != 10 || bytes[4] != '-' || bytes[7] != '-') {
+                throw sink.error("data musi mieć format yyyy-MM-dd: '" + asString() + "'");
+            }
+            return LocalDate.of((int) parseLong(0, 4, sink), (int) parseLong(5, 7, sink),
+                    (int) parseLong(8, 10, sink));
+        }
+    }
+
+    /**
+     * Rang jest kilka, a wierszy miliony - porównujemy bajty z już znanymi wartościami
+     * i zwracamy istniejący String zamiast tworzyć nowy dla każdego wiersza.
+     */
+    private static class StringPool {
+
+        private byte[][] keys = new byte[8][];
+        private String[] values = new String[8];
+        private int size;
+
+        String intern(FieldBuffer field) {
+            for (int i = 0; i < size; i++) {
+                if (Arrays.equals(keys[i], 0, keys[i].length, field.bytes, 0, field.length)) {
+                    return values[i];
+                }
+            }
+            String value = field.asString();
+            if (size < 64) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                keys[size] = Arrays.copyOf(field.bytes, field.length);
+                values[size++] = value;
+            }
+            return value;
+        }
+    }
+}
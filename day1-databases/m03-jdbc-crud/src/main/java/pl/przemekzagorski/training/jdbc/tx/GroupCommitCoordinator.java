@@ -0,0 +1,240 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Group commit - wiele małych transakcji z różnych wątków zatwierdzanych jednym commitem.
+ *
+ * Przy commit po każdym UPDATE większość czasu to sam commit (zapis logu, fsync).
+ * Koordynator zbiera jednostki pracy przez krótkie okno (window) albo do maxBatch sztuk,
+ * wykonuje je po kolei na jednym połączeniu w jednej transakcji i robi jeden commit.
+ * Future każdego wywołującego kończy się dopiero po tym commicie - "zapisane" znaczy zatwierdzone.
+ *
+ * Każda jednostka ma własny savepoint: błąd jednej wycofuje tylko jej zmiany (future kończy się
+ * wyjątkiem), reszta grupy idzie dalej. Nieudany commit albo Error z jednostki kończy wyjątkiem
+ * całą grupę.
+ *
+ * Jednostki wykonuje jeden wątek - nie mogą blokować się nawzajem, ale też nie powinny robić
+ * nic poza krótką pracą na przekazanym Connection.
+ */
+public class GroupCommitCoordinator implements AutoCloseable {
+
+    private record Unit<T>(TransactionCallback<T> work, CompletableFuture<T> future) {
+    }
+
+    private static final Unit<Object> SHUTDOWN = new Unit<>(null, null);
+
+    private final DataSource dataSource;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Unit<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder units = new LongAdder();
+    // submit() sprawdza closed i dodaje do kolejki pod blokadą odczytu, close() ustawia closed
+    // i wstawia znacznik pod blokadą zapisu - nic nie trafi do kolejki za znacznikiem
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    public GroupCommitCoordinator(DataSource dataSource, Duration window, int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch musi być większy od 0: " + maxBatch);
+        }
+        this.dataSource = dataSource;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.writer = Thread.ofPlatform().name("group-commit").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * Zleca jednostkę pracy. Future kończy się wynikiem po commicie grupy.
+     */
+    public <T> CompletableFuture<T> submit(TransactionCallback<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                future.completeExceptionally(closedException());
+                return future;
+            }
+            queue.add(new Unit<>(work, future));
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return future;
+    }
+
+    public long getGroups() {
+        return groups.sum();
+    }
+
+    public long getUnits() {
+        return units.sum();
+    }
+
+    public double getMeanGroupSize() {
+        long count = groups.sum();
+        return count == 0 ? 0 : (double) units.sum() / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GroupCommit[groups=%d, units=%d, mean group=%.1f]", getGroups(), getUnits(), getMeanGroupSize());
+    }
+
+    /**
+     * Kończy przyjmowanie pracy, zatwierdza to, co już jest w kolejce.
+     *
+     * Wątek zapisujący zatrzymuje znacznik w kolejce, nie interrupt() - przerwanie wątku
+     * w trakcie zapisu do FileChannel zamknęłoby plik bazy H2.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(SHUTDOWN);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Unit<?>> group = new ArrayList<>(maxBatch);
+        boolean running = true;
+        while (running) {
+            running = collect(group);
+            if (!group.isEmpty()) {
+                runGroup(group);
+                group.clear();
+            }
+        }
+        // po przerwaniu wątku w kolejce może zostać praca - żaden future nie może wisieć
+        Unit<?> left;
+        while ((left = queue.poll()) != null) {
+            if (left != SHUTDOWN) {
+                left.future().completeExceptionally(closedException());
+            }
+        }
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("GroupCommitCoordinator jest zamknięty");
+    }
+
+    /**
+     * @return false, gdy trafił na znacznik zamknięcia
+     */
+    private boolean collect(List<Unit<?>> group) {
+        try {
+            Unit<?> first = queue.take();
+            if (first == SHUTDOWN) {
+                return false;
+            }
+            group.add(first);
+            long deadline = System.nanoTime() + windowNanos;
+            while (group.size() < maxBatch) {
+                long remaining = deadline - System.nanoTime();
+                Unit<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                if (next == null) {
+                    return true;
+                }
+                if (next == SHUTDOWN) {
+                    return false;
+                }
+                group.add(next);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Wynik jednostek zależy tylko od commitu: błąd przy przywracaniu autoCommit albo zamykaniu
+     * połączenia po udanym commicie nie kończy wyjątkiem pracy, która jest już zapisana.
+     * Błąd przed commitem (także Error z jednostki) wycofuje i kończy wyjątkiem tylko tę grupę -
+     * wątek zapisujący działa dalej.
+     */
+    private void runGroup(List<Unit<?>> group) {
+        List<Runnable> completions = new ArrayList<>(group.size());
+        boolean committed = false;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (Unit<?> unit : group) {
+                    runUnit(connection, unit, completions);
+                }
+                connection.commit();
+                committed = true;
+            } catch (Throwable e) {
+                rollbackQuietly(connection, e);
+                restoreQuietly(connection, autoCommit, e);
+                throw e;
+            }
+            connection.setAutoCommit(autoCommit);
+        } catch (Throwable e) {
+            if (!committed) {
+                for (Unit<?> unit : group) {
+                    unit.future().completeExceptionally(e);
+                }
+                return;
+            }
+            // zatwierdzone - błąd przywracania stanu połączenia nie zmienia wyniku jednostek
+        }
+        groups.increment();
+        units.add(group.size());
+        completions.forEach(Runnable::run);
+    }
+
+    private static <T> void runUnit(Connection connection, Unit<T> unit, List<Runnable> completions) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            T result = unit.work().doInTransaction(connection);
+            connection.releaseSavepoint(savepoint);
+            completions.add(() -> unit.future().complete(result));
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback(savepoint);
+            unit.future().completeExceptionally(e);
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection, Throwable cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackError) {
+            cause.addSuppressed(rollbackError);
+        }
+    }
+
+    private static void restoreQuietly(Connection connection, boolean autoCommit, Throwable cause) {
+        try {
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException restoreError) {
+            cause.addSuppressed(restoreError);
+        }
+    }
+}
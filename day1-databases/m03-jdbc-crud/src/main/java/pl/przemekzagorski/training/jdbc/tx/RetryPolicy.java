@@ -0,0 +1,39 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ile razy i z jaką przerwą ponawiać transakcję.
+ *
+ * Przerwa przed próbą n+1: losowa z [0, min(maxBackoff, initialBackoff · multiplier^(n-1))]
+ * ("full jitter") - równoległe transakcje, które się zderzyły, nie wracają jednocześnie.
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double multiplier) {
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts musi być większy od 0: " + maxAttempts);
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("multiplier nie może być mniejszy od 1: " + multiplier);
+        }
+    }
+
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(5, Duration.ofMillis(10), Duration.ofSeconds(1), 2.0);
+    }
+
+    public static RetryPolicy noRetry() {
+        return new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 1.0);
+    }
+
+    /**
+     * @param attempt numer nieudanej próby (od 1)
+     */
+    public long backoffNanos(int attempt) {
+        double ceiling = initialBackoff.toNanos() * Math.pow(multiplier, attempt - 1);
+        long bound = (long) Math.min(ceiling, maxBackoff.toNanos());
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+}
@@ -0,0 +1,44 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Set;
+
+/**
+ * Które błędy SQL oznaczają "spróbuj jeszcze raz" (konflikt współbieżności, nie błąd logiki).
+ */
+public final class SqlStates {
+
+    /**
+     * 40001 - serialization failure / deadlock (standard SQL, H2, MySQL, Oracle)
+     * 40P01 - deadlock detected (PostgreSQL)
+     * HYT00 - lock timeout (H2)
+     * 55P03 - lock not available (PostgreSQL, NOWAIT / lock_timeout)
+     */
+    public static final Set<String> RETRYABLE = Set.of("40001", "40P01", "HYT00", "55P03");
+
+    private SqlStates() {
+    }
+
+    /**
+     * Sprawdza cały łańcuch: getNextException() i getCause() (sterowniki opakowują błędy różnie).
+     */
+    public static boolean isRetryable(SQLException e) {
+        for (Throwable t = e; t != null; t = next(t)) {
+            if (t instanceof SQLTransactionRollbackException) {
+                return true;
+            }
+            if (t instanceof SQLException sql && sql.getSQLState() != null && RETRYABLE.contains(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable next(Throwable t) {
+        if (t instanceof SQLException sql && sql.getNextException() != null) {
+            return sql.getNextException();
+        }
+        return t.getCause() != t ? t.getCause() : null;
+    }
+}
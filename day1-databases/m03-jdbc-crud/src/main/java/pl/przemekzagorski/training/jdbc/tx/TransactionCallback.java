@@ -0,0 +1,15 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Praca wykonywana w jednej transakcji.
+ *
+ * Może zostać wywołana kilka razy (po konflikcie) - nie powinna mieć efektów ubocznych poza bazą.
+ */
+@FunctionalInterface
+public interface TransactionCallback<T> {
+
+    T doInTransaction(Connection connection) throws SQLException;
+}
@@ -0,0 +1,127 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Szablon transakcji z ponawianiem po konfliktach współbieżności.
+ *
+ * Każda próba:
+ * 1. pożycza połączenie z DataSource, ustawia izolację i autoCommit=false
+ * 2. wykonuje TransactionCallback i commit
+ * 3. przy SQLException - rollback; jeśli błąd jest "przejściowy" (deadlock, serializacja,
+ *    lock timeout - patrz SqlStates) i zostały próby, czeka (backoff z jitterem) i zaczyna od nowa
+ *    na świeżym połączeniu
+ *
+ * Błędy logiki (np. "za mało skarbu") i RuntimeException z callbacku nie są ponawiane - wracają
+ * do wywołującego od razu (liczone w metrykach jako nieudane).
+ * Połączenie wraca do puli z przywróconym autoCommit i izolacją; błąd przywracania
+ * nie przykrywa błędu transakcji - trafia do niego jako suppressed.
+ */
+public class TransactionExecutor {
+
+    private final DataSource dataSource;
+    private final RetryPolicy retryPolicy;
+    private final TransactionMetrics metrics = new TransactionMetrics();
+
+    public TransactionExecutor(DataSource dataSource) {
+        this(dataSource, RetryPolicy.defaults());
+    }
+
+    public TransactionExecutor(DataSource dataSource, RetryPolicy retryPolicy) {
+        this.dataSource = dataSource;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Transakcja na READ COMMITTED.
+     */
+    public <T> T execute(TransactionCallback<T> work) throws SQLException {
+        return execute(Connection.TRANSACTION_READ_COMMITTED, work);
+    }
+
+    /**
+     * @param isolation stała Connection.TRANSACTION_*
+     * @throws SQLException ostatni błąd, gdy skończyły się próby lub błąd nie nadaje się do ponowienia
+     */
+    public <T> T execute(int isolation, TransactionCallback<T> work) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                T result = runOnce(isolation, work);
+                metrics.recordAttempt(System.nanoTime() - start);
+                metrics.recordCommit(attempt);
+                return result;
+            } catch (SQLException e) {
+                metrics.recordAttempt(System.nanoTime() - start);
+                if (attempt >= retryPolicy.maxAttempts() || !SqlStates.isRetryable(e)) {
+                    metrics.recordFailure();
+                    throw e;
+                }
+                long backoff = retryPolicy.backoffNanos(attempt);
+                metrics.recordRetry(backoff);
+                pause(backoff, e);
+            } catch (RuntimeException e) {
+                metrics.recordAttempt(System.nanoTime() - start);
+                metrics.recordFailure();
+                throw e;
+            }
+        }
+    }
+
+    public TransactionMetrics getMetrics() {
+        return metrics;
+    }
+
+    private <T> T runOnce(int isolation, TransactionCallback<T> work) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            int previousIsolation = connection.getTransactionIsolation();
+            connection.setTransactionIsolation(isolation);
+            connection.setAutoCommit(false);
+            T result;
+            try {
+                result = work.doInTransaction(connection);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly(connection, e);
+                restoreQuietly(connection, autoCommit, previousIsolation, e);
+                throw e;
+            }
+            // commit się udał - błąd tutaj znaczy, że połączenie wróciłoby do puli w złym stanie
+            connection.setAutoCommit(autoCommit);
+            connection.setTransactionIsolation(previousIsolation);
+            return result;
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection, Exception cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackError) {
+            cause.addSuppressed(rollbackError);
+        }
+    }
+
+    private static void restoreQuietly(Connection connection, boolean autoCommit, int isolation, Exception cause) {
+        try {
+            connection.setAutoCommit(autoCommit);
+            connection.setTransactionIsolation(isolation);
+        } catch (SQLException restoreError) {
+            cause.addSuppressed(restoreError);
+        }
+    }
+
+    private static void pause(long nanos, SQLException cause) throws SQLException {
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new SQLException("Przerwano oczekiwanie przed ponowieniem transakcji ("
+                    + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms)", cause);
+        }
+    }
+}
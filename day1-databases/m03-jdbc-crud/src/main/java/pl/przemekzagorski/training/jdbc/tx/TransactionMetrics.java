@@ -0,0 +1,95 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Liczniki TransactionExecutor - ile transakcji, prób, ponowień i ile czasu zjadły.
+ *
+ * Bezpieczne wątkowo (LongAdder), odczyt bez blokowania wykonujących się transakcji.
+ */
+public class TransactionMetrics {
+
+    /**
+     * Rozkład "ile prób potrzebowała zatwierdzona transakcja": 1, 2, ..., ostatni kubełek = więcej.
+     */
+    private static final int ATTEMPT_BUCKETS = 8;
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder attemptNanos = new LongAdder();
+    private final LongAdder backoffNanos = new LongAdder();
+    private final AtomicLongArray attemptsPerCommit = new AtomicLongArray(ATTEMPT_BUCKETS);
+
+    void recordAttempt(long nanos) {
+        attempts.increment();
+        attemptNanos.add(nanos);
+    }
+
+    void recordRetry(long backoff) {
+        retries.increment();
+        backoffNanos.add(backoff);
+    }
+
+    void recordCommit(int attemptCount) {
+        commits.increment();
+        attemptsPerCommit.incrementAndGet(Math.min(attemptCount, ATTEMPT_BUCKETS) - 1);
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public double getMeanAttemptMillis() {
+        long count = attempts.sum();
+        return count == 0 ? 0 : attemptNanos.sum() / 1e6 / count;
+    }
+
+    public double getTotalBackoffMillis() {
+        return backoffNanos.sum() / 1e6;
+    }
+
+    /**
+     * Ile zatwierdzonych transakcji potrzebowało dokładnie {@code attempts} prób
+     * (dla ostatniego kubełka - co najmniej tylu).
+     */
+    public long getCommitsWithAttempts(int attempts) {
+        if (attempts < 1) {
+            return 0;
+        }
+        return attemptsPerCommit.get(Math.min(attempts, ATTEMPT_BUCKETS) - 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder histogram = new StringBuilder();
+        for (int i = 0; i < ATTEMPT_BUCKETS; i++) {
+            long count = attemptsPerCommit.get(i);
+            if (count > 0) {
+                histogram.append(histogram.isEmpty() ? "" : ", ")
+                        .append(i + 1).append(i == ATTEMPT_BUCKETS - 1 ? "+" : "").append("x=").append(count);
+            }
+        }
+        return String.format("commits=%d, failures=%d, attempts=%d, retries=%d, mean attempt=%.2f ms, backoff=%.1f ms, prób na commit: [%s]",
+                getCommits(), getFailures(), getAttempts(), getRetries(),
+                getMeanAttemptMillis(), getTotalBackoffMillis(), histogram);
+    }
+}
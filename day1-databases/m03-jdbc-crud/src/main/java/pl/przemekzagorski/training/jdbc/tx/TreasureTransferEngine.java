@@ -0,0 +1,124 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Transfery skarbu wyspa → statek bez wyścigów i bez zakleszczeń.
+ *
+ * - obciążenie wyspy to jeden strzeżony UPDATE (... AND treasure_value >= ?) - sprawdzenie salda
+ *   i odjęcie dzieją się atomowo pod blokadą wiersza, nie ma okna między SELECT a UPDATE
+ * - blokady zawsze w tej samej kolejności: najpierw wyspy rosnąco po id, potem statki rosnąco po id;
+ *   dwie transakcje nie mogą czekać na siebie nawzajem, więc deadlock jest niemożliwy
+ * - transferAll wykonuje wiele transferów w jednej transakcji: jedna paczka obciążeń (executeBatch,
+ *   licznik wierszy mówi, który transfer przeszedł) i jedna paczka uznań zsumowanych per statek
+ *
+ * Transfer odrzucony (za mało skarbu) nie psuje reszty paczki - po prostu nie jest uznany na statku.
+ * Lock timeouty ponawia TransactionExecutor.
+ */
+public class TreasureTransferEngine {
+
+    private static final String DEBIT_SQL =
+            "UPDATE islands SET treasure_value = treasure_value - ? WHERE id = ? AND treasure_value >= ?";
+    private static final String CREDIT_SQL =
+            "UPDATE ships SET gold = gold + ? WHERE id = ?";
+
+    private static final Comparator<Transfer> LOCK_ORDER = Comparator.comparingLong(Transfer::islandId);
+
+    public record Transfer(long islandId, long shipId, BigDecimal amount) {
+
+        public Transfer {
+            if (amount.signum() <= 0) {
+                throw new IllegalArgumentException("Kwota transferu musi być dodatnia: " + amount);
+            }
+        }
+    }
+
+    /**
+     * @param rejected transfery odrzucone przez brak skarbu (lub nieistniejącą wyspę)
+     */
+    public record BatchResult(int accepted, List<Transfer> rejected) {
+    }
+
+    private final TransactionExecutor executor;
+
+    public TreasureTransferEngine(TransactionExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Pojedynczy transfer we własnej transakcji.
+     *
+     * @return false, gdy na wyspie jest za mało skarbu
+     */
+    public boolean transfer(long islandId, long shipId, BigDecimal amount) throws SQLException {
+        return transferAll(List.of(new Transfer(islandId, shipId, amount))).accepted() == 1;
+    }
+
+    /**
+     * Wszystkie transfery w jednej transakcji (READ COMMITTED - strzeżony UPDATE nie potrzebuje więcej).
+     */
+    public BatchResult transferAll(List<Transfer> transfers) throws SQLException {
+        if (transfers.isEmpty()) {
+            return new BatchResult(0, List.of());
+        }
+        List<Transfer> ordered = new ArrayList<>(transfers);
+        ordered.sort(LOCK_ORDER);
+        return executor.execute(Connection.TRANSACTION_READ_COMMITTED, conn -> transferOrdered(conn, ordered));
+    }
+
+    public TransactionExecutor getExecutor() {
+        return executor;
+    }
+
+    private static BatchResult transferOrdered(Connection conn, List<Transfer> ordered) throws SQLException {
+        int[] debited;
+        try (PreparedStatement debit = conn.prepareStatement(DEBIT_SQL)) {
+            for (Transfer transfer : ordered) {
+                debit.setBigDecimal(1, transfer.amount());
+                debit.setLong(2, transfer.islandId());
+                debit.setBigDecimal(3, transfer.amount());
+                debit.addBatch();
+            }
+            // sterownik musi zwracać liczniki per wiersz (H2, PostgreSQL, MySQL tak robią)
+            debited = debit.executeBatch();
+        }
+
+        // TreeMap - uznania też w kolejności id, jedna aktualizacja na statek
+        Map<Long, BigDecimal> credits = new TreeMap<>();
+        List<Transfer> rejected = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            Transfer transfer = ordered.get(i);
+            if (debited[i] == 1) {
+                credits.merge(transfer.shipId(), transfer.amount(), BigDecimal::add);
+            } else {
+                rejected.add(transfer);
+            }
+        }
+
+        if (!credits.isEmpty()) {
+            try (PreparedStatement credit = conn.prepareStatement(CREDIT_SQL)) {
+                for (Map.Entry<Long, BigDecimal> entry : credits.entrySet()) {
+                    credit.setBigDecimal(1, entry.getValue());
+                    credit.setLong(2, entry.getKey());
+                    credit.addBatch();
+                }
+                int[] credited = credit.executeBatch();
+                for (int count : credited) {
+                    if (count == 0) {
+                        // rollback całej paczki - złoto zniknęłoby z wyspy i nie trafiło nigdzie
+                        throw new SQLException("Statek nie istnieje - transfer wycofany");
+                    }
+                }
+            }
+        }
+        return new BatchResult(ordered.size() - rejected.size(), rejected);
+    }
+}
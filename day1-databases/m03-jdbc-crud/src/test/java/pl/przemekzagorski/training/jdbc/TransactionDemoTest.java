@@ -0,0 +1,78 @@
+package pl.przemekzagorski.training.jdbc;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jdbc.tx.RetryPolicy;
+import pl.przemekzagorski.training.jdbc.tx.TransactionExecutor;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test obciążeniowy transferTreasure - wiele wątków na tych samych wierszach.
+ */
+@DisplayName("TransactionDemo.transferTreasure")
+class TransactionDemoTest {
+
+    private JdbcDataSource dataSource;
+    private Connection keepAlive;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        // LOCK_TIMEOUT=1 - prawie każde czekanie na blokadę wiersza kończy się HYT00
+        dataSource.setURL("jdbc:h2:mem:transfer_" + System.nanoTime() + ";LOCK_TIMEOUT=1");
+        dataSource.setUser("sa");
+        keepAlive = dataSource.getConnection();
+        TransactionDemo.setupDatabase(keepAlive);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    @DisplayName("powinien wykonać wszystkie równoległe transfery mimo lock timeoutów i zachować sumę złota")
+    void shouldCompleteConcurrentTransfers() throws Exception {
+        // Given
+        TransactionExecutor tx = new TransactionExecutor(dataSource,
+                new RetryPolicy(50, Duration.ofMillis(1), Duration.ofMillis(10), 2.0));
+        int threads = 8;
+        int transfersPerThread = 25;
+
+        // When
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads * transfersPerThread; i++) {
+                results.add(executor.submit(() -> TransactionDemo.transferTreasure(tx, 1, 1, BigDecimal.TEN)));
+            }
+        }
+
+        // Then
+        for (Future<Boolean> result : results) {
+            assertThat(result.get()).isTrue();
+        }
+        BigDecimal moved = BigDecimal.TEN.multiply(BigDecimal.valueOf(threads * transfersPerThread));
+        assertThat(value("SELECT treasure_value FROM islands WHERE id = 1"))
+                .isEqualByComparingTo(new BigDecimal("50000").subtract(moved));
+        assertThat(value("SELECT gold FROM ships WHERE id = 1")).isEqualByComparingTo(moved);
+        assertThat(tx.getMetrics().getCommits()).isEqualTo(threads * transfersPerThread);
+        assertThat(tx.getMetrics().getRetries()).as("lock timeouty powinny wymusić ponowienia").isPositive();
+        assertThat(tx.getMetrics().getAttempts())
+                .isEqualTo(tx.getMetrics().getCommits() + tx.getMetrics().getRetries());
+    }
+
+    private BigDecimal value(String sql) throws SQLException {
+        try (Statement stmt = keepAlive.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy asynchronicznej fasady - pula 2 połączeń i tysiące równoległych wywołań.
+ */
+@DisplayName("AsyncPirateDao")
+class AsyncPirateDaoTest {
+
+    private HikariDataSource dataSource;
+    private AsyncPirateDao dao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:async_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(2);
+        // krótki timeout - bez semafora nadmiarowe wywołania czekałyby w kolejce puli
+        config.setConnectionTimeout(250);
+        dataSource = new HikariDataSource(config);
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE pirates (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    name VARCHAR(100) NOT NULL,
+                    nickname VARCHAR(100),
+                    rank VARCHAR(50),
+                    bounty DECIMAL(15, 2),
+                    ship_id BIGINT,
+                    joined_at DATE
+                )
+            """);
+        }
+        dao = new AsyncPirateDao(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dao.close();
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("powinien zapisać i odczytać pirata przez CompletableFuture")
+    void shouldSaveAndFind() throws Exception {
+        // When
+        Optional<Pirate> found = dao.save(new Pirate("Jack Sparrow", "Captain", new BigDecimal("10000")))
+            .thenCompose(saved -> dao.findById(saved.getId()))
+            .get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(found).get().extracting(Pirate::getName).isEqualTo("Jack Sparrow");
+        assertThat(dao.count().get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("powinien obsłużyć tysiące równoległych odczytów przy puli 2 połączeń")
+    void shouldFanOutThroughSmallPool() throws Exception {
+        // Given
+        List<Pirate> crew = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            crew.add(new Pirate("Pirate " + i, "Sailor", BigDecimal.ONE));
+        }
+        dao.saveAll(crew).get(5, TimeUnit.SECONDS);
+
+        // When
+        List<CompletableFuture<Optional<Pirate>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            lookups.add(dao.findById(crew.get(i % crew.size()).getId()));
+        }
+        CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(lookups).allSatisfy(lookup -> assertThat(lookup.join()).isPresent());
+        assertThat(dao.availablePermits()).isEqualTo(2);
+        assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    @Test
+    @DisplayName("powinien przekazać błąd bazy w future i oddać połączenie do puli")
+    void shouldCompleteExceptionallyAndReleaseConnection() {
+        // When
+        CompletableFuture<Pirate> failed = dao.save(new Pirate(null, "Sailor", BigDecimal.ONE));
+
+        // Then
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+            .hasRootCauseInstanceOf(SQLException.class);
+        assertThat(dao.availablePermits()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,374 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy dekoratora CachingPirateDao.
+ *
+ * Zamiast bazy używamy wątkowo-bezpiecznego DAO w pamięci, które liczy odczyty -
+ * dzięki temu widać, kiedy cache faktycznie oszczędza zapytania. Test współbieżności
+ * z prawdziwym JdbcPirateDao (jedno połączenie H2) sprawdza serializację chybień.
+ */
+@DisplayName("CachingPirateDao")
+class CachingPirateDaoTest {
+
+    private InMemoryPirateDao database;
+    private AtomicLong clock;
+    private CachingPirateDao dao;
+
+    @BeforeEach
+    void setUp() {
+        database = new InMemoryPirateDao();
+        clock = new AtomicLong();
+        dao = new CachingPirateDao(database, 100, Duration.ofMinutes(5), clock::get);
+    }
+
+    @Nested
+    @DisplayName("odczyt przez cache")
+    class ReadThroughTests {
+
+        @Test
+        @DisplayName("powinien pobrać pirata z bazy tylko raz")
+        void shouldLoadPirateOnce() {
+            // Given
+            Pirate jack = database.save(new Pirate("Jack", "Captain", new BigDecimal("100000")));
+
+            // When
+            for (int i = 0; i < 50; i++) {
+                dao.findById(jack.getId());
+            }
+
+            // Then
+            assertThat(database.idLoads.get()).isEqualTo(1);
+            assertThat(dao.getEntityCacheStats().hits()).isEqualTo(49);
+            assertThat(dao.getEntityCacheStats().hitRate()).isCloseTo(0.98, within(0.001));
+        }
+
+        @Test
+        @DisplayName("powinien zwracać kopie - mutacja wyniku nie zmienia cache")
+        void shouldReturnDefensiveCopies() {
+            // Given
+            Pirate jack = database.save(new Pirate("Jack", "Captain", new BigDecimal("100000")));
+            dao.findById(jack.getId()).orElseThrow().setName("Zmieniony bez update()");
+
+            // When
+            Pirate again = dao.findById(jack.getId()).orElseThrow();
+
+            // Then
+            assertThat(again.getName()).isEqualTo("Jack");
+        }
+
+        @Test
+        @DisplayName("powinien dociągnąć z bazy tylko brakujące ID w findAllById")
+        void shouldLoadOnlyMissingIds() {
+            // Given
+            Pirate jack = database.save(new Pirate("Jack", "Captain", BigDecimal.ONE));
+            Pirate will = database.save(new Pirate("Will", "First Mate", BigDecimal.ONE));
+            dao.findById(jack.getId());
+
+            // When
+            Map<Long, Pirate> found = dao.findAllById(List.of(jack.getId(), will.getId()));
+
+            // Then
+            assertThat(found).containsOnlyKeys(jack.getId(), will.getId());
+            assertThat(database.lastMultiGet).containsExactly(will.getId());
+        }
+
+        @Test
+        @DisplayName("powinien przeterminować wpis po TTL")
+        void shouldExpireAfterTtl() {
+            // Given
+            Pirate jack = database.save(new Pirate("Jack", "Captain", BigDecimal.ONE));
+            dao.findById(jack.getId());
+
+            // When
+            clock.addAndGet(Duration.ofMinutes(6).toNanos());
+            dao.findById(jack.getId());
+
+            // Then
+            assertThat(database.idLoads.get()).isEqualTo(2);
+            assertThat(dao.getEntityCacheStats().expirations()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("powinien usuwać najdawniej używane wpisy po przekroczeniu rozmiaru")
+        void shouldEvictWhenFull() {
+            // Given
+            CachingPirateDao small = new CachingPirateDao(database, 2, Duration.ofMinutes(5), clock::get);
+            for (int i = 0; i < 3; i++) {
+                small.findById(database.save(new Pirate("P" + i, "Sailor", BigDecimal.ONE)).getId());
+            }
+
+            // Then
+            assertThat(small.getEntityCacheStats().evictions()).isEqualTo(1);
+            assertThat(small.getEntityCacheStats().size()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("unieważnianie przy zapisie")
+    class InvalidationTests {
+
+        @Test
+        @DisplayName("update() powinien unieważnić pirata i listy rang")
+        void shouldInvalidateOnUpdate() {
+            // Given
+            Pirate will = database.save(new Pirate("Will", "First Mate", BigDecimal.ONE));
+            dao.findById(will.getId());
+            assertThat(dao.findByRank("Captain")).isEmpty();
+
+            // When
+            will.setRank("Captain");
+            dao.update(will);
+
+            // Then
+            assertThat(dao.findById(will.getId())).get().extracting(Pirate::getRank).isEqualTo("Captain");
+            assertThat(dao.findByRank("Captain")).extracting(Pirate::getName).containsExactly("Will");
+        }
+
+        @Test
+        @DisplayName("delete() powinien unieważnić pirata")
+        void shouldInvalidateOnDelete() {
+            // Given
+            Pirate jack = database.save(new Pirate("Jack", "Captain", BigDecimal.ONE));
+            dao.findById(jack.getId());
+
+            // When
+            dao.delete(jack.getId());
+
+            // Then
+            assertThat(dao.findById(jack.getId())).isEmpty();
+            assertThat(dao.findByRank("Captain")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("save() powinien unieważnić listę rangi nowego pirata")
+        void shouldInvalidateRankOnSave() {
+            // Given
+            dao.save(new Pirate("Jack", "Captain", BigDecimal.ONE));
+            assertThat(dao.findByRank("Captain")).hasSize(1);
+
+            // When
+            dao.save(new Pirate("Barbossa", "Captain", BigDecimal.ONE));
+
+            // Then
+            assertThat(dao.findByRank("Captain")).hasSize(2);
+        }
+    }
+
+    @Test
+    @DisplayName("powinien zachować spójność przy wielu czytelnikach i równoległych zapisach")
+    void shouldStayConsistentUnderConcurrentReaders() throws Exception {
+        // Given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(database.save(new Pirate("Pirate " + i, "Sailor", BigDecimal.ZERO)).getId());
+        }
+        int readers = 16;
+        int readsPerReader = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(readers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+
+        // When - 16 czytelników i 1 pisarz (proporcja odczytów do zapisów ~50:1 i więcej)
+        for (int r = 0; r < readers; r++) {
+            tasks.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < readsPerReader; i++) {
+                    Pirate pirate = dao.findById(ids.get(random.nextInt(ids.size()))).orElseThrow();
+                    assertThat(pirate.getBounty()).isNotNull();
+                }
+                return null;
+            }));
+        }
+        tasks.add(pool.submit(() -> {
+            start.await();
+            for (int i = 1; i <= 1_000; i++) {
+                Pirate pirate = database.findById(ids.get(i % ids.size())).orElseThrow();
+                pirate.setBounty(BigDecimal.valueOf(i));
+                dao.update(pirate);
+            }
+            return null;
+        }));
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // Then - po zakończeniu zapisów cache musi oddawać to, co jest w bazie
+        for (Long id : ids) {
+            assertThat(dao.findById(id).orElseThrow().getBounty())
+                .isEqualTo(database.findById(id).orElseThrow().getBounty());
+        }
+        CacheStats stats = dao.getEntityCacheStats();
+        assertThat(stats.hits() + stats.misses()).isEqualTo((long) readers * readsPerReader + ids.size());
+        assertThat(stats.hitRate()).isGreaterThan(0.5);
+    }
+
+    @Test
+    @DisplayName("powinien serializować chybienia, gdy delegatem jest JdbcPirateDao na jednym połączeniu")
+    void shouldSerializeMissesOnJdbcDelegate() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:caching_" + System.nanoTime(), "sa", "");
+             JdbcPirateDao jdbc = new JdbcPirateDao(connection)) {
+            // Given - cache na 5 wpisów, więc większość odczytów to chybienia idące do JdbcPirateDao
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("""
+                    CREATE TABLE pirates (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100) NOT NULL, nickname VARCHAR(100),
+                        rank VARCHAR(50), bounty DECIMAL(15, 2), ship_id BIGINT, joined_at DATE)
+                """);
+            }
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                ids.add(jdbc.save(new Pirate("Pirate " + i, "Sailor", BigDecimal.valueOf(i))).getId());
+            }
+            CachingPirateDao cached = new CachingPirateDao(jdbc, 5, Duration.ofMinutes(5));
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            List<Future<?>> tasks = new ArrayList<>();
+
+            // When
+            for (int r = 0; r < 8; r++) {
+                tasks.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 2_000; i++) {
+                        Long id = ids.get(random.nextInt(ids.size()));
+                        // Then - każdy odczyt zwraca pirata, o którego pytano
+                        assertThat(cached.findById(id)).get().extracting(Pirate::getId).isEqualTo(id);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+            assertThat(cached.getEntityCacheStats().misses()).isGreaterThan(1_000);
+        }
+    }
+
+    /**
+     * Wątkowo-bezpieczne DAO w pamięci - liczy odczyty, żeby sprawdzić skuteczność cache.
+     */
+    private static class InMemoryPirateDao implements PirateDao {
+
+        private final Map<Long, Pirate> rows = new ConcurrentHashMap<>();
+        private final AtomicLong sequence = new AtomicLong();
+        final AtomicInteger idLoads = new AtomicInteger();
+        volatile Collection<Long> lastMultiGet = List.of();
+
+        @Override
+        public Pirate save(Pirate pirate) {
+            pirate.setId(sequence.incrementAndGet());
+            rows.put(pirate.getId(), copy(pirate));
+            return pirate;
+        }
+
+        @Override
+        public Optional<Pirate> findById(Long id) {
+            idLoads.incrementAndGet();
+            return Optional.ofNullable(rows.get(id)).map(InMemoryPirateDao::copy);
+        }
+
+        @Override
+        public Map<Long, Pirate> findAllById(Collection<Long> ids) {
+            lastMultiGet = List.copyOf(ids);
+            Map<Long, Pirate> found = new HashMap<>();
+            ids.forEach(id -> Optional.ofNullable(rows.get(id)).ifPresent(p -> found.put(id, copy(p))));
+            return found;
+        }
+
+        @Override
+        public List<Pirate> findAll() {
+            return rows.values().stream().map(InMemoryPirateDao::copy).toList();
+        }
+
+        @Override
+        public List<Pirate> findByRank(String rank) {
+            return rows.values().stream()
+                .filter(p -> Objects.equals(p.getRank(), rank))
+                .map(InMemoryPirateDao::copy)
+                .toList();
+        }
+
+        @Override
+        public void update(Pirate pirate) {
+            rows.put(pirate.getId(), copy(pirate));
+        }
+
+        @Override
+        public void delete(Long id) {
+            rows.remove(id);
+        }
+
+        @Override
+        public long count() {
+            return rows.size();
+        }
+
+        @Override
+        public BatchReport saveAll(Iterator<Pirate> pirates, int batchSize) {
+            int saved = 0;
+            while (pirates.hasNext()) {
+                save(pirates.next());
+                saved++;
+            }
+            return new BatchReport(saved, batchSize, List.of());
+        }
+
+        @Override
+        public Pirate upsert(Pirate pirate) {
+            if (pirate.getId() == null) {
+                return save(pirate);
+            }
+            update(pirate);
+            return pirate;
+        }
+
+        @Override
+        public BatchReport upsertAll(Collection<Pirate> pirates, int batchSize) {
+            pirates.forEach(this::upsert);
+            return new BatchReport(pirates.size(), batchSize, List.of());
+        }
+
+        @Override
+        public Stream<Pirate> streamAll() {
+            return findAll().stream();
+        }
+
+        @Override
+        public Stream<Pirate> streamByRank(String rank) {
+            return findByRank(rank).stream();
+        }
+
+        @Override
+        public PiratePage findPage(Long afterId, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PiratePage findByRankPage(String rank, String afterName, Long afterId, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        private static Pirate copy(Pirate p) {
+            return new Pirate(p.getId(), p.getName(), p.getNickname(), p.getRank(),
+                p.getBounty(), p.getShipId(), p.getJoinedAt());
+        }
+    }
+}
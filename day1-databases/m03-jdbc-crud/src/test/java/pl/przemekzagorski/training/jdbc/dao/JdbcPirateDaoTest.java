@@ -9,8 +9,11 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -135,6 +138,137 @@ class JdbcPirateDaoTest {
         }
     }
 
+    // ==========================================
+    // saveAll() tests
+    // ==========================================
+
+    @Nested
+    @DisplayName("saveAll()")
+    class SaveAllTests {
+
+        @Test
+        @DisplayName("powinien zapisać wszystkich piratów i przypisać im ID")
+        void shouldSaveAllAndAssignIds() {
+            // Given
+            List<Pirate> crew = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                crew.add(new Pirate("Pirate " + i, "Sailor", new BigDecimal(i * 100)));
+            }
+
+            // When
+            BatchReport report = dao.saveAll(crew.iterator(), 10);
+
+            // Then
+            assertThat(report.rows()).isEqualTo(25);
+            assertThat(report.chunks()).extracting(BatchReport.ChunkTiming::rows)
+                .containsExactly(10, 10, 5);
+            assertThat(crew).extracting(Pirate::getId).doesNotContainNull().doesNotHaveDuplicates();
+            assertThat(dao.count()).isEqualTo(25);
+            assertThat(dao.findById(crew.get(24).getId()))
+                .get().extracting(Pirate::getName).isEqualTo("Pirate 24");
+        }
+
+        @Test
+        @DisplayName("powinien obsłużyć pustą kolekcję")
+        void shouldHandleEmptyCollection() {
+            // When
+            BatchReport report = dao.saveAll(List.of());
+
+            // Then
+            assertThat(report.rows()).isZero();
+            assertThat(report.chunks()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("powinien odrzucić batchSize < 1")
+        void shouldRejectInvalidBatchSize() {
+            assertThatThrownBy(() -> dao.saveAll(List.<Pirate>of().iterator(), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    // ==========================================
+    // upsert() / upsertAll() tests
+    // ==========================================
+
+    @Nested
+    @DisplayName("upsert() / upsertAll()")
+    class UpsertTests {
+
+        @Test
+        @DisplayName("powinien nadpisać istniejącego pirata")
+        void shouldOverwriteExistingPirate() {
+            // Given
+            Pirate jack = dao.save(new Pirate("Jack", "Captain", new BigDecimal("100000")));
+            Pirate changed = new Pirate(jack.getId(), "Jack Sparrow", "Captain Jack", "Captain",
+                new BigDecimal("200000"), null, LocalDate.of(2024, 6, 15));
+
+            // When
+            dao.upsert(changed);
+
+            // Then
+            assertThat(dao.count()).isEqualTo(1);
+            Pirate found = dao.findById(jack.getId()).orElseThrow();
+            assertThat(found.getNickname()).isEqualTo("Captain Jack");
+            assertThat(found.getJoinedAt()).isEqualTo(LocalDate.of(2024, 6, 15));
+        }
+
+        @Test
+        @DisplayName("powinien wstawić pirata bez ID i przypisać mu ID")
+        void shouldInsertPirateWithoutId() {
+            // When
+            Pirate saved = dao.upsert(new Pirate("Will", "First Mate", BigDecimal.ONE));
+
+            // Then
+            assertThat(saved.getId()).isNotNull();
+            assertThat(dao.count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("upsertAll() powinien zaktualizować istniejących i dodać nowych")
+        void shouldUpsertMixedBatch() {
+            // Given
+            Pirate jack = dao.save(new Pirate("Jack", "Captain", BigDecimal.ONE));
+            Pirate will = dao.save(new Pirate("Will", "First Mate", BigDecimal.ONE));
+            jack.setBounty(new BigDecimal("500"));
+            will.setRank("Captain");
+            Pirate newcomer = new Pirate("Elizabeth", "Captain", BigDecimal.TEN);
+
+            // When
+            BatchReport report = dao.upsertAll(List.of(jack, will, newcomer), 2);
+
+            // Then
+            assertThat(report.rows()).isEqualTo(3);
+            assertThat(newcomer.getId()).isNotNull();
+            assertThat(dao.count()).isEqualTo(3);
+            assertThat(dao.findByRank("Captain")).extracting(Pirate::getName)
+                .containsExactly("Elizabeth", "Jack", "Will");
+            assertThat(dao.findById(jack.getId())).get()
+                .extracting(Pirate::getBounty).isEqualTo(new BigDecimal("500.00"));
+        }
+
+        @Test
+        @DisplayName("powinien przesunąć licznik AUTO_INCREMENT za nowe jawne id, żeby save() nie trafił w zajęty klucz")
+        void shouldSaveAfterUpsertWithNewId() {
+            // Given - licznik stoi na 2, MERGE wstawia id 2 i 3
+            dao.save(new Pirate("Jack", "Captain", BigDecimal.ONE));
+            dao.upsert(new Pirate(2L, "Will", null, "First Mate", BigDecimal.ONE, null, null));
+            dao.upsertAll(List.of(new Pirate(3L, "Elizabeth", null, "Captain", BigDecimal.ONE, null, null)), 10);
+
+            // When
+            Pirate gibbs = dao.save(new Pirate("Gibbs", "Sailor", BigDecimal.ONE));
+            BatchReport mixed = dao.upsertAll(List.of(
+                new Pirate(10L, "Barbossa", null, "Captain", BigDecimal.ONE, null, null),
+                new Pirate("Tia", "Sailor", BigDecimal.ONE)), 10);
+
+            // Then
+            assertThat(gibbs.getId()).isEqualTo(4L);
+            assertThat(mixed.rows()).isEqualTo(2);
+            assertThat(dao.count()).isEqualTo(6);
+            assertThat(dao.findByRank("Sailor")).extracting(Pirate::getId).contains(11L);
+        }
+    }
+
     // ==========================================
     // findById() tests
     // ==========================================
@@ -169,6 +303,56 @@ class JdbcPirateDaoTest {
         }
     }
 
+    // ==========================================
+    // findAllById() tests
+    // ==========================================
+
+    @Nested
+    @DisplayName("findAllById()")
+    class FindAllByIdTests {
+
+        @Test
+        @DisplayName("powinien zwrócić piratów kluczowanych po ID, pomijając nieistniejących")
+        void shouldReturnFoundPiratesKeyedById() {
+            // Given
+            Pirate jack = dao.save(new Pirate("Jack", "Captain", new BigDecimal("100000")));
+            Pirate will = dao.save(new Pirate("Will", "First Mate", new BigDecimal("50000")));
+
+            // When
+            Map<Long, Pirate> found = dao.findAllById(List.of(jack.getId(), will.getId(), 999L, jack.getId()));
+
+            // Then
+            assertThat(found).containsOnlyKeys(jack.getId(), will.getId());
+            assertThat(found.get(will.getId()).getName()).isEqualTo("Will");
+        }
+
+        @Test
+        @DisplayName("powinien pobrać setki piratów kilkoma kształtami zapytań")
+        void shouldChunkLargeIdListsIntoFewStatementShapes() {
+            // Given
+            List<Pirate> crew = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                crew.add(new Pirate("Pirate " + i, "Sailor", BigDecimal.ONE));
+            }
+            dao.saveAll(crew);
+            List<Long> ids = crew.stream().map(Pirate::getId).toList();
+
+            // When - 300 = 128 + 128 + 44 (dopełnione do 128)
+            Map<Long, Pirate> found = dao.findAllById(ids);
+            dao.findAllById(ids.subList(0, 5));
+
+            // Then - kształty IN: 128 i 8
+            assertThat(found).hasSize(300);
+            assertThat(dao.getStatementCache().getMisses()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("powinien zwrócić pustą mapę dla pustej listy ID")
+        void shouldReturnEmptyMapForNoIds() {
+            assertThat(dao.findAllById(List.of())).isEmpty();
+        }
+    }
+
     // ==========================================
     // findAll() tests
     // ==========================================
@@ -244,6 +428,152 @@ class JdbcPirateDaoTest {
         }
     }
 
+    // ==========================================
+    // streamAll() / streamByRank() tests
+    // ==========================================
+
+    @Nested
+    @DisplayName("streamAll() / streamByRank()")
+    class StreamTests {
+
+        @Test
+        @DisplayName("powinien strumieniować wszystkich piratów w kolejności ID")
+        void shouldStreamAllPiratesInIdOrder() {
+            // Given
+            Pirate jack = dao.save(new Pirate("Jack", "Captain", new BigDecimal("100000")));
+            Pirate will = dao.save(new Pirate("Will", "First Mate", new BigDecimal("50000")));
+
+            // When
+            List<Long> ids;
+            try (Stream<Pirate> pirates = dao.streamAll()) {
+                ids = pirates.map(Pirate::getId).toList();
+            }
+
+            // Then
+            assertThat(ids).containsExactly(jack.getId(), will.getId());
+        }
+
+        @Test
+        @DisplayName("powinien strumieniować piratów według rangi")
+        void shouldStreamPiratesByRank() {
+            // Given
+            dao.save(new Pirate("Jack", "Captain", new BigDecimal("100000")));
+            dao.save(new Pirate("Barbossa", "Captain", new BigDecimal("80000")));
+            dao.save(new Pirate("Will", "First Mate", new BigDecimal("50000")));
+
+            // When
+            List<String> names;
+            try (Stream<Pirate> captains = dao.streamByRank("Captain")) {
+                names = captains.map(Pirate::getName).toList();
+            }
+
+            // Then
+            assertThat(names).containsExactly("Barbossa", "Jack");
+        }
+
+        @Test
+        @DisplayName("powinien pozwolić przerwać odczyt i zamknąć kursor")
+        void shouldAllowEarlyTerminationAndClose() {
+            // Given
+            for (int i = 0; i < 10; i++) {
+                dao.save(new Pirate("Pirate " + i, "Sailor", BigDecimal.ONE));
+            }
+
+            // When
+            Stream<Pirate> pirates = dao.streamAll();
+            List<Pirate> firstTwo = pirates.limit(2).toList();
+
+            // Then
+            assertThat(firstTwo).hasSize(2);
+            assertThatCode(pirates::close).doesNotThrowAnyException();
+            assertThat(dao.count()).isEqualTo(10);
+        }
+    }
+
+    // ==========================================
+    // findPage() / findByRankPage() tests
+    // ==========================================
+
+    @Nested
+    @DisplayName("findPage() / findByRankPage()")
+    class KeysetPaginationTests {
+
+        @Test
+        @DisplayName("powinien przejść przez wszystkie strony po id")
+        void shouldWalkAllPagesById() {
+            // Given
+            for (int i = 0; i < 7; i++) {
+                dao.save(new Pirate("Pirate " + i, "Sailor", BigDecimal.ONE));
+            }
+
+            // When
+            List<Pirate> collected = new ArrayList<>();
+            PiratePage page = dao.findPage(null, 3);
+            collected.addAll(page.content());
+            int pages = 1;
+            while (page.hasNext()) {
+                page = dao.findPage(page.next().afterId(), 3);
+                collected.addAll(page.content());
+                pages++;
+            }
+
+            // Then
+            assertThat(pages).isEqualTo(3);
+            assertThat(collected).extracting(Pirate::getId).isSorted().hasSize(7).doesNotHaveDuplicates();
+        }
+
+        @Test
+        @DisplayName("powinien stronicować rangę po (name, id) także przy powtarzających się imionach")
+        void shouldPageByRankWithDuplicateNames() {
+            // Given
+            dao.save(new Pirate("Bill", "Sailor", BigDecimal.ONE));
+            dao.save(new Pirate("Anne", "Sailor", BigDecimal.ONE));
+            dao.save(new Pirate("Bill", "Sailor", BigDecimal.ONE));
+            dao.save(new Pirate("Bill", "Sailor", BigDecimal.ONE));
+            dao.save(new Pirate("Jack", "Captain", BigDecimal.ONE));
+            dao.save(new Pirate("Cid", "Sailor", BigDecimal.ONE));
+
+            // When
+            PiratePage first = dao.findByRankPage("Sailor", null, null, 2);
+            PiratePage second = dao.findByRankPage("Sailor", first.next().afterName(), first.next().afterId(), 2);
+            PiratePage third = dao.findByRankPage("Sailor", second.next().afterName(), second.next().afterId(), 2);
+
+            // Then
+            assertThat(first.content()).extracting(Pirate::getName).containsExactly("Anne", "Bill");
+            assertThat(second.content()).extracting(Pirate::getName).containsExactly("Bill", "Bill");
+            assertThat(third.content()).extracting(Pirate::getName).containsExactly("Cid");
+            assertThat(third.hasNext()).isFalse();
+        }
+
+        @Test
+        @DisplayName("powinien zwrócić pustą stronę bez kursora dla pustej tabeli")
+        void shouldReturnEmptyLastPage() {
+            // When
+            PiratePage page = dao.findPage(null, 10);
+
+            // Then
+            assertThat(page.content()).isEmpty();
+            assertThat(page.hasNext()).isFalse();
+        }
+
+        @Test
+        @DisplayName("powinien odrzucić niepełny kursor")
+        void shouldRejectHalfCursor() {
+            assertThatThrownBy(() -> dao.findByRankPage("Sailor", "Bill", null, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("powinien odrzucić limit spoza zakresu zamiast przepełnić limit + 1")
+        void shouldRejectLimitOutOfRange() {
+            assertThatThrownBy(() -> dao.findPage(null, Integer.MAX_VALUE))
+                .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> dao.findByRankPage("Sailor", null, null, JdbcPirateDao.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+            assertThat(dao.findPage(null, JdbcPirateDao.MAX_PAGE_SIZE).content()).isEmpty();
+        }
+    }
+
     // ==========================================
     // update() tests
     // ==========================================
@@ -320,6 +650,45 @@ class JdbcPirateDaoTest {
         }
     }
 
+    // ==========================================
+    // statement cache tests
+    // ==========================================
+
+    @Nested
+    @DisplayName("cache statementów")
+    class StatementCacheTests {
+
+        @Test
+        @DisplayName("powinien przygotować statement raz przy powtarzanych findById/update")
+        void shouldReuseStatementsInTightLoop() {
+            // Given
+            Pirate saved = dao.save(new Pirate("Jack", "Captain", new BigDecimal("100000")));
+
+            // When
+            for (int i = 0; i < 10; i++) {
+                dao.findById(saved.getId());
+                saved.setBounty(new BigDecimal(i));
+                dao.update(saved);
+            }
+
+            // Then - save, findById, update = 3 misses, reszta to trafienia
+            assertThat(dao.getStatementCache().getMisses()).isEqualTo(3);
+            assertThat(dao.getStatementCache().getHits()).isEqualTo(18);
+            assertThat(dao.findById(saved.getId())).get()
+                .extracting(Pirate::getBounty).isEqualTo(new BigDecimal("9.00"));
+        }
+
+        @Test
+        @DisplayName("close() DAO nie powinien zamykać połączenia")
+        void shouldNotCloseConnectionOnDaoClose() throws SQLException {
+            // When
+            dao.close();
+
+            // Then
+            assertThat(connection.isClosed()).isFalse();
+        }
+    }
+
     // ==========================================
     // count() tests
     // ==========================================
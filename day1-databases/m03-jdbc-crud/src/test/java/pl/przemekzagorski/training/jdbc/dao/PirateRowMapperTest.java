@@ -0,0 +1,90 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+
+import java.sql.*;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy mappera opartego o indeksy kolumn.
+ */
+@DisplayName("PirateRowMapper")
+class PirateRowMapperTest {
+
+    private Connection connection;
+    private PirateRowMapper mapper;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:mapper_" + System.nanoTime(), "sa", "");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE pirates (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    name VARCHAR(100) NOT NULL,
+                    nickname VARCHAR(100),
+                    rank VARCHAR(50),
+                    bounty DECIMAL(15, 2),
+                    ship_id BIGINT,
+                    joined_at DATE
+                )
+            """);
+            stmt.execute("INSERT INTO pirates (name, nickname, rank, bounty, ship_id, joined_at) "
+                    + "VALUES ('Jack Sparrow', 'Captain Jack', 'Captain', 10000, NULL, DATE '2024-06-15')");
+        }
+        mapper = new PirateRowMapper();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("powinien zmapować wszystkie kolumny niezależnie od ich kolejności")
+    void shouldMapColumnsInAnyOrder() throws SQLException {
+        String sql = "SELECT joined_at, ship_id, bounty, rank, nickname, name, id FROM pirates";
+
+        Pirate pirate = mapFirst(sql);
+
+        assertThat(pirate.getId()).isEqualTo(1L);
+        assertThat(pirate.getName()).isEqualTo("Jack Sparrow");
+        assertThat(pirate.getNickname()).isEqualTo("Captain Jack");
+        assertThat(pirate.getBounty()).isEqualByComparingTo("10000");
+        assertThat(pirate.getShipId()).isNull();
+        assertThat(pirate.getJoinedAt()).isEqualTo(LocalDate.of(2024, 6, 15));
+    }
+
+    @Test
+    @DisplayName("powinien zostawić null dla kolumn, których zapytanie nie zwraca")
+    void shouldLeaveMissingColumnsNull() throws SQLException {
+        Pirate pirate = mapFirst("SELECT id, name FROM pirates");
+
+        assertThat(pirate.getName()).isEqualTo("Jack Sparrow");
+        assertThat(pirate.getRank()).isNull();
+        assertThat(pirate.getJoinedAt()).isNull();
+    }
+
+    @Test
+    @DisplayName("powinien rozwiązać plan raz na tekst SQL")
+    void shouldCachePlanPerSql() throws SQLException {
+        String sql = "SELECT " + PirateRowMapper.COLUMNS + " FROM pirates";
+
+        mapFirst(sql);
+        mapFirst(sql);
+        mapFirst("SELECT id FROM pirates");
+
+        assertThat(mapper.cachedPlans()).isEqualTo(2);
+    }
+
+    private Pirate mapFirst(String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertThat(rs.next()).isTrue();
+            return mapper.map(rs, mapper.planFor(sql, rs));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jdbc.dao.PirateDashboard.RankStats;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy dashboardu rang - agregaty, statki i histogram dekad z jednego zapytania.
+ */
+@DisplayName("PirateStatsDao")
+class PirateStatsDaoTest {
+
+    private Connection connection;
+    private PirateStatsDao dao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:stats_" + System.nanoTime(), "sa", "");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE pirates (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    name VARCHAR(100) NOT NULL,
+                    nickname VARCHAR(100),
+                    rank VARCHAR(50),
+                    bounty DECIMAL(15, 2),
+                    ship_id BIGINT,
+                    joined_at DATE
+                )
+            """);
+        }
+        dao = new PirateStatsDao(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("powinien policzyć agregaty każdej rangi i sumy całej załogi")
+    void shouldAggregatePerRank() throws SQLException {
+        // Given
+        insert("""
+            ('Jack', 'Captain', 10000.50, 1, DATE '1720-06-15'),
+            ('Davy', 'Captain', 99.50, 2, DATE '1701-01-01'),
+            ('Gibbs', 'First Mate', 1000.00, 1, DATE '1719-03-10'),
+            ('Cotton', 'Sailor', NULL, 1, NULL),
+            ('Marty', 'Sailor', 150.00, NULL, DATE '1722-09-01')
+        """);
+
+        // When
+        PirateDashboard dashboard = dao.dashboard();
+
+        // Then
+        assertThat(dashboard.ranks()).extracting(RankStats::rank)
+            .containsExactly("Captain", "First Mate", "Sailor");
+        assertThat(dashboard.pirates()).isEqualTo(5);
+        assertThat(dashboard.ships()).isEqualTo(2);
+        assertThat(dashboard.bountyCents()).isEqualTo(1_125_000);
+
+        RankStats captain = dashboard.ranks().get(0);
+        assertThat(captain.pirates()).isEqualTo(2);
+        assertThat(captain.bountyCents()).isEqualTo(1_010_000);
+        assertThat(captain.maxBountyCents()).isEqualTo(1_000_050);
+        assertThat(captain.avgBountyCents()).isEqualTo(505_000.0);
+        assertThat(captain.ships()).isEqualTo(2);
+
+        RankStats sailor = dashboard.ranks().get(2);
+        assertThat(sailor.bountyCount()).isEqualTo(1);
+        assertThat(sailor.avgBountyCents()).isEqualTo(15_000.0);
+        assertThat(sailor.ships()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("powinien zbudować histogram dekad z zerami dla pustych dekad i osobnym licznikiem braku daty")
+    void shouldBuildDecadeHistogram() throws SQLException {
+        // Given
+        insert("""
+            ('A', 'Captain', 1, 1, DATE '1700-01-01'),
+            ('B', 'Captain', 1, 1, DATE '1709-12-31'),
+            ('C', 'Captain', 1, 1, DATE '1731-05-05'),
+            ('D', 'Captain', 1, 1, NULL)
+        """);
+
+        // When
+        RankStats captain = dao.dashboard().ranks().get(0);
+
+        // Then
+        assertThat(captain.firstDecade()).isEqualTo(1700);
+        assertThat(captain.decadeCounts()).containsExactly(2, 0, 0, 1);
+        assertThat(captain.joinedInDecade(1730)).isEqualTo(1);
+        assertThat(captain.joinedInDecade(1650)).isZero();
+        assertThat(captain.unknownJoinDate()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("powinien zwrócić pusty dashboard dla pustej tabeli")
+    void shouldHandleEmptyTable() {
+        PirateDashboard dashboard = dao.dashboard();
+
+        assertThat(dashboard.ranks()).isEmpty();
+        assertThat(dashboard.pirates()).isZero();
+    }
+
+    private void insert(String values) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO pirates (name, rank, bounty, ship_id, joined_at) VALUES " + values);
+        }
+    }
+}
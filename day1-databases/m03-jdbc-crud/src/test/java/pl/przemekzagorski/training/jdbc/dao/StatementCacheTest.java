@@ -0,0 +1,80 @@
+package pl.przemekzagorski.training.jdbc.dao;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy cache PreparedStatement-ów (LRU, liczniki, zamykanie).
+ */
+@DisplayName("StatementCache")
+class StatementCacheTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:stmt_cache_" + System.nanoTime(), "sa", "");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("powinien zwrócić ten sam statement dla tego samego SQL")
+    void shouldReuseStatementForSameSql() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4);
+
+        PreparedStatement first = cache.prepare("SELECT 1");
+        PreparedStatement second = cache.prepare("SELECT 1");
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("powinien usunąć i zamknąć najdawniej używany statement")
+    void shouldEvictLeastRecentlyUsed() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 2);
+        PreparedStatement one = cache.prepare("SELECT 1");
+        PreparedStatement two = cache.prepare("SELECT 2");
+        cache.prepare("SELECT 1");   // "SELECT 2" staje się najdawniej używanym
+
+        cache.prepare("SELECT 3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(two.isClosed()).isTrue();
+        assertThat(one.isClosed()).isFalse();
+    }
+
+    @Test
+    @DisplayName("powinien rozróżniać statementy z RETURN_GENERATED_KEYS")
+    void shouldKeyByGeneratedKeysFlag() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4);
+
+        PreparedStatement plain = cache.prepare("SELECT 1");
+        PreparedStatement withKeys = cache.prepare("SELECT 1", Statement.RETURN_GENERATED_KEYS);
+
+        assertThat(withKeys).isNotSameAs(plain);
+    }
+
+    @Test
+    @DisplayName("close() powinien zamknąć statementy i być idempotentny")
+    void shouldCloseAllStatements() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4);
+        PreparedStatement stmt = cache.prepare("SELECT 1");
+
+        cache.close();
+        cache.close();
+
+        assertThat(stmt.isClosed()).isTrue();
+        assertThat(connection.isClosed()).isFalse();
+        assertThatThrownBy(() -> cache.prepare("SELECT 1")).isInstanceOf(SQLException.class);
+    }
+}
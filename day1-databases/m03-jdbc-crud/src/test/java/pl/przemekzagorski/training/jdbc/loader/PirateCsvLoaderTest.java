@@ -0,0 +1,141 @@
+package pl.przemekzagorski.training.jdbc.loader;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import pl.przemekzagorski.training.jdbc.dao.JdbcPirateDao;
+import pl.przemekzagorski.training.jdbc.model.Pirate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy ładowania CSV - parsowanie bajtów, paczki i commity.
+ */
+@DisplayName("PirateCsvLoader")
+class PirateCsvLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:csv_" + System.nanoTime(), "sa", "");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE pirates (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    name VARCHAR(100) NOT NULL,
+                    nickname VARCHAR(100),
+                    rank VARCHAR(50),
+                    bounty DECIMAL(15, 2),
+                    ship_id BIGINT,
+                    joined_at DATE
+                )
+            """);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("powinien sparsować cudzysłowy, puste pola, kwoty i daty - także na granicy bufora")
+    void shouldParseAllFieldKinds() throws IOException {
+        // Given - bufor 7 bajtów: prawie każde pole przecina granicę odczytu
+        Path csv = write(PirateCsvLoader.HEADER + "\r\n"
+                + "Jack Sparrow,\"Captain \"\"Jack\"\", the Savvy\",Captain,10000.50,1,1720-06-15\r\n"
+                + "Żbik,,Sailor,7,,\n"
+                + "\n"
+                + "Anne Bonny,Anne,Quartermaster,-0.05,2,1718-01-01");
+        PirateCsvLoader loader = new PirateCsvLoader(connection, 2, 2, 7);
+
+        // When
+        PirateCsvLoader.LoadProgress result = loader.load(csv);
+
+        // Then
+        assertThat(result.rows()).isEqualTo(3);
+        List<Pirate> pirates = loadAll();
+        assertThat(pirates).extracting(Pirate::getName).containsExactly("Jack Sparrow", "Żbik", "Anne Bonny");
+
+        Pirate jack = pirates.get(0);
+        assertThat(jack.getNickname()).isEqualTo("Captain \"Jack\", the Savvy");
+        assertThat(jack.getBounty()).isEqualByComparingTo("10000.50");
+        assertThat(jack.getShipId()).isEqualTo(1L);
+        assertThat(jack.getJoinedAt()).isEqualTo(LocalDate.of(1720, 6, 15));
+
+        Pirate zbik = pirates.get(1);
+        assertThat(zbik.getNickname()).isNull();
+        assertThat(zbik.getShipId()).isNull();
+        assertThat(zbik.getJoinedAt()).isNull();
+
+        assertThat(pirates.get(2).getBounty()).isEqualByComparingTo("-0.05");
+    }
+
+    @Test
+    @DisplayName("powinien commitować co commitInterval wierszy i raportować postęp")
+    void shouldCommitPeriodically() throws IOException {
+        // Given
+        StringBuilder content = new StringBuilder(PirateCsvLoader.HEADER).append('\n');
+        for (int i = 0; i < 25; i++) {
+            content.append("Pirate ").append(i).append(",,Sailor,1,,\n");
+        }
+        List<Long> commits = new ArrayList<>();
+
+        // When
+        new PirateCsvLoader(connection, 4, 10).load(write(content.toString()), p -> commits.add(p.rows()));
+
+        // Then
+        assertThat(commits).containsExactly(10L, 20L, 25L);
+        assertThat(loadAll()).hasSize(25);
+    }
+
+    @Test
+    @DisplayName("powinien wycofać niezatwierdzone wiersze i podać numer błędnej linii")
+    void shouldRollbackUncommittedRowsOnError() throws IOException {
+        // Given - linia 5 ma niepoprawną kwotę, pierwsze 2 wiersze są już zatwierdzone
+        Path csv = write(PirateCsvLoader.HEADER + "\n"
+                + "A,,Sailor,1,,\n"
+                + "B,,Sailor,1,,\n"
+                + "C,,Sailor,1,,\n"
+                + "D,,Sailor,abc,,\n");
+
+        // When / Then
+        assertThatThrownBy(() -> new PirateCsvLoader(connection, 1, 2).load(csv))
+            .hasMessageContaining("zatwierdzono 2 wierszy")
+            .rootCause()
+            .hasMessageContaining("Linia 5");
+        assertThat(loadAll()).extracting(Pirate::getName).containsExactly("A", "B");
+    }
+
+    @Test
+    @DisplayName("powinien odrzucić plik z innym nagłówkiem")
+    void shouldRejectUnexpectedHeader() throws IOException {
+        Path csv = write("name,rank\nJack,Captain\n");
+
+        assertThatThrownBy(() -> new PirateCsvLoader(connection, 10, 10).load(csv))
+            .rootCause()
+            .hasMessageContaining("oczekiwano nagłówka");
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(tempDir.resolve("pirates.csv"), content, StandardCharsets.UTF_8);
+    }
+
+    private List<Pirate> loadAll() {
+        try (JdbcPirateDao dao = new JdbcPirateDao(connection)) {
+            return dao.findAll();
+        }
+    }
+}
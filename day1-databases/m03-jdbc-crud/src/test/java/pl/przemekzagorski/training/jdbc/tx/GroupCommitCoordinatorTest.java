@@ -0,0 +1,216 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy group commit - grupowanie, izolacja błędów savepointem i zamykanie.
+ */
+@DisplayName("GroupCommitCoordinator")
+class GroupCommitCoordinatorTest {
+
+    private JdbcDataSource dataSource;
+    private Connection keepAlive;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:group_" + System.nanoTime());
+        dataSource.setUser("sa");
+        keepAlive = dataSource.getConnection();
+        try (Statement stmt = keepAlive.createStatement()) {
+            stmt.execute("CREATE TABLE log (id INT PRIMARY KEY)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    @DisplayName("powinien zatwierdzić wiele jednostek jednym commitem i zakończyć ich future")
+    void shouldGroupUnitsIntoOneCommit() throws Exception {
+        // Given
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        // When
+        try (GroupCommitCoordinator coordinator = new GroupCommitCoordinator(dataSource, Duration.ofMillis(50), 1_000)) {
+            for (int i = 0; i < 100; i++) {
+                int id = i;
+                futures.add(coordinator.submit(conn -> insert(conn, id)));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(coordinator.getUnits()).isEqualTo(100);
+            assertThat(coordinator.getGroups()).isLessThan(100);
+        }
+        assertThat(futures).allSatisfy(future -> assertThat(future.join()).isEqualTo(1));
+        assertThat(countRows()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("powinien wycofać tylko jednostkę z błędem, a resztę grupy zatwierdzić")
+    void shouldIsolateFailedUnit() throws Exception {
+        try (GroupCommitCoordinator coordinator = new GroupCommitCoordinator(dataSource, Duration.ofMillis(50), 10)) {
+            // When - druga jednostka wstawia wiersz, a potem łamie klucz główny
+            CompletableFuture<Integer> first = coordinator.submit(conn -> insert(conn, 1));
+            CompletableFuture<Integer> failing = coordinator.submit(conn -> insert(conn, 2) + insert(conn, 1));
+            CompletableFuture<Integer> third = coordinator.submit(conn -> insert(conn, 3));
+
+            // Then
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(SQLException.class);
+        }
+        assertThat(countRows()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("powinien dokończyć kolejkę przy close() i odrzucić pracę zleconą po zamknięciu")
+    void shouldDrainOnClose() {
+        // Given
+        GroupCommitCoordinator coordinator = new GroupCommitCoordinator(dataSource, Duration.ofSeconds(10), 1_000);
+        CompletableFuture<Integer> pending = coordinator.submit(conn -> insert(conn, 1));
+
+        // When - okno 10 s, ale close() nie czeka na jego koniec
+        coordinator.close();
+
+        // Then
+        assertThat(pending).isCompletedWithValue(1);
+        assertThat(coordinator.submit(conn -> insert(conn, 2)))
+            .isCompletedExceptionally();
+        assertThat(countRows()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("powinien zakończyć każdy future, gdy submit() ściga się z close()")
+    void shouldCompleteEveryFutureWhenSubmittingDuringClose() throws Exception {
+        List<CompletableFuture<Integer>> futures = Collections.synchronizedList(new ArrayList<>());
+        for (int round = 0; round < 20; round++) {
+            // Given
+            GroupCommitCoordinator coordinator = new GroupCommitCoordinator(dataSource, Duration.ofMillis(1), 1_000);
+            int base = round * 10_000;
+            CountDownLatch started = new CountDownLatch(1);
+            Thread submitter = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    int id = base + i;
+                    futures.add(coordinator.submit(conn -> insert(conn, id)));
+                    started.countDown();
+                }
+            });
+
+            // When
+            started.await();
+            coordinator.close();
+            submitter.join();
+        }
+
+        // Then - każdy future zatwierdzony albo odrzucony, żaden nie wisi
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .get(5, TimeUnit.SECONDS);
+        long committed = futures.stream().filter(future -> !future.isCompletedExceptionally()).count();
+        assertThat(futures).allMatch(CompletableFuture::isDone);
+        assertThat(futures).filteredOn(CompletableFuture::isCompletedExceptionally)
+                .allSatisfy(future -> assertThatThrownBy(future::join).hasCauseInstanceOf(IllegalStateException.class));
+        assertThat(countRows()).isEqualTo(committed);
+    }
+
+    @Test
+    @DisplayName("powinien zakończyć wyjątkiem grupę z Error w jednostce i dalej obsługiwać kolejne")
+    void shouldSurviveErrorInUnit() throws Exception {
+        try (GroupCommitCoordinator coordinator = new GroupCommitCoordinator(dataSource, Duration.ofMillis(200), 10)) {
+            // When - Error nie jest łapany przez savepoint jednostki, więc wycofuje całą grupę
+            CompletableFuture<Integer> before = coordinator.submit(conn -> insert(conn, 1));
+            CompletableFuture<Integer> failing = coordinator.submit(conn -> {
+                throw new AssertionError("Kraken");
+            });
+            assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+            assertThatThrownBy(() -> before.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+
+            // Then - wątek zapisujący żyje
+            assertThat(coordinator.submit(conn -> insert(conn, 2)).get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        }
+        assertThat(countRows()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("nie powinien kończyć wyjątkiem zatwierdzonej grupy, gdy przywrócenie autoCommit się nie uda")
+    void shouldCompleteCommittedGroupWhenRestoreFails() throws Exception {
+        // Given - połączenie odrzuca powrót do autoCommit=true
+        DataSource failingRestore = failingAutoCommitRestore();
+
+        // When
+        try (GroupCommitCoordinator coordinator = new GroupCommitCoordinator(failingRestore, Duration.ofMillis(50), 10)) {
+            CompletableFuture<Integer> first = coordinator.submit(conn -> insert(conn, 1));
+            CompletableFuture<Integer> second = coordinator.submit(conn -> insert(conn, 2));
+
+            // Then
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        }
+        assertThat(countRows()).isEqualTo(2);
+    }
+
+    /**
+     * DataSource, którego połączenia rzucają wyjątek przy setAutoCommit(true).
+     */
+    private DataSource failingAutoCommitRestore() {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> method.getName().equals("getConnection")
+                        ? failingAutoCommitRestore(dataSource.getConnection())
+                        : invoke(method, dataSource, args));
+    }
+
+    private static Connection failingAutoCommitRestore(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("setAutoCommit") && (Boolean) args[0]) {
+                        throw new SQLException("Połączenie zerwane po commicie");
+                    }
+                    return invoke(method, target, args);
+                });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static int insert(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO log VALUES (?)")) {
+            stmt.setInt(1, id);
+            return stmt.executeUpdate();
+        }
+    }
+
+    private long countRows() {
+        try (Statement stmt = keepAlive.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM log")) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy liczeniu wierszy", e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy szablonu transakcji - commit, rollback, ponawianie i metryki.
+ */
+@DisplayName("TransactionExecutor")
+class TransactionExecutorTest {
+
+    private static final RetryPolicy FAST_RETRY = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5), 2.0);
+
+    private JdbcDataSource dataSource;
+    private Connection keepAlive;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:tx_" + System.nanoTime());
+        dataSource.setUser("sa");
+        keepAlive = dataSource.getConnection();
+        try (Statement stmt = keepAlive.createStatement()) {
+            stmt.execute("CREATE TABLE log (id INT PRIMARY KEY)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    @DisplayName("powinien ponowić transakcję po błędzie serializacji (40001) i zatwierdzić drugą próbę")
+    void shouldRetrySerializationFailure() throws SQLException {
+        // Given
+        TransactionExecutor tx = new TransactionExecutor(dataSource, FAST_RETRY);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        int inserted = tx.execute(Connection.TRANSACTION_SERIALIZABLE, conn -> {
+            int rows = insert(conn, 1);
+            if (calls.incrementAndGet() == 1) {
+                throw new SQLException("could not serialize access", "40001");
+            }
+            return rows;
+        });
+
+        // Then
+        assertThat(inserted).isEqualTo(1);
+        assertThat(countRows()).isEqualTo(1);
+        TransactionMetrics metrics = tx.getMetrics();
+        assertThat(metrics.getAttempts()).isEqualTo(2);
+        assertThat(metrics.getRetries()).isEqualTo(1);
+        assertThat(metrics.getCommitsWithAttempts(2)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("nie powinien ponawiać błędu logiki i powinien wycofać zmiany")
+    void shouldNotRetryBusinessError() {
+        // Given
+        TransactionExecutor tx = new TransactionExecutor(dataSource, FAST_RETRY);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When / Then
+        assertThatThrownBy(() -> tx.execute(conn -> {
+            calls.incrementAndGet();
+            insert(conn, 1);
+            throw new SQLException("Za mało skarbu na wyspie!");
+        })).hasMessage("Za mało skarbu na wyspie!");
+        assertThat(calls).hasValue(1);
+        assertThat(countRows()).isZero();
+        assertThat(tx.getMetrics().getFailures()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("powinien policzyć RuntimeException z callbacku jako nieudaną próbę bez ponawiania")
+    void shouldRecordRuntimeExceptionAsFailure() {
+        // Given
+        TransactionExecutor tx = new TransactionExecutor(dataSource, FAST_RETRY);
+
+        // When / Then
+        assertThatThrownBy(() -> tx.execute(conn -> {
+            insert(conn, 1);
+            throw new IllegalStateException("Statek zatonął");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(countRows()).isZero();
+        assertThat(tx.getMetrics().getAttempts()).isEqualTo(1);
+        assertThat(tx.getMetrics().getFailures()).isEqualTo(1);
+        assertThat(tx.getMetrics().getRetries()).isZero();
+    }
+
+    @Test
+    @DisplayName("nie powinien przykryć błędu callbacku błędem przywracania stanu połączenia")
+    void shouldKeepPrimaryErrorWhenRestoreFails() {
+        // Given - callback zamyka połączenie, więc setAutoCommit() w przywracaniu też rzuci wyjątek
+        TransactionExecutor tx = new TransactionExecutor(dataSource, FAST_RETRY);
+
+        // When / Then
+        assertThatThrownBy(() -> tx.execute(conn -> {
+            conn.close();
+            throw new SQLException("Za mało skarbu na wyspie!");
+        })).hasMessage("Za mało skarbu na wyspie!")
+                .satisfies(e -> assertThat(e.getSuppressed()).isNotEmpty());
+    }
+
+    @Test
+    @DisplayName("powinien poddać się po maxAttempts i zwrócić ostatni błąd")
+    void shouldGiveUpAfterMaxAttempts() {
+        // Given
+        TransactionExecutor tx = new TransactionExecutor(dataSource, FAST_RETRY);
+
+        // When / Then
+        assertThatThrownBy(() -> tx.execute(conn -> {
+            throw new SQLException("Timeout trying to lock table", "HYT00");
+        })).extracting(e -> ((SQLException) e).getSQLState()).isEqualTo("HYT00");
+        assertThat(tx.getMetrics().getAttempts()).isEqualTo(3);
+        assertThat(tx.getMetrics().getRetries()).isEqualTo(2);
+    }
+
+    @Nested
+    @DisplayName("SqlStates")
+    class SqlStatesTest {
+
+        @Test
+        @DisplayName("powinien rozpoznać błąd przejściowy także głęboko w łańcuchu wyjątków")
+        void shouldFindRetryableStateInChain() {
+            SQLException wrapper = new SQLException("batch failed", "HY000");
+            wrapper.setNextException(new SQLException("deadlock detected", "40P01"));
+
+            assertThat(SqlStates.isRetryable(wrapper)).isTrue();
+            assertThat(SqlStates.isRetryable(new SQLException("wrapped", new SQLTransactionRollbackException()))).isTrue();
+            assertThat(SqlStates.isRetryable(new SQLException("unique violation", "23505"))).isFalse();
+        }
+    }
+
+    private static int insert(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO log VALUES (?)")) {
+            stmt.setInt(1, id);
+            return stmt.executeUpdate();
+        }
+    }
+
+    private long countRows() {
+        try (Statement stmt = keepAlive.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM log")) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy liczeniu wierszy", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package pl.przemekzagorski.training.jdbc.tx;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jdbc.tx.TreasureTransferEngine.BatchResult;
+import pl.przemekzagorski.training.jdbc.tx.TreasureTransferEngine.Transfer;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy silnika transferów - strzeżone obciążenie, paczki i współbieżne transfery "na krzyż".
+ */
+@DisplayName("TreasureTransferEngine")
+class TreasureTransferEngineTest {
+
+    private Connection keepAlive;
+    private TreasureTransferEngine engine;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:engine_" + System.nanoTime());
+        dataSource.setUser("sa");
+        keepAlive = dataSource.getConnection();
+        try (Statement stmt = keepAlive.createStatement()) {
+            stmt.execute("CREATE TABLE islands (id BIGINT PRIMARY KEY, name VARCHAR(100), treasure_value DECIMAL(15,2))");
+            stmt.execute("CREATE TABLE ships (id BIGINT PRIMARY KEY, name VARCHAR(100), gold DECIMAL(15,2))");
+            stmt.execute("INSERT INTO islands VALUES (1, 'Isla de Muerta', 100.00), (2, 'Tortuga', 100.00)");
+            stmt.execute("INSERT INTO ships VALUES (1, 'Black Pearl', 0.00), (2, 'Flying Dutchman', 0.00)");
+        }
+        engine = new TreasureTransferEngine(new TransactionExecutor(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    @DisplayName("powinien odrzucić tylko transfer bez pokrycia i zatwierdzić resztę paczki")
+    void shouldRejectOnlyUncoveredTransfer() throws SQLException {
+        // When - trzeci transfer z wyspy 1 przekroczyłby saldo
+        BatchResult result = engine.transferAll(List.of(
+                new Transfer(1, 1, new BigDecimal("60")),
+                new Transfer(2, 2, new BigDecimal("30")),
+                new Transfer(1, 2, new BigDecimal("50"))));
+
+        // Then
+        assertThat(result.accepted()).isEqualTo(2);
+        assertThat(result.rejected()).containsExactly(new Transfer(1, 2, new BigDecimal("50")));
+        assertThat(value("SELECT treasure_value FROM islands WHERE id = 1")).isEqualByComparingTo("40");
+        assertThat(value("SELECT gold FROM ships WHERE id = 2")).isEqualByComparingTo("30");
+        assertThat(total()).isEqualByComparingTo("200");
+    }
+
+    @Test
+    @DisplayName("powinien wycofać całą paczkę, gdy statek nie istnieje")
+    void shouldRollbackWhenShipMissing() {
+        assertThatThrownBy(() -> engine.transferAll(List.of(
+                new Transfer(1, 1, BigDecimal.TEN),
+                new Transfer(2, 99, BigDecimal.TEN))))
+            .hasMessageContaining("Statek nie istnieje");
+
+        assertThat(total()).isEqualByComparingTo("200");
+        assertThat(value("SELECT treasure_value FROM islands WHERE id = 1")).isEqualByComparingTo("100");
+    }
+
+    @Test
+    @DisplayName("powinien wykonać równoległe paczki w przeciwnych kolejnościach bez deadlocka i zachować sumę")
+    void shouldNotDeadlockOnCrossTransfers() throws Exception {
+        // Given - połowa wątków wysyła [2, 1], połowa [1, 2]; bez sortowania blokad to klasyczny deadlock
+        List<Transfer> forward = List.of(new Transfer(1, 1, new BigDecimal("0.01")), new Transfer(2, 2, new BigDecimal("0.01")));
+        List<Transfer> backward = List.of(new Transfer(2, 1, new BigDecimal("0.01")), new Transfer(1, 2, new BigDecimal("0.01")));
+
+        // When
+        List<Future<BatchResult>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 400; i++) {
+                List<Transfer> batch = i % 2 == 0 ? forward : backward;
+                results.add(executor.submit(() -> engine.transferAll(batch)));
+            }
+        }
+
+        // Then
+        for (Future<BatchResult> result : results) {
+            assertThat(result.get().accepted()).isEqualTo(2);
+        }
+        assertThat(value("SELECT SUM(treasure_value) FROM islands")).isEqualByComparingTo("192");
+        assertThat(total()).isEqualByComparingTo("200");
+        assertThat(engine.getExecutor().getMetrics().getFailures()).isZero();
+    }
+
+    private BigDecimal total() {
+        return value("SELECT (SELECT SUM(treasure_value) FROM islands) + (SELECT SUM(gold) FROM ships)");
+    }
+
+    private BigDecimal value(String sql) {
+        try (Statement stmt = keepAlive.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Błąd przy odczycie salda", e);
+        }
+    }
+}
@@ -9,6 +9,9 @@ import pl.przemekzagorski.training.jpa.dto.PirateDTO;
 import pl.przemekzagorski.training.jpa.entity.Island;
 import pl.przemekzagorski.training.jpa.entity.Pirate;
 import pl.przemekzagorski.training.jpa.entity.Ship;
+import pl.przemekzagorski.training.jpa.search.PirateSearchCriteria;
+import pl.przemekzagorski.training.jpa.search.PirateSearchService;
+import pl.przemekzagorski.training.jpa.search.PirateSlice;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -362,10 +365,28 @@ public class CriteriaApiDemo {
 
         result.pirates.forEach(p ->
             System.out.printf("  - %s: $%s%n", p.getName(), p.getBounty()));
+
+        // Ta sama wyszukiwarka bez COUNT - strona + 1 wiersz mówi, czy jest "dalej"
+        try (PirateSearchService searchService = new PirateSearchService(em.getEntityManagerFactory())) {
+            PirateSlice slice = searchService.search(em, criteria);
+
+            System.out.println("\n📋 Wyszukiwanie bez COUNT (pageSize + 1):");
+            System.out.printf("   Strona %d, wstecz: %s, dalej: %s%n",
+                    slice.page() + 1, slice.hasPrevious() ? "tak" : "nie", slice.hasNext() ? "tak" : "nie");
+            slice.pirates().forEach(p ->
+                System.out.printf("  - %s: $%s%n", p.getName(), p.getBounty()));
+
+            // Liczba wyników tylko na żądanie: szacunek od razu, dokładna w tle
+            System.out.println("   Szacowana liczba wyników: " + searchService.estimateCount(em, criteria));
+            System.out.println("   Dokładna liczba wyników: " + searchService.countExact(criteria).join());
+        }
     }
 
     /**
      * Metoda wyszukująca - wzorzec dla serwisów
+     *
+     * Dwa zapytania na każde wywołanie: strona danych + COUNT dla totalPages.
+     * Wersja bez COUNT: PirateSearchService.search() (pageSize + 1 wierszy).
      */
     private static PirateSearchResult searchPirates(EntityManager em, PirateSearchCriteria criteria) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
@@ -374,7 +395,7 @@ public class CriteriaApiDemo {
         CriteriaQuery<Pirate> dataQuery = cb.createQuery(Pirate.class);
         Root<Pirate> pirate = dataQuery.from(Pirate.class);
 
-        List<Predicate> predicates = buildPredicates(cb, pirate, criteria);
+        List<Predicate> predicates = criteria.toPredicates(cb, pirate);
         dataQuery.where(predicates.toArray(new Predicate[0]));
 
         // Sortowanie
@@ -396,7 +417,7 @@ public class CriteriaApiDemo {
         CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
         Root<Pirate> countRoot = countQuery.from(Pirate.class);
         countQuery.select(cb.count(countRoot));
-        countQuery.where(buildPredicates(cb, countRoot, criteria).toArray(new Predicate[0]));
+        countQuery.where(criteria.toPredicates(cb, countRoot).toArray(new Predicate[0]));
 
         Long totalCount = em.createQuery(countQuery).getSingleResult();
 
@@ -410,67 +431,6 @@ public class CriteriaApiDemo {
         return result;
     }
 
-    private static List<Predicate> buildPredicates(
-            CriteriaBuilder cb,
-            Root<Pirate> pirate,
-            PirateSearchCriteria criteria) {
-
-        List<Predicate> predicates = new ArrayList<>();
-
-        if (criteria.getName() != null && !criteria.getName().isBlank()) {
-            predicates.add(cb.like(
-                cb.lower(pirate.get("name")),
-                "%" + criteria.getName().toLowerCase() + "%"
-            ));
-        }
-
-        if (criteria.getRank() != null) {
-            predicates.add(cb.equal(pirate.get("rank"), criteria.getRank()));
-        }
-
-        if (criteria.getMinBounty() != null) {
-            predicates.add(cb.greaterThanOrEqualTo(
-                pirate.get("bounty"), criteria.getMinBounty()));
-        }
-
-        if (criteria.getMaxBounty() != null) {
-            predicates.add(cb.lessThanOrEqualTo(
-                pirate.get("bounty"), criteria.getMaxBounty()));
-        }
-
-        return predicates;
-    }
-
-    // DTO dla kryteriów wyszukiwania
-    static class PirateSearchCriteria {
-        private String name;
-        private String rank;
-        private BigDecimal minBounty;
-        private BigDecimal maxBounty;
-        private String sortBy;
-        private boolean sortDesc;
-        private int page = 0;
-        private int pageSize = 10;
-
-        // Getters & Setters
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        public String getRank() { return rank; }
-        public void setRank(String rank) { this.rank = rank; }
-        public BigDecimal getMinBounty() { return minBounty; }
-        public void setMinBounty(BigDecimal minBounty) { this.minBounty = minBounty; }
-        public BigDecimal getMaxBounty() { return maxBounty; }
-        public void setMaxBounty(BigDecimal maxBounty) { this.maxBounty = maxBounty; }
-        public String getSortBy() { return sortBy; }
-        public void setSortBy(String sortBy) { this.sortBy = sortBy; }
-        public boolean isSortDesc() { return sortDesc; }
-        public void setSortDesc(boolean sortDesc) { this.sortDesc = sortDesc; }
-        public int getPage() { return page; }
-        public void setPage(int page) { this.page = page; }
-        public int getPageSize() { return pageSize; }
-        public void setPageSize(int pageSize) { this.pageSize = pageSize; }
-    }
-
     // DTO dla wyników wyszukiwania
     static class PirateSearchResult {
         List<Pirate> pirates;
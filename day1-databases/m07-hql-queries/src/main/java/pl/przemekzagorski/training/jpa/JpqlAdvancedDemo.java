@@ -5,6 +5,7 @@ import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
+import pl.przemekzagorski.training.jpa.bulk.BulkMutationService;
 import pl.przemekzagorski.training.jpa.dto.PirateDTO;
 import pl.przemekzagorski.training.jpa.dto.ShipSummaryDTO;
 import pl.przemekzagorski.training.jpa.entity.Island;
@@ -13,6 +14,7 @@ import pl.przemekzagorski.training.jpa.entity.Ship;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Demonstracja zaawansowanych zapytań JPQL/HQL.
@@ -25,6 +27,7 @@ import java.util.List;
  * 5. Wyrażenia CASE WHEN
  * 6. Named Queries - predefiniowane zapytania
  * 7. Paginacja
+ * 8. Operacje masowe - paczkami po zakresach id (BulkMutationService)
  */
 public class JpqlAdvancedDemo {
 
@@ -62,7 +65,7 @@ public class JpqlAdvancedDemo {
             demonstratePagination(em);
 
             // 8. Bulk operations
-            demonstrateBulkOperations(em);
+            demonstrateBulkOperations(emf, em);
 
         } finally {
             em.close();
@@ -418,35 +421,34 @@ public class JpqlAdvancedDemo {
     /**
      * 8. Operacje masowe (Bulk Operations)
      */
-    private static void demonstrateBulkOperations(EntityManager em) {
+    private static void demonstrateBulkOperations(EntityManagerFactory emf, EntityManager em) {
         System.out.println("\n" + "-".repeat(50));
         System.out.println("8. OPERACJE MASOWE (BULK UPDATE/DELETE)");
         System.out.println("-".repeat(50));
 
-        em.getTransaction().begin();
-
-        // UPDATE masowy
-        int updatedCount = em.createQuery("""
+        // UPDATE masowy paczkami - każda paczka id to osobna, krótka transakcja
+        // (na dużej tabeli jedno UPDATE trzymałoby blokady wszystkich wierszy aż do commitu)
+        BulkMutationService bulk = new BulkMutationService(emf, 2, 1);
+        BulkMutationService.BulkResult result = bulk.execute(Pirate.class, """
             UPDATE Pirate p
             SET p.bounty = p.bounty * 1.1
-            WHERE p.rank = 'Captain'
-            """)
-                .executeUpdate();
+            WHERE p.rank = :rank AND p.id BETWEEN :fromId AND :toId
+            """, Map.of("rank", "Captain"),
+                progress -> System.out.printf("  ⏳ id %d-%d: %d zmian, razem %s%n",
+                        progress.fromId(), progress.toId(), progress.chunkRows(), progress));
 
-        System.out.printf("\n✏️  Zaktualizowano nagrodę dla %d kapitanów (+10%%)%n", updatedCount);
+        System.out.printf("\n✏️  Zaktualizowano nagrodę dla %d kapitanów (+10%%): %s%n", result.rows(), result);
 
-        // DELETE masowy (ostrożnie!)
-        // int deletedCount = em.createQuery("DELETE FROM Pirate p WHERE p.bounty < 1000")
-        //         .executeUpdate();
-
-        em.getTransaction().commit();
+        // DELETE masowy (ostrożnie!) - tak samo paczkami:
+        // bulk.execute(Pirate.class, "DELETE FROM Pirate p WHERE p.bounty < 1000 AND p.id BETWEEN :fromId AND :toId", Map.of());
 
         // WAŻNE: Po bulk operations cache jest nieaktualny!
         em.clear();
         System.out.println("⚠️  Po operacjach masowych wyczyść cache: em.clear()");
 
         // Weryfikacja
-        List<Pirate> captains = em.createNamedQuery("Pirate.findCaptains", Pirate.class)
+        List<Pirate> captains = em.createNamedQuery("Pirate.findByRank", Pirate.class)
+                .setParameter("rank", "Captain")
                 .getResultList();
 
         System.out.println("\n📋 Nowe nagrody kapitanów:");
@@ -0,0 +1,133 @@
+package pl.przemekzagorski.training.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+import pl.przemekzagorski.training.jpa.search.PirateNameIndex;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wyszukiwanie fragmentu imienia: LOWER(name) LIKE '%x%' vs indeks trigramowy w pamięci.
+ *
+ * Wstawia piratów natywnym SQL (domyślnie 1 mln, liczba w argumencie), ładuje PirateNameIndex,
+ * a potem porównuje czasy dla kilku fragmentów. Na koniec pokazuje, że persist / zmiana imienia /
+ * remove trafiają do indeksu przez listener encji.
+ */
+public class NameIndexDemo {
+
+    private static final int LIMIT = 20;
+    private static final String[] FRAGMENTS = {"#424242", "sparrow #77", "ck bar", "teach", "zz"};
+
+    public static void main(String[] args) {
+        int pirates = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("queries-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:name_index;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1",
+                "hibernate.show_sql", "false",
+                "hibernate.generate_statistics", "false"));
+        EntityManager em = emf.createEntityManager();
+
+        try {
+            System.out.println("🏴‍☠️ Name Index Demo");
+            System.out.println("==================\n");
+
+            long start = System.nanoTime();
+            insertPirates(em, pirates);
+            System.out.printf("✅ Wstawiono %,d piratów w %.1f s%n", pirates, (System.nanoTime() - start) / 1e9);
+
+            start = System.nanoTime();
+            try (PirateNameIndex index = PirateNameIndex.open(em)) {
+                System.out.printf("✅ Indeks: %,d imion, %,d trigramów, zbudowany w %.1f s%n%n",
+                        index.size(), index.trigramCount(), (System.nanoTime() - start) / 1e9);
+
+                compare(em, index);
+                demonstrateListener(em, index);
+            }
+        } finally {
+            em.close();
+            emf.close();
+        }
+    }
+
+    private static void insertPirates(EntityManager em, int pirates) {
+        em.getTransaction().begin();
+        em.createNativeQuery("""
+                INSERT INTO pirates (name, rank, bounty, version)
+                SELECT ARRAY_GET(ARRAY['Jack', 'Hector', 'Anne', 'Edward', 'Mary', 'William', 'Bartholomew', 'Grace'],
+                           MOD(X, 8) + 1)
+                       || ' '
+                       || ARRAY_GET(ARRAY['Sparrow', 'Barbossa', 'Bonny', 'Teach', 'Read', 'Kidd', 'Roberts', 'O''Malley'],
+                           MOD(X / 8, 8) + 1)
+                       || ' #' || X,
+                       'Sailor', MOD(X, 1000), 0
+                FROM SYSTEM_RANGE(1, ?1)
+                """).setParameter(1, pirates).executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+    }
+
+    private static void compare(EntityManager em, PirateNameIndex index) {
+        // rozgrzewka JIT - pierwsze wywołania mierzyłyby kompilację, nie wyszukiwanie
+        for (int i = 0; i < 20; i++) {
+            for (String fragment : FRAGMENTS) {
+                index.findPirates(em, fragment, LIMIT);
+                em.clear();
+            }
+        }
+
+        System.out.printf("⏱️ Pierwsze %d wyników dla fragmentu:%n", LIMIT);
+        System.out.printf("   %-14s %12s %12s %8s%n", "fragment", "LIKE [ms]", "indeks [ms]", "wyniki");
+        for (String fragment : FRAGMENTS) {
+            long start = System.nanoTime();
+            List<Pirate> viaLike = em.createQuery(
+                            "SELECT p FROM Pirate p WHERE LOWER(p.name) LIKE :pattern ORDER BY p.id", Pirate.class)
+                    .setParameter("pattern", "%" + fragment.toLowerCase() + "%")
+                    .setMaxResults(LIMIT)
+                    .getResultList();
+            long likeNanos = System.nanoTime() - start;
+            em.clear();
+
+            start = System.nanoTime();
+            List<Pirate> viaIndex = index.findPirates(em, fragment, LIMIT);
+            long indexNanos = System.nanoTime() - start;
+            em.clear();
+
+            if (!viaIndex.equals(viaLike)) {
+                throw new IllegalStateException("Różne wyniki dla '" + fragment + "'");
+            }
+            System.out.printf("   %-14s %12.2f %12.2f %8d%n", "'" + fragment + "'",
+                    likeNanos / 1e6, indexNanos / 1e6, viaIndex.size());
+        }
+        System.out.println("\n💡 LIKE '%x%' czyta tabelę aż znajdzie LIMIT wyników - im rzadszy fragment, tym dłużej.");
+        System.out.println("   Indeks przecina listy id dla trigramów i pobiera tylko pasujące encje.\n");
+    }
+
+    private static void demonstrateListener(EntityManager em, PirateNameIndex index) {
+        System.out.println("🔔 Listener encji aktualizuje indeks:");
+
+        em.getTransaction().begin();
+        Pirate pirate = new Pirate("Zbigniew Szablozęby", "Captain", new BigDecimal("1000"));
+        em.persist(pirate);
+        em.getTransaction().commit();
+        System.out.println("   po persist, 'szablo': " + names(index.findPirates(em, "szablo", LIMIT)));
+
+        em.getTransaction().begin();
+        pirate.setName("Zbigniew Hakoręki");
+        em.getTransaction().commit();
+        System.out.println("   po zmianie imienia, 'szablo': " + names(index.findPirates(em, "szablo", LIMIT))
+                + ", 'hakor': " + names(index.findPirates(em, "hakor", LIMIT)));
+
+        em.getTransaction().begin();
+        em.remove(pirate);
+        em.getTransaction().commit();
+        System.out.println("   po remove, 'hakor': " + names(index.findPirates(em, "hakor", LIMIT)));
+    }
+
+    private static List<String> names(List<Pirate> pirates) {
+        return pirates.stream().map(Pirate::getName).toList();
+    }
+}
@@ -0,0 +1,146 @@
+package pl.przemekzagorski.training.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+import pl.przemekzagorski.training.jpa.search.PirateSearchCriteria;
+import pl.przemekzagorski.training.jpa.search.PirateSearchTemplates;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+/**
+ * Pomiar CPU na jedno wyszukiwanie: drzewo Criteria budowane co wywołanie vs skompilowany szablon.
+ *
+ * Obie wersje wykonują identyczny SQL na tej samej tabeli, więc różnica w czasie CPU wątku
+ * to koszt budowania drzewa i tłumaczenia go przez Hibernate. Tabela jest celowo mała - przy
+ * dużej koszt samego skanu w H2 zasłania narzut po stronie Hibernate. Kryteria są losowe
+ * (16 kombinacji filtrów x 2 kierunki sortowania, różne wartości), jak z formularza wyszukiwarki.
+ */
+public class SearchTemplateBenchmark {
+
+    private static final int PIRATES = 200;
+    private static final int WARMUP = 5_000;
+    private static final int SEARCHES = 10_000;
+    private static final String[] RANKS = {"Captain", "First Mate", "Gunner", "Sailor"};
+
+    public static void main(String[] args) {
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("queries-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:search_bench;DB_CLOSE_DELAY=-1",
+                "hibernate.show_sql", "false",
+                "hibernate.generate_statistics", "false"));
+        EntityManager em = emf.createEntityManager();
+
+        try {
+            System.out.println("🏴‍☠️ Search Template Benchmark");
+            System.out.println("============================\n");
+
+            insertPirates(em);
+            PirateSearchTemplates templates = new PirateSearchTemplates(emf);
+
+            for (int round = 1; round <= 2; round++) {
+                System.out.printf("⏱️ Runda %d (%,d wyszukiwań, po %,d rozgrzewki):%n", round, SEARCHES, WARMUP);
+                double rebuilt = measure(em, "drzewo Criteria co wywołanie", SearchTemplateBenchmark::rebuildTree);
+                double compiled = measure(em, "skompilowany szablon", templates::prepare);
+                System.out.printf("   ➡️ szablon: %.1fx mniej CPU na wyszukiwanie%n", rebuilt / compiled);
+            }
+            System.out.printf("%n✅ Skompilowane kształty zapytań: %d%n", templates.size());
+        } finally {
+            em.close();
+            emf.close();
+        }
+    }
+
+    private static void insertPirates(EntityManager em) {
+        em.getTransaction().begin();
+        em.createNativeQuery("""
+                INSERT INTO pirates (name, rank, bounty, version)
+                SELECT 'Pirate ' || X,
+                       CASEWHEN(MOD(X, 4) = 0, 'Captain', CASEWHEN(MOD(X, 4) = 1, 'First Mate',
+                           CASEWHEN(MOD(X, 4) = 2, 'Gunner', 'Sailor'))),
+                       MOD(X * 7919, 100000), 0
+                FROM SYSTEM_RANGE(1, ?1)
+                """).setParameter(1, PIRATES).executeUpdate();
+        em.getTransaction().commit();
+        System.out.printf("✅ Załadowano %,d piratów%n%n", PIRATES);
+    }
+
+    private static double measure(EntityManager em, String label,
+                                BiFunction<EntityManager, PirateSearchCriteria, TypedQuery<Pirate>> prepare) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Random random = new Random(42);
+        run(em, prepare, random, WARMUP);
+
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long wallStart = System.nanoTime();
+        long rows = run(em, prepare, random, SEARCHES);
+        long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+        long wall = System.nanoTime() - wallStart;
+
+        double cpuPerSearch = cpu / 1e3 / SEARCHES;
+        System.out.printf("   %-30s %7.1f µs CPU/wyszukiwanie, %7.1f µs czasu, %,d wierszy%n",
+                label, cpuPerSearch, wall / 1e3 / SEARCHES, rows);
+        return cpuPerSearch;
+    }
+
+    private static long run(EntityManager em, BiFunction<EntityManager, PirateSearchCriteria, TypedQuery<Pirate>> prepare,
+                            Random random, int searches) {
+        long rows = 0;
+        for (int i = 0; i < searches; i++) {
+            PirateSearchCriteria criteria = randomCriteria(random);
+            rows += prepare.apply(em, criteria)
+                    .setFirstResult(criteria.getPage() * criteria.getPageSize())
+                    .setMaxResults(criteria.getPageSize() + 1)
+                    .getResultList()
+                    .size();
+            em.clear();
+        }
+        return rows;
+    }
+
+    /**
+     * Jak CriteriaApiDemo.searchPirates() - nowe drzewo z wartościami przy każdym wywołaniu.
+     */
+    private static TypedQuery<Pirate> rebuildTree(EntityManager em, PirateSearchCriteria criteria) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Pirate> cq = cb.createQuery(Pirate.class);
+        Root<Pirate> pirate = cq.from(Pirate.class);
+        cq.where(criteria.toPredicates(cb, pirate).toArray(new Predicate[0]));
+        cq.orderBy(criteria.isSortDesc()
+                        ? cb.desc(pirate.get(criteria.getSortBy()))
+                        : cb.asc(pirate.get(criteria.getSortBy())),
+                cb.asc(pirate.get("id")));
+        return em.createQuery(cq);
+    }
+
+    private static PirateSearchCriteria randomCriteria(Random random) {
+        PirateSearchCriteria criteria = new PirateSearchCriteria();
+        int mask = random.nextInt(16);
+        if ((mask & PirateSearchTemplates.NAME) != 0) {
+            criteria.setName("e " + random.nextInt(100));
+        }
+        if ((mask & PirateSearchTemplates.RANK) != 0) {
+            criteria.setRank(RANKS[random.nextInt(RANKS.length)]);
+        }
+        if ((mask & PirateSearchTemplates.MIN_BOUNTY) != 0) {
+            criteria.setMinBounty(BigDecimal.valueOf(random.nextInt(50_000)));
+        }
+        if ((mask & PirateSearchTemplates.MAX_BOUNTY) != 0) {
+            criteria.setMaxBounty(BigDecimal.valueOf(50_000 + random.nextInt(50_000)));
+        }
+        criteria.setSortBy("bounty");
+        criteria.setSortDesc(random.nextBoolean());
+        criteria.setPage(random.nextInt(3));
+        return criteria;
+    }
+}
@@ -0,0 +1,120 @@
+package pl.przemekzagorski.training.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.Session;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+import pl.przemekzagorski.training.jpa.streaming.QueryStreamer;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Skan dużej tabeli: getResultList() vs QueryStreamer (ScrollableResults + clear co N wierszy).
+ *
+ * Generuje piratów (domyślnie 500 000, liczba w argumencie) i liczy sumę nagród oboma sposobami,
+ * pokazując zajętą pamięć i rozmiar persistence context.
+ */
+public class StreamingQueryDemo {
+
+    public static void main(String[] args) {
+        int pirates = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        // LAZY_QUERY_EXECUTION - H2 oddaje wiersze kursorem zamiast budować cały wynik w pamięci
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("queries-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:streaming;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1",
+                "hibernate.show_sql", "false"));
+        try {
+            System.out.println("🏴‍☠️ Streaming Query Demo");
+            System.out.println("========================\n");
+            generatePirates(emf, pirates);
+            System.out.printf("📦 Wygenerowano %,d piratów, pamięć: %d MB%n%n", pirates, usedHeapMb());
+
+            scanWithStreamer(emf);
+            scanWithResultList(emf);
+        } finally {
+            emf.close();
+        }
+
+        System.out.println("\n💡 Streamer: pamięć zależy od clearEvery i fetchSize, nie od rozmiaru tabeli.");
+        System.out.println("   getResultList: cała tabela naraz + snapshot każdej encji do dirty checkingu.");
+    }
+
+    private static void scanWithStreamer(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            long start = System.nanoTime();
+            long[] maxManaged = {0};
+            long[] maxHeap = {0};
+            BigDecimal[] total = {BigDecimal.ZERO};
+
+            long rows = new QueryStreamer(em, 1_000, 1_000).forEach(
+                    em.createQuery("SELECT p FROM Pirate p ORDER BY p.id", Pirate.class),
+                    pirate -> {
+                        total[0] = total[0].add(pirate.getBounty());
+                        maxManaged[0] = Math.max(maxManaged[0], managedEntities(em));
+                        if (pirate.getId() % 100_000 == 0) {
+                            maxHeap[0] = Math.max(maxHeap[0], usedHeapMb());
+                        }
+                    });
+            em.getTransaction().commit();
+
+            System.out.println("🌊 QueryStreamer (ScrollableResults FORWARD_ONLY, clear co 1000):");
+            System.out.printf("   %,d wierszy w %d ms, suma nagród %s%n", rows, (System.nanoTime() - start) / 1_000_000, total[0]);
+            System.out.printf("   max encji w persistence context: %,d, max pamięć w trakcie: %d MB%n%n", maxManaged[0], maxHeap[0]);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void scanWithResultList(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            long start = System.nanoTime();
+            List<Pirate> all = em.createQuery("SELECT p FROM Pirate p ORDER BY p.id", Pirate.class).getResultList();
+            BigDecimal total = BigDecimal.ZERO;
+            for (Pirate pirate : all) {
+                total = total.add(pirate.getBounty());
+            }
+            System.out.println("📋 getResultList():");
+            System.out.printf("   %,d wierszy w %d ms, suma nagród %s%n", all.size(), (System.nanoTime() - start) / 1_000_000, total);
+            System.out.printf("   encji w persistence context: %,d, pamięć: %d MB%n", managedEntities(em), usedHeapMb());
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void generatePirates(EntityManagerFactory emf, int pirates) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createNativeQuery("""
+                    INSERT INTO pirates (name, rank, bounty, joined_at, version)
+                    SELECT 'Pirate ' || X,
+                           CASE MOD(X, 4) WHEN 0 THEN 'Captain' WHEN 1 THEN 'First Mate' ELSE 'Sailor' END,
+                           MOD(X * 7919, 100000), DATEADD(DAY, MOD(X, 20000), DATE '1680-01-01'), 0
+                    FROM SYSTEM_RANGE(1, ?1)
+                    """)
+                    .setParameter(1, pirates)
+                    .executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static long managedEntities(EntityManager em) {
+        return em.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+    private static long usedHeapMb() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+    }
+}
@@ -0,0 +1,269 @@
+package pl.przemekzagorski.training.jpa.bulk;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Masowy UPDATE/DELETE w JPQL wykonywany paczkami po zakresach id.
+ *
+ * Jedno UPDATE na całej tabeli trzyma blokady wszystkich zmienionych wierszy aż do commitu -
+ * inne transakcje piszące do tych wierszy czekają (albo dostają lock timeout). Tutaj:
+ * - zakres [MIN(id), MAX(id)] dzielony jest na paczki po chunkSize kolejnych id
+ * - każda paczka to osobna transakcja: executeUpdate() z :fromId / :toId i commit
+ * - blokady trzymane są tylko przez czas jednej paczki, a postęp raportowany po każdym commicie
+ * - przy parallelism > 1 paczki wykonuje kilka wątków, każdy na własnym EntityManagerze
+ *   (EntityManager nie jest bezpieczny wątkowo); zakresy id są rozłączne, więc wątki nie
+ *   blokują się nawzajem
+ * - na końcu (także po błędzie) regiony cache drugiego poziomu dla encji są usuwane
+ *
+ * Zapytanie musi zawierać warunek na zakres, np.
+ * UPDATE Pirate p SET p.bounty = p.bounty * 1.1 WHERE p.rank = :rank AND p.id BETWEEN :fromId AND :toId
+ *
+ * Cena: zmiana nie jest atomowa. Błąd w paczce (albo w progressListener) wycofuje tylko ją
+ * i zatrzymuje kolejne - paczki zatwierdzone wcześniej zostają, a wyjątek mówi, ile ich było.
+ * Zapytanie powinno więc być idempotentne albo odporne na ponowne uruchomienie od miejsca błędu.
+ */
+public class BulkMutationService {
+
+    private final EntityManagerFactory emf;
+    private final int chunkSize;
+    private final int parallelism;
+
+    public BulkMutationService(EntityManagerFactory emf) {
+        this(emf, 10_000, 1);
+    }
+
+    public BulkMutationService(EntityManagerFactory emf, int chunkSize, int parallelism) {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("chunkSize i parallelism muszą być większe od 0");
+        }
+        this.emf = emf;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    public BulkResult execute(Class<?> entityClass, String jpql, Map<String, ?> parameters) {
+        return execute(entityClass, jpql, parameters, progress -> { });
+    }
+
+    /**
+     * Wykonuje zapytanie paczkami. progressListener wołany jest po każdym commicie,
+     * po kolei (nigdy równolegle), także przy parallelism > 1.
+     */
+    public BulkResult execute(Class<?> entityClass, String jpql, Map<String, ?> parameters,
+                              Consumer<Progress> progressListener) {
+        if (!jpql.contains(":fromId") || !jpql.contains(":toId")) {
+            throw new IllegalArgumentException("Zapytanie musi ograniczać zakres id parametrami :fromId i :toId");
+        }
+        long start = System.nanoTime();
+        long[] range = idRange(entityClass);
+        if (range == null) {
+            return new BulkResult(0, 0, Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        long minId = range[0];
+        int chunks = Math.toIntExact((range[1] - minId) / chunkSize + 1);
+        ChunkRun run = new ChunkRun(jpql, parameters, minId, chunks, progressListener);
+        try {
+            if (parallelism == 1) {
+                run.work();
+            } else {
+                runInParallel(run);
+            }
+        } finally {
+            emf.getCache().evict(entityClass);
+        }
+
+        // wyjątek budowany dopiero po zakończeniu wszystkich wątków - liczba zatwierdzonych paczek jest końcowa
+        ChunkFailure failure = run.failure.get();
+        if (failure != null) {
+            throw new RuntimeException(String.format("Błąd przy zmianie masowej w paczce id %d-%d (%s)",
+                    failure.fromId(), failure.toId(), run.summary()), failure.cause());
+        }
+        return new BulkResult(chunks, run.rows.get(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Czeka na wszystkie wątki także po błędzie i po przerwaniu - dopiero wtedy liczba
+     * zatwierdzonych paczek jest końcowa, a cache można bezpiecznie wyczyścić.
+     */
+    private void runInParallel(ChunkRun run) {
+        int threads = Math.min(parallelism, run.chunks);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Throwable error = null;
+        boolean interrupted = false;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(workers.submit(run::work));
+            }
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (ExecutionException e) {
+                        // work() zapisuje RuntimeException w failure - tu trafiają tylko Error
+                        run.failed.set(true);
+                        if (error == null) {
+                            error = e.getCause();
+                        }
+                        break;
+                    } catch (InterruptedException e) {
+                        // pozostałe wątki kończą bieżącą paczkę - czekamy na nie dalej
+                        run.failed.set(true);
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            workers.shutdown();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Przerwano zmianę masową (" + run.summary() + ")", error);
+        }
+        if (error != null) {
+            throw new RuntimeException("Błąd przy zmianie masowej (" + run.summary() + ")", error);
+        }
+    }
+
+    private long[] idRange(Class<?> entityClass) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            EntityType<?> entity = em.getMetamodel().entity(entityClass);
+            String id = entity.getId(entity.getIdType().getJavaType()).getName();
+            Object[] range = em.createQuery(
+                            "SELECT MIN(e." + id + "), MAX(e." + id + ") FROM " + entity.getName() + " e", Object[].class)
+                    .getSingleResult();
+            return range[0] == null ? null : new long[]{((Number) range[0]).longValue(), ((Number) range[1]).longValue()};
+        } finally {
+            em.close();
+        }
+    }
+
+    private record ChunkFailure(long fromId, long toId, RuntimeException cause) {
+    }
+
+    /**
+     * Stan jednego wykonania - wątki pobierają kolejne paczki ze wspólnego licznika.
+     */
+    private final class ChunkRun {
+        private final String jpql;
+        private final Map<String, ?> parameters;
+        private final long minId;
+        private final int chunks;
+        private final Consumer<Progress> progressListener;
+        private final AtomicLong nextChunk = new AtomicLong();
+        private final AtomicInteger committed = new AtomicInteger();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private final AtomicReference<ChunkFailure> failure = new AtomicReference<>();
+        private int chunksReported;
+
+        ChunkRun(String jpql, Map<String, ?> parameters, long minId, int chunks, Consumer<Progress> progressListener) {
+            this.jpql = jpql;
+            this.parameters = parameters;
+            this.minId = minId;
+            this.chunks = chunks;
+            this.progressListener = progressListener;
+        }
+
+        /**
+         * Wykonuje paczki aż do końca zakresu albo do pierwszego błędu (także z progressListener)
+         * w dowolnym wątku - wtedy pozostałe wątki kończą bieżącą paczkę i nie biorą następnej.
+         */
+        void work() {
+            EntityManager em = emf.createEntityManager();
+            try {
+                long chunk;
+                while (!failed.get() && (chunk = nextChunk.getAndIncrement()) < chunks) {
+                    long fromId = minId + chunk * chunkSize;
+                    long toId = fromId + chunkSize - 1;
+                    boolean done = false;
+                    try {
+                        int updated = executeChunk(em, fromId, toId);
+                        reportChunk(fromId, toId, updated);
+                        done = true;
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, new ChunkFailure(fromId, toId, e));
+                        return;
+                    } finally {
+                        if (!done) {
+                            failed.set(true);
+                        }
+                    }
+                }
+            } finally {
+                em.close();
+            }
+        }
+
+        private int executeChunk(EntityManager em, long fromId, long toId) {
+            try {
+                em.getTransaction().begin();
+                var query = em.createQuery(jpql)
+                        .setParameter("fromId", fromId)
+                        .setParameter("toId", toId);
+                parameters.forEach(query::setParameter);
+                int updated = query.executeUpdate();
+                em.getTransaction().commit();
+                committed.incrementAndGet();
+                rows.addAndGet(updated);
+                return updated;
+            } catch (RuntimeException e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw e;
+            }
+        }
+
+        String summary() {
+            return String.format("zatwierdzono %d z %d paczek, %d wierszy", committed.get(), chunks, rows.get());
+        }
+
+        private synchronized void reportChunk(long fromId, long toId, int updated) {
+            chunksReported++;
+            progressListener.accept(new Progress(chunksReported, chunks, rows.get(), fromId, toId, updated));
+        }
+    }
+
+    /**
+     * Postęp po zatwierdzeniu paczki [fromId, toId].
+     */
+    public record Progress(int chunksDone, int chunks, long rows, long fromId, long toId, int chunkRows) {
+
+        public double percent() {
+            return 100.0 * chunksDone / chunks;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d paczek (%.0f%%), %,d wierszy", chunksDone, chunks, percent(), rows);
+        }
+    }
+
+    public record BulkResult(int chunks, long rows, Duration elapsed) {
+
+        @Override
+        public String toString() {
+            return String.format("%,d wierszy w %d paczkach, %d ms", rows, chunks, elapsed.toMillis());
+        }
+    }
+}
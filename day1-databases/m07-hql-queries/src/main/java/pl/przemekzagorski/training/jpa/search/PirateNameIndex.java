@@ -0,0 +1,278 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+import pl.przemekzagorski.training.jpa.streaming.QueryStreamer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indeks trigramowy imion piratów w pamięci - wyszukiwanie fragmentu bez LIKE '%x%'.
+ *
+ * lower(name) LIKE '%x%' nie może użyć indeksu B-drzewa (wzorzec zaczyna się od %),
+ * więc baza czyta całą tabelę. Tutaj:
+ * - każde imię (małymi literami) rozkłada się na trigramy, np. "jack" -> "jac", "ack"
+ * - dla każdego trigramu trzymana jest posortowana lista id piratów (long[])
+ * - fragment "spar" ma trigramy "spa", "par" - kandydaci to przecięcie ich list, zaczynając od najkrótszej
+ * - kandydat jest sprawdzany na pełnym imieniu (trigramy mogą wystąpić osobno), a encje pobierane
+ *   paczkami po id (multiLoad) - kilka zapytań po kluczu głównym zamiast skanu
+ *
+ * Indeks aktualizuje PirateNameIndexListener - dopiero po udanym commicie, więc wycofana
+ * transakcja niczego w nim nie zmienia. Zmiany z pominięciem encji (UPDATE/DELETE w JPQL,
+ * native SQL) go nie aktualizują - wtedy load() odbudowuje indeks z bazy. Nieaktualny wpis
+ * nie trafi do wyniku (findPirates() sprawdza imię na pobranej encji), ale pirata, którego imię
+ * zmieniono z pominięciem encji, indeks nie znajdzie po nowym imieniu aż do load().
+ */
+public class PirateNameIndex implements AutoCloseable {
+
+    private static final int FETCH_BATCH = 500;
+
+    private final SessionFactory factory;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    private PirateNameIndex(SessionFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Tworzy indeks podpięty pod listener encji i ładuje do niego wszystkich piratów.
+     * Indeks dostaje zmiany tylko z EntityManagerFactory, do której należy em.
+     */
+    public static PirateNameIndex open(EntityManager em) {
+        PirateNameIndex index = new PirateNameIndex(em.getEntityManagerFactory().unwrap(SessionFactory.class));
+        // najpierw rejestracja - zapisy w trakcie ładowania nie przepadną (put() jest idempotentny)
+        PirateNameIndexListener.register(index.factory, index);
+        try {
+            index.load(em);
+        } catch (RuntimeException e) {
+            index.close();
+            throw e;
+        }
+        return index;
+    }
+
+    /**
+     * Ładuje (lub odbudowuje) indeks ze wszystkich piratów w bazie - strumieniowo, bez encji.
+     */
+    public long load(EntityManager em) {
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new QueryStreamer(em, 10_000, 10_000).forEach(
+                em.createQuery("SELECT p.id, p.name FROM Pirate p", Object[].class),
+                row -> put((Long) row[0], (String) row[1]));
+    }
+
+    public void put(long id, String name) {
+        String lowerName = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        lock.writeLock().lock();
+        try {
+            String previous = names.put(id, lowerName);
+            if (lowerName.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                for (long trigram : trigrams(previous)) {
+                    removePosting(trigram, id);
+                }
+            }
+            for (long trigram : trigrams(lowerName)) {
+                postings.computeIfAbsent(trigram, t -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            String previous = names.remove(id);
+            if (previous != null) {
+                for (long trigram : trigrams(previous)) {
+                    removePosting(trigram, id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Id piratów, których imię zawiera fragment (bez rozróżniania wielkości liter), rosnąco, najwyżej limit.
+     */
+    public List<Long> findIds(String fragment, int limit) {
+        String needle = fragment.toLowerCase(Locale.ROOT);
+        List<Long> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (needle.length() < 3) {
+                // za krótki na trigram - przegląd imion w pamięci, wciąż bez dotykania bazy
+                names.forEach((id, name) -> {
+                    if (name.contains(needle)) {
+                        ids.add(id);
+                    }
+                });
+                ids.sort(Comparator.naturalOrder());
+                return ids.size() > limit ? new ArrayList<>(ids.subList(0, limit)) : ids;
+            }
+
+            long[] trigrams = trigrams(needle);
+            Postings[] lists = new Postings[trigrams.length];
+            for (int i = 0; i < trigrams.length; i++) {
+                lists[i] = postings.get(trigrams[i]);
+                if (lists[i] == null) {
+                    return ids;
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+            Postings shortest = lists[0];
+            for (int i = 0; i < shortest.size && ids.size() < limit; i++) {
+                long id = shortest.ids[i];
+                if (inAll(lists, id) && names.get(id).contains(needle)) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Piraci, których imię zawiera fragment - id z indeksu, encje paczkami po FETCH_BATCH.
+     */
+    public List<Pirate> findPirates(EntityManager em, String fragment, int limit) {
+        List<Long> ids = findIds(fragment, limit);
+        String needle = fragment.toLowerCase(Locale.ROOT);
+        return em.unwrap(Session.class)
+                .byMultipleIds(Pirate.class)
+                .withBatchSize(FETCH_BATCH)
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .filter(pirate -> pirate.getName().toLowerCase(Locale.ROOT).contains(needle))
+                .toList();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int trigramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        PirateNameIndexListener.unregister(factory, this);
+    }
+
+    private void removePosting(long trigram, long id) {
+        Postings list = postings.get(trigram);
+        if (list != null && list.remove(id) && list.size == 0) {
+            postings.remove(trigram);
+        }
+    }
+
+    private static boolean inAll(Postings[] lists, long id) {
+        for (int i = 1; i < lists.length; i++) {
+            if (!lists[i].contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Unikalne trigramy tekstu, każdy zakodowany jako 3 znaki po 16 bitów.
+     */
+    private static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int unique = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[unique++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, unique);
+    }
+
+    /**
+     * Posortowana lista id - nowe id z IDENTITY są największe, więc add() to zwykle dopisanie na końcu.
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) {
+                    return;
+                }
+                insertAt(-pos - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void insertAt(int pos, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Podpina PirateNameIndexListener pod zdarzenia post-commit każdej fabryki sesji.
+ *
+ * Hibernate znajduje integrator przez ServiceLoader
+ * (META-INF/services/org.hibernate.integrator.spi.Integrator).
+ */
+public class PirateNameIndexIntegrator implements org.hibernate.integrator.spi.Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        PirateNameIndexListener listener = new PirateNameIndexListener();
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
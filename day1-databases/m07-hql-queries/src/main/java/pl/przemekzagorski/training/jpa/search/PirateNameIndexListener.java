@@ -0,0 +1,91 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Listener Hibernate dla encji Pirate - przekazuje zapisy i usunięcia do otwartych indeksów imion.
+ *
+ * To listenery "post-commit": Hibernate woła je dopiero po udanym commicie transakcji
+ * (@PostUpdate/@PostRemove z JPA działają już przy flush - wycofane usunięcie albo zmiana imienia
+ * zostawiłyby indeks bez pirata, który w bazie nadal jest). Po rollbacku wołane są metody
+ * *CommitFailed - indeks się nie zmienia.
+ *
+ * Rejestruje go PirateNameIndexIntegrator w każdej SessionFactory, a indeksy zapisują się
+ * w statycznym rejestrze (PirateNameIndex.open() / close()) pod SessionFactory, z której je
+ * załadowano - zmiany z innej fabryki (inna baza, inny persistence unit) ich nie dotyczą.
+ */
+public class PirateNameIndexListener
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final Map<SessionFactory, List<PirateNameIndex>> INDEXES = new ConcurrentHashMap<>();
+
+    static void register(SessionFactory factory, PirateNameIndex index) {
+        INDEXES.computeIfAbsent(factory, key -> new CopyOnWriteArrayList<>()).add(index);
+    }
+
+    static void unregister(SessionFactory factory, PirateNameIndex index) {
+        // pusta lista znika z rejestru - zamknięta fabryka nie zostaje w nim na zawsze
+        INDEXES.computeIfPresent(factory, (key, indexes) -> indexes.remove(index) && indexes.isEmpty() ? null : indexes);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Pirate.class;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        save(event.getSession().getFactory(), event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        save(event.getSession().getFactory(), event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Pirate pirate) {
+            for (PirateNameIndex index : indexesOf(event.getSession().getFactory())) {
+                index.remove(pirate.getId());
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private static List<PirateNameIndex> indexesOf(SessionFactory factory) {
+        return INDEXES.getOrDefault(factory, List.of());
+    }
+
+    private static void save(SessionFactory factory, Object entity) {
+        if (entity instanceof Pirate pirate) {
+            for (PirateNameIndex index : indexesOf(factory)) {
+                index.put(pirate.getId(), pirate.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kryteria wyszukiwania piratów (np. z formularza) - każde pole może być null.
+ *
+ * Filtry (name, rank, minBounty, maxBounty) decydują o tym, które wiersze pasują,
+ * sortowanie i strona tylko o tym, które z nich trafią do wyniku.
+ */
+public class PirateSearchCriteria {
+
+    private String name;
+    private String rank;
+    private BigDecimal minBounty;
+    private BigDecimal maxBounty;
+    private String sortBy;
+    private boolean sortDesc;
+    private int page = 0;
+    private int pageSize = 10;
+
+    // Getters & Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getRank() { return rank; }
+    public void setRank(String rank) { this.rank = rank; }
+    public BigDecimal getMinBounty() { return minBounty; }
+    public void setMinBounty(BigDecimal minBounty) { this.minBounty = minBounty; }
+    public BigDecimal getMaxBounty() { return maxBounty; }
+    public void setMaxBounty(BigDecimal maxBounty) { this.maxBounty = maxBounty; }
+    public String getSortBy() { return sortBy; }
+    public void setSortBy(String sortBy) { this.sortBy = sortBy; }
+    public boolean isSortDesc() { return sortDesc; }
+    public void setSortDesc(boolean sortDesc) { this.sortDesc = sortDesc; }
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+    public int getPageSize() { return pageSize; }
+    public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+
+    /**
+     * Warunki WHERE dla niepustych filtrów (łączone przez AND).
+     */
+    public List<Predicate> toPredicates(CriteriaBuilder cb, Root<Pirate> pirate) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (name != null && !name.isBlank()) {
+            predicates.add(cb.like(
+                cb.lower(pirate.get("name")),
+                "%" + name.toLowerCase() + "%"
+            ));
+        }
+
+        if (rank != null) {
+            predicates.add(cb.equal(pirate.get("rank"), rank));
+        }
+
+        if (minBounty != null) {
+            predicates.add(cb.greaterThanOrEqualTo(pirate.get("bounty"), minBounty));
+        }
+
+        if (maxBounty != null) {
+            predicates.add(cb.lessThanOrEqualTo(pirate.get("bounty"), maxBounty));
+        }
+
+        return predicates;
+    }
+
+    /**
+     * Klucz samych filtrów - dwa kryteria z tym samym kluczem mają tę samą liczbę wyników,
+     * niezależnie od sortowania i strony.
+     */
+    public FilterKey filterKey() {
+        return new FilterKey(
+                name == null || name.isBlank() ? null : name.toLowerCase(),
+                rank,
+                minBounty == null ? null : minBounty.stripTrailingZeros(),
+                maxBounty == null ? null : maxBounty.stripTrailingZeros());
+    }
+
+    public record FilterKey(String name, String rank, BigDecimal minBounty, BigDecimal maxBounty) {
+    }
+}
@@ -0,0 +1,254 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+import pl.przemekzagorski.training.jpa.search.PirateSearchCriteria.FilterKey;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Wyszukiwarka piratów bez COUNT(*) przy każdym żądaniu.
+ *
+ * Klasyczna paginacja (CriteriaApiDemo.searchPirates) wykonuje dwa zapytania: stronę danych
+ * i COUNT po tych samych filtrach. Count musi przejść wszystkie pasujące wiersze, więc przy
+ * dużej tabeli kosztuje więcej niż sama strona. Tutaj:
+ * - search() pobiera pageSize + 1 wierszy - nadmiarowy wiersz mówi tylko, czy jest następna strona;
+ *   zapytanie pochodzi ze skompilowanego szablonu (PirateSearchTemplates)
+ * - estimateCount() zwraca przybliżenie z cache (TTL, najwyżej maxCachedCounts ostatnio używanych
+ *   filtrów - LRU) albo z próbki kilku przedziałów id
+ * - countExact() liczy dokładnie, ale asynchronicznie i tylko na żądanie (np. "pokaż liczbę wyników");
+ *   równoległe żądania dla tych samych filtrów dzielą jedno zapytanie, a wynik trafia do cache
+ *
+ * search() i estimateCount() działają na EntityManagerze wołającego, countExact() otwiera
+ * własny na wątku wirtualnym - EntityManager nie jest bezpieczny wątkowo.
+ */
+public class PirateSearchService implements AutoCloseable {
+
+    private static final int SAMPLE_WINDOWS = 8;
+
+    private final EntityManagerFactory emf;
+    private final int sampleSize;
+    private final PirateSearchTemplates templates;
+    private final ExecutorService countExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountCache counts;
+    private final Map<FilterKey, CompletableFuture<Long>> pendingCounts = new ConcurrentHashMap<>();
+
+    public PirateSearchService(EntityManagerFactory emf) {
+        this(emf, Duration.ofMinutes(5), 10_000);
+    }
+
+    public PirateSearchService(EntityManagerFactory emf, Duration estimateTtl, int sampleSize) {
+        this(emf, estimateTtl, sampleSize, 10_000);
+    }
+
+    /**
+     * @param estimateTtl jak długo wynik (przybliżony lub dokładny) jest serwowany z cache
+     * @param sampleSize  ile kolejnych id obejmuje próbka przy szacowaniu
+     * @param maxCachedCounts ile różnych filtrów pamiętać - każda fraza imienia to osobny wpis
+     */
+    public PirateSearchService(EntityManagerFactory emf, Duration estimateTtl, int sampleSize, int maxCachedCounts) {
+        if (sampleSize < SAMPLE_WINDOWS) {
+            throw new IllegalArgumentException("sampleSize musi być co najmniej " + SAMPLE_WINDOWS + ": " + sampleSize);
+        }
+        this.emf = emf;
+        this.templates = new PirateSearchTemplates(emf);
+        this.sampleSize = sampleSize;
+        this.counts = new CountCache(maxCachedCounts, estimateTtl.toNanos());
+    }
+
+    /**
+     * Strona wyników jednym zapytaniem - bez liczenia wszystkich pasujących rekordów.
+     */
+    public PirateSlice search(EntityManager em, PirateSearchCriteria criteria) {
+        int offset = criteria.getPage() * criteria.getPageSize();
+        List<Pirate> rows = templates.prepare(em, criteria)
+                .setFirstResult(offset)
+                .setMaxResults(criteria.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > criteria.getPageSize();
+        if (!hasNext && (!rows.isEmpty() || offset == 0)) {
+            // ostatnia strona - dokładna liczba wyników wychodzi za darmo
+            counts.put(criteria.filterKey(), new CachedCount(offset + rows.size(), true, System.nanoTime()));
+        }
+        return new PirateSlice(hasNext ? rows.subList(0, criteria.getPageSize()) : rows,
+                criteria.getPage(), criteria.getPageSize(), hasNext);
+    }
+
+    /**
+     * Przybliżona liczba wyników: z cache, a gdy go brak lub wygasł - z próbki.
+     *
+     * Próbka to SAMPLE_WINDOWS przedziałów id rozłożonych równomiernie po całym zakresie
+     * (z losowym przesunięciem), razem sampleSize kolejnych id. Każdy przedział to COUNT
+     * po indeksie klucza głównego, więc koszt nie zależy od rozmiaru tabeli.
+     */
+    public CountEstimate estimateCount(EntityManager em, PirateSearchCriteria criteria) {
+        FilterKey key = criteria.filterKey();
+        CachedCount cached = counts.get(key);
+        if (cached != null) {
+            return cached.toEstimate();
+        }
+
+        Object[] range = em.createQuery("SELECT MIN(p.id), MAX(p.id) FROM Pirate p", Object[].class)
+                .getSingleResult();
+        CachedCount fresh;
+        if (range[0] == null) {
+            fresh = new CachedCount(0, true, System.nanoTime());
+        } else {
+            long min = (Long) range[0];
+            long span = (Long) range[1] - min + 1;
+            if (span <= sampleSize) {
+                fresh = new CachedCount(count(em, criteria, null, null), true, System.nanoTime());
+            } else {
+                fresh = new CachedCount(sample(em, criteria, min, span), false, System.nanoTime());
+            }
+        }
+        counts.put(key, fresh);
+        return fresh.toEstimate();
+    }
+
+    /**
+     * Dokładna liczba wyników, liczona w tle na osobnym EntityManagerze.
+     */
+    public CompletableFuture<Long> countExact(PirateSearchCriteria criteria) {
+        FilterKey key = criteria.filterKey();
+        CompletableFuture<Long> started = new CompletableFuture<>();
+        CompletableFuture<Long> pending = pendingCounts.putIfAbsent(key, started);
+        if (pending != null) {
+            return pending;
+        }
+        countExecutor.execute(() -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                long total = count(em, criteria, null, null);
+                counts.put(key, new CachedCount(total, true, System.nanoTime()));
+                pendingCounts.remove(key, started);
+                started.complete(total);
+            } catch (RuntimeException e) {
+                pendingCounts.remove(key, started);
+                started.completeExceptionally(new RuntimeException("Błąd przy liczeniu wyników wyszukiwania", e));
+            } finally {
+                em.close();
+            }
+        });
+        return started;
+    }
+
+    /**
+     * Usuwa zapamiętane liczby - np. po masowym imporcie lub usunięciu piratów.
+     */
+    public void invalidateCounts() {
+        counts.clear();
+    }
+
+    private long sample(EntityManager em, PirateSearchCriteria criteria, long min, long span) {
+        int window = sampleSize / SAMPLE_WINDOWS;
+        long stride = span / SAMPLE_WINDOWS;
+        long matched = 0;
+        for (int i = 0; i < SAMPLE_WINDOWS; i++) {
+            long from = min + i * stride + ThreadLocalRandom.current().nextLong(stride - window + 1);
+            matched += count(em, criteria, from, from + window - 1);
+        }
+        return Math.round(matched * (double) span / ((long) window * SAMPLE_WINDOWS));
+    }
+
+    private static long count(EntityManager em, PirateSearchCriteria criteria, Long fromId, Long toId) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Pirate> pirate = countQuery.from(Pirate.class);
+        List<Predicate> predicates = criteria.toPredicates(cb, pirate);
+        if (fromId != null) {
+            predicates.add(cb.between(pirate.get("id"), fromId, toId));
+        }
+        countQuery.select(cb.count(pirate)).where(predicates.toArray(new Predicate[0]));
+        return em.createQuery(countQuery).getSingleResult();
+    }
+
+    /**
+     * Ile filtrów ma teraz zapamiętaną liczbę wyników.
+     */
+    public int cachedCounts() {
+        return counts.size();
+    }
+
+    @Override
+    public void close() {
+        countExecutor.close();
+    }
+
+    /**
+     * Liczba wyników; exact = false oznacza szacunek z próbki.
+     */
+    public record CountEstimate(long value, boolean exact) {
+
+        @Override
+        public String toString() {
+            return exact ? String.valueOf(value) : "~" + value;
+        }
+    }
+
+    private record CachedCount(long value, boolean exact, long computedAtNanos) {
+
+        CountEstimate toEstimate() {
+            return new CountEstimate(value, exact);
+        }
+    }
+
+    /**
+     * LRU z limitem rozmiaru - bez niego każda wpisana fraza imienia zostawałaby w pamięci na zawsze
+     * (TTL sprawdzany tylko przy odczycie nie usuwa wpisów, których nikt już nie czyta).
+     */
+    private static final class CountCache {
+        private final int maxSize;
+        private final long ttlNanos;
+        private final LinkedHashMap<FilterKey, CachedCount> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        CountCache(int maxSize, long ttlNanos) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("maxCachedCounts musi być większy od 0: " + maxSize);
+            }
+            this.maxSize = maxSize;
+            this.ttlNanos = ttlNanos;
+        }
+
+        synchronized CachedCount get(FilterKey key) {
+            CachedCount cached = entries.get(key);
+            if (cached != null && System.nanoTime() - cached.computedAtNanos() >= ttlNanos) {
+                entries.remove(key);
+                return null;
+            }
+            return cached;
+        }
+
+        synchronized void put(FilterKey key, CachedCount count) {
+            entries.put(key, count);
+            Iterator<FilterKey> eldest = entries.keySet().iterator();
+            while (entries.size() > maxSize) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
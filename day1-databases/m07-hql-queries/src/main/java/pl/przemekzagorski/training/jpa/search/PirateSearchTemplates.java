@@ -0,0 +1,137 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Skompilowane szablony zapytań wyszukiwarki - jeden na kombinację filtrów i sortowania.
+ *
+ * PirateSearchCriteria.toPredicates() buduje drzewo Criteria od nowa przy każdym wywołaniu.
+ * Hibernate 6 nie trzyma planów dla zapytań Criteria (kluczem byłoby samo drzewo, a to jest
+ * za każdym razem nowe), więc każde wyszukiwanie to budowa drzewa + tłumaczenie do SQL. Tutaj:
+ * - niepuste filtry dają maskę bitową (NAME | RANK | MIN_BOUNTY | MAX_BOUNTY) - 16 możliwych kształtów
+ * - dla kształtu (maska + sortowanie) szablon JPQL z parametrami nazwanymi powstaje raz i trafia do
+ *   emf.addNamedQuery() - plan SQL dla tego tekstu Hibernate liczy raz i trzyma w cache fabryki
+ * - kolejne wywołania to createNamedQuery() + setParameter() - bez budowania drzewa i bez tłumaczenia
+ *
+ * Wartości filtrów nigdy nie trafiają do tekstu zapytania, a pole sortowania jest sprawdzane
+ * w metamodelu - szablon jest bezpieczny tak samo jak Criteria. Szablony są wspólne dla wszystkich
+ * EntityManagerów tej samej fabryki.
+ */
+public class PirateSearchTemplates {
+
+    public static final int NAME = 1;
+    public static final int RANK = 1 << 1;
+    public static final int MIN_BOUNTY = 1 << 2;
+    public static final int MAX_BOUNTY = 1 << 3;
+
+    private final EntityManagerFactory emf;
+    private final Map<Shape, String> templates = new ConcurrentHashMap<>();
+
+    public PirateSearchTemplates(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    /**
+     * Zapytanie z podpiętymi parametrami, posortowane (na końcu po id), bez paginacji.
+     */
+    public TypedQuery<Pirate> prepare(EntityManager em, PirateSearchCriteria criteria) {
+        int mask = mask(criteria);
+        Shape shape = new Shape(mask, criteria.getSortBy(), criteria.isSortDesc());
+        TypedQuery<Pirate> query = em.createNamedQuery(templates.computeIfAbsent(shape, this::compile), Pirate.class);
+
+        if ((mask & NAME) != 0) {
+            query.setParameter("namePattern", "%" + criteria.getName().toLowerCase() + "%");
+        }
+        if ((mask & RANK) != 0) {
+            query.setParameter("rank", criteria.getRank());
+        }
+        if ((mask & MIN_BOUNTY) != 0) {
+            query.setParameter("minBounty", criteria.getMinBounty());
+        }
+        if ((mask & MAX_BOUNTY) != 0) {
+            query.setParameter("maxBounty", criteria.getMaxBounty());
+        }
+        return query;
+    }
+
+    /**
+     * Które filtry są ustawione - te same warunki co w PirateSearchCriteria.toPredicates().
+     */
+    public static int mask(PirateSearchCriteria criteria) {
+        int mask = 0;
+        if (criteria.getName() != null && !criteria.getName().isBlank()) {
+            mask |= NAME;
+        }
+        if (criteria.getRank() != null) {
+            mask |= RANK;
+        }
+        if (criteria.getMinBounty() != null) {
+            mask |= MIN_BOUNTY;
+        }
+        if (criteria.getMaxBounty() != null) {
+            mask |= MAX_BOUNTY;
+        }
+        return mask;
+    }
+
+    /**
+     * Ile kształtów zapytań zostało już skompilowanych.
+     */
+    public int size() {
+        return templates.size();
+    }
+
+    private String compile(Shape shape) {
+        List<String> conditions = new ArrayList<>();
+        if ((shape.mask() & NAME) != 0) {
+            conditions.add("LOWER(p.name) LIKE :namePattern");
+        }
+        if ((shape.mask() & RANK) != 0) {
+            conditions.add("p.rank = :rank");
+        }
+        if ((shape.mask() & MIN_BOUNTY) != 0) {
+            conditions.add("p.bounty >= :minBounty");
+        }
+        if ((shape.mask() & MAX_BOUNTY) != 0) {
+            conditions.add("p.bounty <= :maxBounty");
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT p FROM Pirate p");
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            jpql.append(" ORDER BY ");
+            if (shape.sortBy() != null) {
+                // nieznane pole -> IllegalArgumentException, zanim cokolwiek trafi do tekstu zapytania
+                em.getMetamodel().entity(Pirate.class).getSingularAttribute(shape.sortBy());
+                jpql.append("p.").append(shape.sortBy()).append(shape.sortDesc() ? " DESC" : " ASC").append(", ");
+            }
+            // id na końcu - przy remisach w sortowaniu granice stron są stabilne
+            jpql.append("p.id");
+
+            String name = shape.queryName();
+            emf.addNamedQuery(name, em.createQuery(jpql.toString(), Pirate.class));
+            return name;
+        } finally {
+            em.close();
+        }
+    }
+
+    private record Shape(int mask, String sortBy, boolean sortDesc) {
+
+        String queryName() {
+            return "PirateSearch#" + mask + (sortBy == null ? "" : ":" + sortBy + (sortDesc ? ":desc" : ":asc"));
+        }
+    }
+}
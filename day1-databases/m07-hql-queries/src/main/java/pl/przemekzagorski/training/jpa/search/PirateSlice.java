@@ -0,0 +1,19 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+
+import java.util.List;
+
+/**
+ * Strona wyników bez liczby wszystkich rekordów - wystarcza do przycisków "dalej" / "wstecz".
+ */
+public record PirateSlice(List<Pirate> pirates, int page, int pageSize, boolean hasNext) {
+
+    public PirateSlice {
+        pirates = List.copyOf(pirates);
+    }
+
+    public boolean hasPrevious() {
+        return page > 0;
+    }
+}
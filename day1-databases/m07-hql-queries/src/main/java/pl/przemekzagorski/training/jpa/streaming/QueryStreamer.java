@@ -0,0 +1,113 @@
+package pl.przemekzagorski.training.jpa.streaming;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.query.Query;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Przetwarzanie dużych wyników JPQL wiersz po wierszu - bez getResultList().
+ *
+ * getResultList() ładuje wszystkie encje naraz, a każda zostaje w persistence context
+ * (encja + snapshot do dirty checkingu) aż do końca transakcji. Tutaj:
+ * - kursor ScrollableResults FORWARD_ONLY - sterownik dostarcza wiersze porcjami (fetch size)
+ * - zapytanie read-only - Hibernate nie trzyma snapshotów do dirty checkingu
+ * - co clearEvery wierszy em.clear() - przetworzone encje są odłączane i mogą zostać zebrane przez GC
+ * - CacheMode.IGNORE - skan nie zaśmieca cache drugiego poziomu
+ *
+ * Pamięć zależy więc od fetchSize i clearEvery, nie od liczby wierszy.
+ *
+ * Uwaga: clear() działa na całym EntityManagerze wywołującego, nie tylko na strumieniowanych wierszach -
+ * odłącza też encje załadowane przed skanem. Żeby nie zgubić ich zmian, w transakcji przed każdym
+ * clear() jest flush(); poza transakcją niezapisane zmiany kończą skan wyjątkiem zamiast po cichu
+ * przepaść. Kto chce zachować swój persistence context, niech poda streamerowi osobny EntityManager.
+ * Po clear() przetworzone encje są odłączone - leniwe asocjacje trzeba pobrać JOIN FETCH
+ * w zapytaniu albo użyć przed końcem "okna" clearEvery. H2 embedded strumieniuje wynik
+ * dopiero z LAZY_QUERY_EXECUTION=1 w URL (inaczej buforuje go po swojej stronie).
+ */
+public class QueryStreamer {
+
+    private final EntityManager em;
+    private final int fetchSize;
+    private final int clearEvery;
+
+    public QueryStreamer(EntityManager em) {
+        this(em, 1_000, 1_000);
+    }
+
+    public QueryStreamer(EntityManager em, int fetchSize, int clearEvery) {
+        if (fetchSize < 1 || clearEvery < 1) {
+            throw new IllegalArgumentException("fetchSize i clearEvery muszą być większe od 0");
+        }
+        this.em = em;
+        this.fetchSize = fetchSize;
+        this.clearEvery = clearEvery;
+    }
+
+    /**
+     * Leniwy strumień wyników. Trzeba go zamknąć (try-with-resources) - zamyka kursor.
+     */
+    public <T> Stream<T> stream(TypedQuery<T> query) {
+        ScrollableResults<T> scroll = prepare(query).scroll(ScrollMode.FORWARD_ONLY);
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private long count;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (!scroll.next()) {
+                    return false;
+                }
+                action.accept(scroll.get());
+                if (++count % clearEvery == 0) {
+                    clearContext();
+                }
+                return true;
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(scroll::close);
+    }
+
+    /**
+     * Wywołuje action dla każdego wiersza.
+     *
+     * @return liczba przetworzonych wierszy
+     */
+    public <T> long forEach(TypedQuery<T> query, Consumer<? super T> action) {
+        long[] count = {0};
+        try (Stream<T> rows = stream(query)) {
+            rows.forEach(row -> {
+                action.accept(row);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    private void clearContext() {
+        if (em.isJoinedToTransaction()) {
+            em.flush();
+        } else if (em.unwrap(Session.class).isDirty()) {
+            throw new IllegalStateException("EntityManager ma niezapisane zmiany poza transakcją - clear() by je odrzucił");
+        }
+        em.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Query<T> prepare(TypedQuery<T> query) {
+        query.setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize);
+        query.setHint(AvailableHints.HINT_READ_ONLY, true);
+        Query<T> hibernateQuery = query.unwrap(Query.class);
+        hibernateQuery.setCacheMode(CacheMode.IGNORE);
+        return hibernateQuery;
+    }
+}
@@ -0,0 +1,236 @@
+package pl.przemekzagorski.training.jpa.bulk;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy masowych zmian paczkami - wynik jak jedno UPDATE, postęp co paczkę, częściowy commit po błędzie.
+ */
+@DisplayName("BulkMutationService")
+class BulkMutationServiceTest {
+
+    private static final String RAISE_BOUNTY = """
+            UPDATE Pirate p SET p.bounty = p.bounty + 1
+            WHERE p.rank = :rank AND p.id BETWEEN :fromId AND :toId
+            """;
+
+    private static EntityManagerFactory emf;
+    private EntityManager em;
+
+    @BeforeAll
+    static void createFactory() {
+        emf = Persistence.createEntityManagerFactory("queries-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:bulk_mutation_test;DB_CLOSE_DELAY=-1",
+                "hibernate.show_sql", "false"));
+    }
+
+    @AfterAll
+    static void closeFactory() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM Pirate").executeUpdate();
+        em.createNativeQuery("""
+                INSERT INTO pirates (name, rank, bounty, version)
+                SELECT 'Pirate ' || X, CASEWHEN(MOD(X, 2) = 0, 'Captain', 'Sailor'), 100, 0
+                FROM SYSTEM_RANGE(1, 1000)
+                """).executeUpdate();
+        em.getTransaction().commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.close();
+    }
+
+    @Test
+    @DisplayName("powinien zmienić te same wiersze co jedno UPDATE i raportować postęp po każdej paczce")
+    void shouldUpdateInChunks() {
+        // Given
+        BulkMutationService service = new BulkMutationService(emf, 100, 1);
+        List<BulkMutationService.Progress> progress = new CopyOnWriteArrayList<>();
+
+        // When
+        BulkMutationService.BulkResult result = service.execute(Pirate.class, RAISE_BOUNTY,
+                Map.of("rank", "Captain"), progress::add);
+
+        // Then
+        assertThat(result.chunks()).isEqualTo(10);
+        assertThat(result.rows()).isEqualTo(500);
+        assertThat(progress).extracting(BulkMutationService.Progress::chunksDone)
+                .containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        assertThat(progress.get(9).rows()).isEqualTo(500);
+        assertThat(bountyTotal("Captain")).isEqualTo(500 * 101);
+        assertThat(bountyTotal("Sailor")).isEqualTo(500 * 100);
+    }
+
+    @Test
+    @DisplayName("powinien dać ten sam wynik przy paczkach wykonywanych równolegle")
+    void shouldUpdateInParallel() {
+        // Given
+        BulkMutationService service = new BulkMutationService(emf, 37, 4);
+        List<BulkMutationService.Progress> progress = new CopyOnWriteArrayList<>();
+
+        // When
+        BulkMutationService.BulkResult result = service.execute(Pirate.class, RAISE_BOUNTY,
+                Map.of("rank", "Captain"), progress::add);
+
+        // Then
+        assertThat(result.rows()).isEqualTo(500);
+        assertThat(progress).hasSize(result.chunks());
+        assertThat(progress.get(progress.size() - 1).rows()).isEqualTo(500);
+        assertThat(bountyTotal("Captain")).isEqualTo(500 * 101);
+    }
+
+    @Test
+    @DisplayName("powinien zostawić zatwierdzone paczki sprzed błędu i przerwać resztę")
+    void shouldKeepCommittedChunksOnFailure() {
+        // Given - od 6. paczki zapytanie łamie NOT NULL na kolumnie name
+        long minId = em.createQuery("SELECT MIN(p.id) FROM Pirate p", Long.class).getSingleResult();
+        BulkMutationService service = new BulkMutationService(emf, 100, 1);
+        String jpql = """
+                UPDATE Pirate p
+                SET p.bounty = p.bounty + 1,
+                    p.name = CASE WHEN p.id >= :breakAt THEN NULL ELSE p.name END
+                WHERE p.id BETWEEN :fromId AND :toId
+                """;
+
+        // When / Then
+        assertThatThrownBy(() -> service.execute(Pirate.class, jpql, Map.of("breakAt", minId + 500)))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("zatwierdzono 5 z 10 paczek");
+        assertThat(bountyTotal("Captain") + bountyTotal("Sailor")).isEqualTo(500 * 101 + 500 * 100);
+    }
+
+    @Test
+    @DisplayName("powinien przerwać równoległe paczki po błędzie i podać końcową liczbę zatwierdzonych")
+    void shouldStopParallelWorkersOnFailure() {
+        // Given - paczki od id minId + 500 łamią NOT NULL, 4 wątki
+        long minId = em.createQuery("SELECT MIN(p.id) FROM Pirate p", Long.class).getSingleResult();
+        BulkMutationService service = new BulkMutationService(emf, 50, 4);
+        String jpql = """
+                UPDATE Pirate p
+                SET p.bounty = p.bounty + 1,
+                    p.name = CASE WHEN p.id >= :breakAt THEN NULL ELSE p.name END
+                WHERE p.id BETWEEN :fromId AND :toId
+                """;
+
+        // When
+        Throwable thrown = catchThrowable(() -> service.execute(Pirate.class, jpql, Map.of("breakAt", minId + 500)));
+
+        // Then - liczba w komunikacie zgadza się z tym, co faktycznie jest w bazie
+        assertThat(thrown).isInstanceOf(RuntimeException.class).hasMessageContaining("z 20 paczek");
+        long raised = raisedPirates();
+        assertThat(raised).isLessThanOrEqualTo(500).isEqualTo(raised / 50 * 50);
+        assertThat(thrown).hasMessageContaining("zatwierdzono " + raised / 50 + " z 20 paczek");
+    }
+
+    @Test
+    @DisplayName("powinien zatrzymać pozostałe wątki, gdy progressListener rzuci wyjątek")
+    void shouldStopParallelWorkersWhenListenerFails() {
+        // Given - listener rzuca tylko przy pierwszym wywołaniu
+        BulkMutationService service = new BulkMutationService(emf, 10, 4);
+        AtomicBoolean first = new AtomicBoolean(true);
+
+        // When / Then
+        assertThatThrownBy(() -> service.execute(Pirate.class, RAISE_BOUNTY, Map.of("rank", "Captain"), progress -> {
+            if (first.getAndSet(false)) {
+                throw new IllegalStateException("Pasek postępu zatonął");
+            }
+        })).hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThat(raisedPirates()).isLessThan(500);
+    }
+
+    @Test
+    @DisplayName("powinien po Error w wątku poczekać na pozostałe i podać końcową liczbę zatwierdzonych")
+    void shouldWaitForWorkersAfterError() throws InterruptedException {
+        // Given - paczki po 10 id, w każdej 5 kapitanów; Error przy pierwszym raporcie postępu
+        BulkMutationService service = new BulkMutationService(emf, 10, 4);
+        AtomicBoolean first = new AtomicBoolean(true);
+
+        // When
+        Throwable thrown = catchThrowable(() -> service.execute(Pirate.class, RAISE_BOUNTY, Map.of("rank", "Captain"),
+                progress -> {
+                    if (first.getAndSet(false)) {
+                        throw new AssertionError("Kraken");
+                    }
+                }));
+
+        // Then - po powrocie żaden wątek już nie zatwierdza, a komunikat zgadza się z bazą
+        long raised = raisedPirates();
+        Thread.sleep(100);
+        assertThat(raisedPirates()).isEqualTo(raised);
+        assertThat(raised).isLessThan(500);
+        assertThat(thrown).hasRootCauseInstanceOf(AssertionError.class)
+                .hasMessageContaining("zatwierdzono " + raised / 5 + " z 100 paczek");
+    }
+
+    @Test
+    @DisplayName("powinien po przerwaniu wątku wywołującego poczekać na wątki robocze i zachować flagę przerwania")
+    void shouldWaitForWorkersAfterInterrupt() throws InterruptedException {
+        // Given
+        BulkMutationService service = new BulkMutationService(emf, 10, 4);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        AtomicBoolean stillInterrupted = new AtomicBoolean();
+        Thread caller = Thread.ofPlatform().start(() -> {
+            thrown.set(catchThrowable(() -> service.execute(Pirate.class, RAISE_BOUNTY, Map.of("rank", "Captain"),
+                    progress -> {
+                        started.countDown();
+                        LockSupport.parkNanos(5_000_000);
+                    })));
+            stillInterrupted.set(Thread.currentThread().isInterrupted());
+        });
+
+        // When
+        started.await();
+        caller.interrupt();
+        caller.join();
+
+        // Then
+        long raised = raisedPirates();
+        assertThat(raised).isLessThan(500);
+        assertThat(thrown.get()).hasMessageContaining("Przerwano")
+                .hasMessageContaining("zatwierdzono " + raised / 5 + " z 100 paczek");
+        assertThat(stillInterrupted).isTrue();
+    }
+
+    @Test
+    @DisplayName("powinien odrzucić zapytanie bez parametrów zakresu id")
+    void shouldRejectQueryWithoutIdRange() {
+        BulkMutationService service = new BulkMutationService(emf);
+
+        assertThatThrownBy(() -> service.execute(Pirate.class, "UPDATE Pirate p SET p.bounty = 0", Map.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long raisedPirates() {
+        em.clear();
+        return em.createQuery("SELECT COUNT(p) FROM Pirate p WHERE p.bounty > 100", Long.class).getSingleResult();
+    }
+
+    private long bountyTotal(String rank) {
+        em.clear();
+        return em.createQuery("SELECT SUM(p.bounty) FROM Pirate p WHERE p.rank = :rank", Number.class)
+                .setParameter("rank", rank)
+                .getSingleResult()
+                .longValue();
+    }
+}
@@ -0,0 +1,189 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy indeksu trigramowego - zgodność z LIKE '%x%' i aktualizacja przez listener encji.
+ */
+@DisplayName("PirateNameIndex")
+class PirateNameIndexTest {
+
+    private static EntityManagerFactory emf;
+    private EntityManager em;
+    private PirateNameIndex index;
+
+    @BeforeAll
+    static void createPirates() {
+        emf = Persistence.createEntityManagerFactory("queries-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:name_index_test;DB_CLOSE_DELAY=-1",
+                "hibernate.show_sql", "false"));
+        EntityManager setup = emf.createEntityManager();
+        setup.getTransaction().begin();
+        setup.createNativeQuery("""
+                INSERT INTO pirates (name, rank, bounty, version)
+                SELECT ARRAY_GET(ARRAY['Jack Sparrow', 'Hector Barbossa', 'Anne Bonny', 'Edward Teach'], MOD(X, 4) + 1)
+                       || ' ' || X, 'Sailor', 1, 0
+                FROM SYSTEM_RANGE(1, 5000)
+                """).executeUpdate();
+        setup.getTransaction().commit();
+        setup.close();
+    }
+
+    @AfterAll
+    static void closeFactory() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        em = emf.createEntityManager();
+        index = PirateNameIndex.open(em);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+        em.close();
+    }
+
+    @ParameterizedTest(name = "fragment ''{0}''")
+    @ValueSource(strings = {"SPARROW 12", "ck sp", "bonny 4999", "ea", "7", "teach 1", "nobody"})
+    @DisplayName("powinien zwrócić tych samych piratów co LOWER(name) LIKE '%x%'")
+    void shouldMatchLike(String fragment) {
+        // When
+        List<Pirate> viaIndex = index.findPirates(em, fragment, 50);
+
+        // Then
+        List<Pirate> viaLike = em.createQuery(
+                        "SELECT p FROM Pirate p WHERE LOWER(p.name) LIKE :pattern ORDER BY p.id", Pirate.class)
+                .setParameter("pattern", "%" + fragment.toLowerCase() + "%")
+                .setMaxResults(50)
+                .getResultList();
+        assertThat(viaIndex).containsExactlyElementsOf(viaLike);
+    }
+
+    @Test
+    @DisplayName("powinien aktualizować indeks przy persist, zmianie imienia i remove")
+    void shouldFollowEntityLifecycle() {
+        // Given
+        em.getTransaction().begin();
+        Pirate pirate = new Pirate("Zbigniew Szablozęby", "Captain", BigDecimal.TEN);
+        em.persist(pirate);
+        em.getTransaction().commit();
+        assertThat(index.findIds("SZABLO", 10)).containsExactly(pirate.getId());
+
+        // When
+        em.getTransaction().begin();
+        pirate.setName("Zbigniew Hakoręki");
+        em.getTransaction().commit();
+
+        // Then
+        assertThat(index.findIds("szablo", 10)).isEmpty();
+        assertThat(index.findIds("hakor", 10)).containsExactly(pirate.getId());
+
+        // When
+        em.getTransaction().begin();
+        em.remove(pirate);
+        em.getTransaction().commit();
+
+        // Then
+        assertThat(index.findIds("hakor", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(5000);
+    }
+
+    @Test
+    @DisplayName("nie powinien zmieniać indeksu, gdy zmiana imienia i usunięcie zostały wycofane")
+    void shouldIgnoreRolledBackChanges() {
+        // Given
+        Pirate pirate = em.find(Pirate.class, 2L);
+        String name = pirate.getName();
+
+        // When - flush wysyła UPDATE/DELETE do bazy, ale transakcja się wycofuje
+        em.getTransaction().begin();
+        pirate.setName("Zbigniew Hakoręki");
+        em.flush();
+        em.getTransaction().rollback();
+        em.clear();
+
+        em.getTransaction().begin();
+        em.remove(em.find(Pirate.class, 2L));
+        em.flush();
+        em.getTransaction().rollback();
+        em.clear();
+
+        // Then
+        assertThat(index.findIds("hakor", 10)).isEmpty();
+        assertThat(index.findPirates(em, name, 10)).extracting(Pirate::getId).contains(2L);
+        assertThat(index.size()).isEqualTo(5000);
+    }
+
+    @Test
+    @DisplayName("nie powinien przyjmować zmian z innej EntityManagerFactory")
+    void shouldIgnoreChangesFromOtherFactory() {
+        // Given - druga fabryka na osobnej bazie, jej piraci dostają te same id co piraci z pierwszej
+        EntityManagerFactory otherEmf = Persistence.createEntityManagerFactory("queries-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:name_index_other;DB_CLOSE_DELAY=-1",
+                "hibernate.show_sql", "false"));
+        Pirate stranger = new Pirate("Obcy Korsarz", "Captain", BigDecimal.ONE);
+        try (otherEmf; EntityManager other = otherEmf.createEntityManager()) {
+            // When
+            other.getTransaction().begin();
+            other.persist(stranger);
+            other.getTransaction().commit();
+
+            other.getTransaction().begin();
+            other.remove(stranger);
+            other.getTransaction().commit();
+        }
+
+        // Then - obcy nie trafił do indeksu, a nasz pirat o tym samym id nie został usunięty
+        String sameIdName = em.find(Pirate.class, stranger.getId()).getName();
+        assertThat(index.findIds("korsarz", 10)).isEmpty();
+        assertThat(index.findIds(sameIdName, 100)).contains(stranger.getId());
+        assertThat(index.size()).isEqualTo(5000);
+    }
+
+    @Test
+    @DisplayName("powinien obsłużyć id większe niż Integer.MAX_VALUE")
+    void shouldHandleIdsBeyondIntRange() {
+        // Given
+        long bigId = Integer.MAX_VALUE + 10L;
+
+        // When
+        index.put(bigId, "Kapitan Dalekosiężny");
+
+        // Then
+        assertThat(index.findIds("dalekosi", 10)).containsExactly(bigId);
+        index.remove(bigId);
+        assertThat(index.findIds("dalekosi", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("powinien pominąć nieaktualny wpis po zmianie z pominięciem encji i naprawić go przez load()")
+    void shouldSkipStaleEntriesUntilReload() {
+        // Given - bulk UPDATE nie wywołuje listenera
+        em.getTransaction().begin();
+        em.createQuery("UPDATE Pirate p SET p.name = 'Renamed' WHERE p.id = 1").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        // When / Then
+        assertThat(index.findIds("barbossa 1", 100)).contains(1L);
+        assertThat(index.findPirates(em, "barbossa 1", 100)).extracting(Pirate::getId).doesNotContain(1L);
+
+        index.load(em);
+        assertThat(index.findIds("renamed", 10)).containsExactly(1L);
+    }
+}
@@ -0,0 +1,169 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy wyszukiwania bez COUNT - has-next, szacowanie z próbki i dokładny count w tle.
+ */
+@DisplayName("PirateSearchService")
+class PirateSearchServiceTest {
+
+    private static final int PIRATES = 20_000;
+
+    private static EntityManagerFactory emf;
+    private EntityManager em;
+    private PirateSearchService service;
+
+    @BeforeAll
+    static void createPirates() {
+        emf = Persistence.createEntityManagerFactory("queries-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:search_test;DB_CLOSE_DELAY=-1",
+                "hibernate.show_sql", "false",
+                "hibernate.generate_statistics", "true"));
+        EntityManager setup = emf.createEntityManager();
+        setup.getTransaction().begin();
+        setup.createNativeQuery("""
+                INSERT INTO pirates (name, rank, bounty, version)
+                SELECT 'Pirate ' || X,
+                       CASEWHEN(MOD(X, 4) = 0, 'Captain', CASEWHEN(MOD(X, 4) = 1, 'First Mate',
+                           CASEWHEN(MOD(X, 4) = 2, 'Gunner', 'Sailor'))),
+                       MOD(X, 1000), 0
+                FROM SYSTEM_RANGE(1, ?1)
+                """).setParameter(1, PIRATES).executeUpdate();
+        setup.getTransaction().commit();
+        setup.close();
+    }
+
+    @AfterAll
+    static void closeFactory() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        em = emf.createEntityManager();
+        service = new PirateSearchService(emf, Duration.ofMinutes(1), 2_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+        em.close();
+    }
+
+    @Test
+    @DisplayName("powinien wykryć następną stronę jednym zapytaniem, bez COUNT")
+    void shouldProbeNextPageWithoutCount() {
+        // Given - 20 piratów z bounty = 999
+        PirateSearchCriteria criteria = criteria(null);
+        criteria.setMinBounty(new BigDecimal("999"));
+        criteria.setPageSize(8);
+        Statistics stats = statistics();
+        stats.clear();
+
+        // When
+        PirateSlice first = service.search(em, criteria);
+        criteria.setPage(2);
+        PirateSlice last = service.search(em, criteria);
+
+        // Then
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(first.pirates()).hasSize(8);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.pirates()).hasSize(4);
+        assertThat(last.hasNext()).isFalse();
+        assertThat(last.hasPrevious()).isTrue();
+
+        // ostatnia strona daje dokładną liczbę - szacowanie nie dotyka bazy
+        stats.clear();
+        assertThat(service.estimateCount(em, criteria))
+                .isEqualTo(new PirateSearchService.CountEstimate(20, true));
+        assertThat(stats.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("powinien oszacować liczbę wyników z próbki i serwować ją z cache")
+    void shouldEstimateFromSample() {
+        // Given
+        PirateSearchCriteria criteria = criteria("Captain");
+        Statistics stats = statistics();
+
+        // When
+        PirateSearchService.CountEstimate estimate = service.estimateCount(em, criteria);
+        stats.clear();
+        PirateSearchService.CountEstimate cached = service.estimateCount(em, criteria);
+
+        // Then
+        assertThat(estimate.exact()).isFalse();
+        assertThat(estimate.value()).isCloseTo(PIRATES / 4, withinPercentage(10));
+        assertThat(cached).isEqualTo(estimate);
+        assertThat(stats.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("powinien policzyć dokładnie w tle i zastąpić szacunek w cache")
+    void shouldCountExactlyInBackground() throws Exception {
+        // Given
+        PirateSearchCriteria criteria = criteria("Gunner");
+        service.estimateCount(em, criteria);
+
+        // When - dwa równoległe żądania dla tych samych filtrów
+        CompletableFuture<Long> first = service.countExact(criteria);
+        CompletableFuture<Long> second = service.countExact(criteria("Gunner"));
+
+        // Then
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(PIRATES / 4);
+        assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(PIRATES / 4);
+        assertThat(service.estimateCount(em, criteria))
+                .isEqualTo(new PirateSearchService.CountEstimate(PIRATES / 4, true));
+    }
+
+    @Test
+    @DisplayName("powinien trzymać w cache najwyżej maxCachedCounts filtrów, wypychając najdawniej używane")
+    void shouldBoundCountCache() {
+        // Given
+        try (PirateSearchService bounded = new PirateSearchService(emf, Duration.ofMinutes(1), 2_000, 3)) {
+            PirateSearchCriteria kept = criteria("Captain");
+            bounded.estimateCount(em, kept);
+
+            // When - kolejne frazy imienia, "Captain" odczytywany co chwilę
+            for (int i = 0; i < 10; i++) {
+                PirateSearchCriteria byName = criteria(null);
+                byName.setName("Pirate " + i);
+                bounded.estimateCount(em, byName);
+                bounded.estimateCount(em, kept);
+            }
+            Statistics stats = statistics();
+            stats.clear();
+
+            // Then
+            assertThat(bounded.cachedCounts()).isEqualTo(3);
+            bounded.estimateCount(em, kept);
+            assertThat(stats.getPrepareStatementCount()).isZero();
+        }
+    }
+
+    private static PirateSearchCriteria criteria(String rank) {
+        PirateSearchCriteria criteria = new PirateSearchCriteria();
+        criteria.setRank(rank);
+        criteria.setSortBy("name");
+        return criteria;
+    }
+
+    private static Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+}
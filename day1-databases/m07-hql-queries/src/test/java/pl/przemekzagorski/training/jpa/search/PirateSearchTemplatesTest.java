@@ -0,0 +1,133 @@
+package pl.przemekzagorski.training.jpa.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy szablonów - te same wyniki co drzewo Criteria, jeden szablon na kształt zapytania.
+ */
+@DisplayName("PirateSearchTemplates")
+class PirateSearchTemplatesTest {
+
+    private static EntityManagerFactory emf;
+    private EntityManager em;
+    private PirateSearchTemplates templates;
+
+    @BeforeAll
+    static void createPirates() {
+        emf = Persistence.createEntityManagerFactory("queries-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:templates_test;DB_CLOSE_DELAY=-1",
+                "hibernate.show_sql", "false"));
+        EntityManager setup = emf.createEntityManager();
+        setup.getTransaction().begin();
+        setup.createNativeQuery("""
+                INSERT INTO pirates (name, rank, bounty, version)
+                SELECT 'Pirate ' || X, CASEWHEN(MOD(X, 2) = 0, 'Captain', 'Sailor'), MOD(X * 37, 100), 0
+                FROM SYSTEM_RANGE(1, 200)
+                """).executeUpdate();
+        setup.getTransaction().commit();
+        setup.close();
+    }
+
+    @AfterAll
+    static void closeFactory() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        em = emf.createEntityManager();
+        templates = new PirateSearchTemplates(emf);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.close();
+    }
+
+    @Test
+    @DisplayName("powinien zwrócić to samo co drzewo Criteria dla każdej z 16 kombinacji filtrów")
+    void shouldMatchCriteriaTreeForEveryMask() {
+        for (int mask = 0; mask < 16; mask++) {
+            // Given
+            PirateSearchCriteria criteria = criteria(mask);
+
+            // When
+            List<Pirate> fromTemplate = templates.prepare(em, criteria).getResultList();
+
+            // Then
+            assertThat(PirateSearchTemplates.mask(criteria)).isEqualTo(mask);
+            assertThat(fromTemplate).as("maska %d", mask).containsExactlyElementsOf(fromCriteriaTree(criteria));
+        }
+    }
+
+    @Test
+    @DisplayName("powinien kompilować szablon raz na kształt zapytania, niezależnie od wartości")
+    void shouldCompileOncePerShape() {
+        // Given
+        PirateSearchCriteria cheap = criteria(PirateSearchTemplates.MAX_BOUNTY);
+        PirateSearchCriteria rich = criteria(PirateSearchTemplates.MAX_BOUNTY);
+        rich.setMaxBounty(new BigDecimal("99"));
+
+        // When
+        int cheapCount = templates.prepare(em, cheap).getResultList().size();
+        int richCount = templates.prepare(em, rich).getResultList().size();
+        rich.setSortDesc(true);
+        templates.prepare(em, rich).getResultList();
+
+        // Then
+        assertThat(cheapCount).isLessThan(richCount);
+        assertThat(templates.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("powinien odrzucić sortowanie po nieistniejącym polu")
+    void shouldRejectUnknownSortField() {
+        PirateSearchCriteria criteria = criteria(0);
+        criteria.setSortBy("name; DELETE FROM Pirate");
+
+        assertThatThrownBy(() -> templates.prepare(em, criteria))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(templates.size()).isZero();
+    }
+
+    private static PirateSearchCriteria criteria(int mask) {
+        PirateSearchCriteria criteria = new PirateSearchCriteria();
+        if ((mask & PirateSearchTemplates.NAME) != 0) {
+            criteria.setName("E 1");
+        }
+        if ((mask & PirateSearchTemplates.RANK) != 0) {
+            criteria.setRank("Captain");
+        }
+        if ((mask & PirateSearchTemplates.MIN_BOUNTY) != 0) {
+            criteria.setMinBounty(new BigDecimal("20"));
+        }
+        if ((mask & PirateSearchTemplates.MAX_BOUNTY) != 0) {
+            criteria.setMaxBounty(new BigDecimal("70"));
+        }
+        criteria.setSortBy("bounty");
+        return criteria;
+    }
+
+    private List<Pirate> fromCriteriaTree(PirateSearchCriteria criteria) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Pirate> cq = cb.createQuery(Pirate.class);
+        Root<Pirate> pirate = cq.from(Pirate.class);
+        cq.where(criteria.toPredicates(cb, pirate).toArray(new Predicate[0]))
+          .orderBy(cb.asc(pirate.get("bounty")), cb.asc(pirate.get("id")));
+        return em.createQuery(cq).getResultList();
+    }
+}
@@ -0,0 +1,157 @@
+package pl.przemekzagorski.training.jpa.streaming;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.Session;
+import org.junit.jupiter.api.*;
+import pl.przemekzagorski.training.jpa.entity.Pirate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testy strumieniowania - persistence context i sterta nie rosną z liczbą wierszy.
+ */
+@DisplayName("QueryStreamer")
+class QueryStreamerTest {
+
+    private static final int PIRATES = 100_000;
+    private static final int CLEAR_EVERY = 500;
+
+    private static EntityManagerFactory emf;
+    private EntityManager em;
+
+    @BeforeAll
+    static void createPirates() {
+        emf = Persistence.createEntityManagerFactory("queries-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:streamer_test;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1",
+                "hibernate.show_sql", "false",
+                "hibernate.generate_statistics", "false"));
+        EntityManager setup = emf.createEntityManager();
+        setup.getTransaction().begin();
+        setup.createNativeQuery("""
+                INSERT INTO pirates (name, rank, bounty, joined_at, version)
+                SELECT 'Pirate ' || X, 'Sailor', MOD(X, 1000), DATE '1700-01-01', 0 FROM SYSTEM_RANGE(1, ?1)
+                """).setParameter(1, PIRATES).executeUpdate();
+        setup.getTransaction().commit();
+        setup.close();
+    }
+
+    @AfterAll
+    static void closeFactory() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    @Test
+    @DisplayName("powinien przetworzyć wszystkie wiersze trzymając w persistence context najwyżej clearEvery encji")
+    void shouldBoundPersistenceContext() {
+        // Given
+        QueryStreamer streamer = new QueryStreamer(em, 200, CLEAR_EVERY);
+        long[] maxManaged = {0};
+
+        // When
+        long rows = streamer.forEach(em.createQuery("SELECT p FROM Pirate p", Pirate.class),
+                pirate -> maxManaged[0] = Math.max(maxManaged[0], managedEntities()));
+
+        // Then
+        assertThat(rows).isEqualTo(PIRATES);
+        assertThat(maxManaged[0]).isEqualTo(CLEAR_EVERY);
+    }
+
+    @Test
+    @DisplayName("powinien skanować 100 000 piratów bez wzrostu zajętej sterty")
+    void shouldKeepHeapConstant() {
+        // Given - getResultList() dla tej tabeli zajmuje kilkadziesiąt MB (encje + snapshoty)
+        QueryStreamer streamer = new QueryStreamer(em, 200, CLEAR_EVERY);
+        long baseline = usedHeapAfterGc();
+        long[] maxGrowth = {0};
+
+        // When
+        try (Stream<Pirate> pirates = streamer.stream(em.createQuery("SELECT p FROM Pirate p", Pirate.class))) {
+            pirates.forEach(pirate -> {
+                if (pirate.getId() % 25_000 == 0) {
+                    maxGrowth[0] = Math.max(maxGrowth[0], usedHeapAfterGc() - baseline);
+                }
+            });
+        }
+
+        // Then
+        assertThat(maxGrowth[0]).as("wzrost sterty w trakcie skanu [B]").isLessThan(16L * 1024 * 1024);
+    }
+
+    @Test
+    @DisplayName("powinien zamknąć kursor przy przerwaniu strumienia")
+    void shouldCloseCursorWhenStreamIsAbandoned() {
+        // When
+        long firstIds;
+        try (Stream<Pirate> pirates = new QueryStreamer(em).stream(
+                em.createQuery("SELECT p FROM Pirate p ORDER BY p.id", Pirate.class))) {
+            firstIds = pirates.limit(10).mapToLong(Pirate::getId).sum();
+        }
+
+        // Then - połączenie jest dalej używalne po porzuceniu kursora w połowie
+        assertThat(firstIds).isEqualTo(55);
+        assertThat(em.createQuery("SELECT COUNT(p) FROM Pirate p", Long.class).getSingleResult()).isEqualTo(PIRATES);
+    }
+
+    @Test
+    @DisplayName("powinien zapisać zmiany wywołującego przed clear() zamiast je odrzucić")
+    void shouldFlushCallerChangesBeforeClear() {
+        // Given - encja zmieniona przed skanem, jeszcze bez flush
+        Pirate pirate = em.find(Pirate.class, 1L);
+        pirate.setBounty(new BigDecimal("4242"));
+
+        // When
+        new QueryStreamer(em, 200, CLEAR_EVERY).forEach(
+                em.createQuery("SELECT p FROM Pirate p WHERE p.id <= 1000", Pirate.class), row -> { });
+
+        // Then - encja odłączona, ale jej zmiana jest w bazie (w tej transakcji)
+        assertThat(em.contains(pirate)).isFalse();
+        assertThat(((Number) em.createNativeQuery("SELECT bounty FROM pirates WHERE id = 1").getSingleResult()).intValue())
+                .isEqualTo(4242);
+    }
+
+    @Test
+    @DisplayName("powinien przerwać skan poza transakcją, gdy clear() odrzuciłby niezapisane zmiany")
+    void shouldRefuseToDiscardChangesOutsideTransaction() {
+        EntityManager outside = emf.createEntityManager();
+        try {
+            // Given
+            outside.find(Pirate.class, 1L).setBounty(new BigDecimal("4242"));
+            QueryStreamer streamer = new QueryStreamer(outside, 200, CLEAR_EVERY);
+
+            // When / Then
+            assertThatThrownBy(() -> streamer.forEach(
+                    outside.createQuery("SELECT p FROM Pirate p WHERE p.id <= 1000", Pirate.class), row -> { }))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            outside.close();
+        }
+    }
+
+    private long managedEntities() {
+        return em.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}